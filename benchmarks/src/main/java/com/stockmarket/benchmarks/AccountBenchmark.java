@@ -0,0 +1,56 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.AccountManager;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountBenchmark {
+
+    private static final int SYMBOLS = 200;
+
+    @Param({"10000"})
+    int accounts;
+
+    private AccountManager manager;
+    private Asset[] assets;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new AccountManager();
+        assets = new Asset[SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            assets[s] = BenchmarkData.asset(s);
+            manager.getMarketData().setPrice(assets[s].getSymbol(), assets[s].getBasePrice());
+        }
+        // każde konto: kilka pozycji z 200 symboli
+        for (int i = 0; i < accounts; i++) {
+            Portfolio account = manager.getAccount(manager.openAccount(Double.MAX_VALUE / 1e6));
+            for (int k = 0; k < 5; k++) {
+                account.buyAsset(assets[(i * 7 + k * 31) % SYMBOLS], 1 + (i + k) % 20);
+            }
+        }
+    }
+
+    @Benchmark
+    public double firmValue() {
+        return manager.calculateTotalValue();
+    }
+
+    // jedna cena: przeliczane tylko konta z pozycją w tym symbolu (~accounts * 5 / SYMBOLS)
+    @Benchmark
+    public int priceUpdate() {
+        int s = tick++ % SYMBOLS;
+        manager.getMarketData().setPrice(assets[s].getSymbolId(), assets[s].getBasePrice() * (1 + (tick & 7) * 0.01));
+        return s;
+    }
+}
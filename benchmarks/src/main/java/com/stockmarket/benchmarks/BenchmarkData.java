@@ -0,0 +1,38 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // symbole muszą mieć 3–6 wielkich liter: indeks zapisany w systemie o podstawie 26
+    static String symbol(int index) {
+        char[] chars = new char[5];
+        int value = index;
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = (char) ('A' + value % 26);
+            value /= 26;
+        }
+        return new String(chars);
+    }
+
+    static Asset asset(int index) {
+        String symbol = symbol(index);
+        double price = 10 + index % 500;
+        return switch (index % 3) {
+            case 0 -> new Share(symbol, "Share " + index, price);
+            case 1 -> new Currency(symbol, "Currency " + index, price, 0.5);
+            default -> new Commodity(symbol, "Commodity " + index, price, 0.01);
+        };
+    }
+
+    // osobny symbol dla każdego wątku benchmarku
+    static Share ownShare(int thread) {
+        return new Share("CBT" + symbol(thread).substring(2), "Thread " + thread, 10);
+    }
+}
@@ -0,0 +1,74 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.ConcurrentPortfolio;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// kupno i sprzedaż jednej sztuki: zwykły portfel, portfel współbieżny bez rywalizacji
+// oraz współbieżny z wątkami na osobnych symbolach albo na jednym wspólnym
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentPortfolioBenchmark {
+
+    private static final double CASH = 1e15;
+
+    @State(Scope.Thread)
+    public static class PlainState {
+        Portfolio portfolio = new Portfolio(CASH);
+        Share share = new Share("CBP", "Plain", 10);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedState {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(CASH);
+        Share common = new Share("CBC", "Common", 10);
+        private final AtomicInteger nextThread = new AtomicInteger();
+
+        Share own() {
+            return BenchmarkData.ownShare(nextThread.getAndIncrement());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Share own;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedState shared) {
+            own = shared.own();
+        }
+    }
+
+    @Benchmark
+    public double plainBuySell(PlainState state) {
+        state.portfolio.buyAsset(state.share, 1);
+        return state.portfolio.sellAssetFIFO("CBP", 1, 10).getTotalProfit();
+    }
+
+    @Benchmark
+    public double concurrentBuySell(ThreadState thread, SharedState shared) {
+        shared.portfolio.buyAsset(thread.own, 1);
+        return shared.portfolio.sellAssetFIFO(thread.own.getSymbol(), 1, 10).getTotalProfit();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double concurrentBuySellSeparateSymbols(ThreadState thread, SharedState shared) {
+        shared.portfolio.buyAsset(thread.own, 1);
+        return shared.portfolio.sellAssetFIFO(thread.own.getSymbol(), 1, 10).getTotalProfit();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double concurrentBuySellSameSymbol(SharedState shared) {
+        shared.portfolio.buyAsset(shared.common, 1);
+        return shared.portfolio.sellAssetFIFO("CBC", 1, 10).getTotalProfit();
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// sprzedaż 100 sztuk z dużej pozycji każdą metodą rozliczania kosztu; po każdej
+// sprzedaży dokupowane jest tyle samo nowymi partiami, więc pozycja nie maleje
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CostBasisBenchmark {
+
+    @Param({"10000", "1000000"})
+    int lots;
+
+    @Param({"FIFO", "LIFO", "HIFO", "AVERAGE"})
+    CostBasis method;
+
+    @Param({"OBJECTS", "COLUMNAR"})
+    LotStorage storage;
+
+    private Portfolio portfolio;
+    private AssetPosition position;
+    private LocalDate nextDate;
+    private int step;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = new Portfolio(0);
+        portfolio.setLotStorage(storage);
+        portfolio.putPositionForLoad(new Share("CBX", "Cost basis benchmark", 50));
+        position = portfolio.getPositionBySymbol("CBX");
+        nextDate = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < lots; i++) {
+            position.addLot(new PurchaseLot(nextDate, 2, 20 + (i * 7919L) % 1000 / 10.0));
+            nextDate = nextDate.plusDays(i % 3 == 0 ? 1 : 0);
+        }
+    }
+
+    @Benchmark
+    public SellResult sellAndRebuy() {
+        SellResult result = portfolio.sellAsset("CBX", 100, 60, method, false);
+        for (int i = 0; i < 50; i++) {
+            position.addLot(new PurchaseLot(nextDate, 2, 20 + (step++ * 7919L) % 1000 / 10.0));
+        }
+        nextDate = nextDate.plusDays(1);
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.logic.MarketData;
+import com.stockmarket.logic.MarketDataFeed;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// przepustowość strumienia notowań: parsowanie + MarketData + przeszacowanie pozycji;
+// wynik w ms na `ticks` notowań (500k notowań/s to 1000 ms na 500 000)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarketFeedBenchmark {
+
+    @Param({"500000"})
+    int ticks;
+
+    @Param({"1000"})
+    int symbols;
+
+    private byte[] feed;
+    private MarketData marketData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(ticks * 16);
+        for (int i = 0; i < ticks; i++) {
+            int index = i % symbols;
+            sb.append(BenchmarkData.symbol(index)).append('|')
+                    .append(10 + index % 500).append('.').append(i % 100).append('\n');
+        }
+        feed = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        marketData = new MarketData();
+        Portfolio portfolio = new Portfolio(Double.MAX_VALUE / 4, marketData);
+        for (int i = 0; i < symbols; i += 2) {
+            portfolio.buyAsset(BenchmarkData.asset(i), 1 + i % 50);
+        }
+    }
+
+    @Benchmark
+    public long consumeFeed() throws IOException {
+        return new MarketDataFeed(marketData).consume(Channels.newChannel(new ByteArrayInputStream(feed)));
+    }
+}
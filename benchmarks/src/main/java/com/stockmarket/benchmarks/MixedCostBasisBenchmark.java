@@ -0,0 +1,55 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// sprzedaże HIFO przeplatane sprzedażami FIFO i LIFO (na zmianę) i dokupowaniem: inne
+// metody zdejmują partie z obu końców, a dokupienie czasem przesuwa sloty przy
+// odzyskiwaniu miejsca - żadne z nich nie powinno wymuszać przebudowy kopca HIFO
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MixedCostBasisBenchmark {
+
+    @Param({"10000", "1000000"})
+    int lots;
+
+    @Param({"OBJECTS", "COLUMNAR"})
+    LotStorage storage;
+
+    private Portfolio portfolio;
+    private AssetPosition position;
+    private LocalDate nextDate;
+    private int step;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = new Portfolio(0);
+        portfolio.setLotStorage(storage);
+        portfolio.putPositionForLoad(new Share("CBM", "Mixed cost basis benchmark", 50));
+        position = portfolio.getPositionBySymbol("CBM");
+        nextDate = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < lots; i++) {
+            position.addLot(new PurchaseLot(nextDate, 2, 20 + (i * 7919L) % 1000 / 10.0));
+            nextDate = nextDate.plusDays(i % 3 == 0 ? 1 : 0);
+        }
+    }
+
+    @Benchmark
+    public SellResult hifoBetweenFifoAndLifo() {
+        SellResult result = portfolio.sellAsset("CBM", 50, 60, CostBasis.HIFO, false);
+        portfolio.sellAsset("CBM", 50, 60, step % 2 == 0 ? CostBasis.FIFO : CostBasis.LIFO, false);
+        for (int i = 0; i < 50; i++) {
+            position.addLot(new PurchaseLot(nextDate, 2, 20 + (step++ * 7919L) % 1000 / 10.0));
+        }
+        nextDate = nextDate.plusDays(1);
+        return result;
+    }
+}
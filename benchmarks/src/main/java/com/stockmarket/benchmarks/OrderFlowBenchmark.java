@@ -0,0 +1,240 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderFlowBenchmark {
+
+    private static final int FLOW_SIZE = 1 << 16;
+    private static final int SYMBOLS = 64;
+    private static final int BURST = 4096;
+
+    // realistyczny przepływ: ceny wokół środka rynku, część zleceń przecina spread
+    private Order[] orders;
+    private List<List<Order>> bursts;
+    private int[] symbolIds;
+    private OrderType[] sides;
+    private long[] priceTicks;
+    private int[] quantities;
+
+    private Portfolio portfolio;
+    private MatchingEngine engine;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void prepareFlow() {
+        Random random = new Random(11);
+        orders = new Order[FLOW_SIZE];
+        symbolIds = new int[FLOW_SIZE];
+        sides = new OrderType[FLOW_SIZE];
+        priceTicks = new long[FLOW_SIZE];
+        quantities = new int[FLOW_SIZE];
+
+        for (int i = 0; i < FLOW_SIZE; i++) {
+            String symbol = BenchmarkData.symbol(random.nextInt(SYMBOLS));
+            boolean buy = random.nextBoolean();
+            double offset = Math.abs(random.nextGaussian() * 0.2);
+            double price = buy ? 100.0005 - offset : 99.9995 + offset;
+            int quantity = 1 + random.nextInt(100);
+
+            orders[i] = new Order(symbol, buy ? OrderType.BUY : OrderType.SELL, quantity, price);
+            symbolIds[i] = SymbolRegistry.intern(symbol);
+            sides[i] = orders[i].getType();
+            priceTicks[i] = orders[i].getLimitPriceTicks();
+            quantities[i] = quantity;
+        }
+
+        bursts = new ArrayList<>();
+        for (int from = 0; from < FLOW_SIZE; from += BURST) {
+            bursts.add(Arrays.asList(orders).subList(from, from + BURST));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBooks() {
+        portfolio = new Portfolio(0);
+        engine = new MatchingEngine();
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Object placeOrder() {
+        Order order = orders[cursor++ & (FLOW_SIZE - 1)];
+        return portfolio.placeOrder(order);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public Object placeOrdersBurst() {
+        return portfolio.placeOrders(bursts.get(cursor++ % bursts.size()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void placeOrderBurstOneByOne(Blackhole blackhole) {
+        for (Order order : bursts.get(cursor++ % bursts.size())) {
+            blackhole.consume(portfolio.placeOrder(order));
+        }
+    }
+
+    // strategia kwotująca: wsady zleceń po obu stronach jednego symbolu, bez przecinania
+    // spreadu - każde zlecenie zostaje w księdze, często na nowym poziomie w głębi
+    @State(Scope.Thread)
+    public static class LadderState {
+        private List<List<Order>> bursts;
+        private Portfolio portfolio;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void prepareLadder() {
+            Random random = new Random(13);
+            String symbol = BenchmarkData.symbol(SYMBOLS);
+            Order[] ladder = new Order[FLOW_SIZE];
+            for (int i = 0; i < FLOW_SIZE; i++) {
+                boolean buy = random.nextBoolean();
+                double price = buy ? 99.99 - random.nextInt(20_000) * 0.0005 : 100.01 + random.nextInt(20_000) * 0.0005;
+                ladder[i] = new Order(symbol, buy ? OrderType.BUY : OrderType.SELL, 1 + random.nextInt(100), price);
+            }
+            bursts = new ArrayList<>();
+            for (int from = 0; from < FLOW_SIZE; from += BURST) {
+                bursts.add(Arrays.asList(ladder).subList(from, from + BURST));
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void resetBook() {
+            portfolio = new Portfolio(0);
+            cursor = 0;
+        }
+
+        List<Order> nextBurst() {
+            return bursts.get(cursor++ % bursts.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public Object placeLadderBurst(LadderState ladder) {
+        return ladder.portfolio.placeOrders(ladder.nextBurst());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void placeLadderBurstOneByOne(LadderState ladder, Blackhole blackhole) {
+        for (Order order : ladder.nextBurst()) {
+            blackhole.consume(ladder.portfolio.placeOrder(order));
+        }
+    }
+
+    // market making: okno żywych kwotowań, każde nowe kwotowanie anuluje najstarsze
+    // (albo co dziesiąte przesuwa je zmianą ceny) - anulowania przeważają nad transakcjami
+    @State(Scope.Thread)
+    public static class QuotingState {
+        private static final int LIVE_QUOTES = 1024;
+
+        private final long[] live = new long[LIVE_QUOTES];
+        private final long[] prices = new long[FLOW_SIZE];
+        private final OrderType[] sides = new OrderType[FLOW_SIZE];
+        private MatchingEngine engine;
+        private int symbolId;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void prepareQuotes() {
+            Random random = new Random(17);
+            symbolId = SymbolRegistry.intern(BenchmarkData.symbol(SYMBOLS + 1));
+            for (int i = 0; i < FLOW_SIZE; i++) {
+                sides[i] = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+                int depth = 1 + random.nextInt(200);
+                prices[i] = 1_000_000 + (sides[i] == OrderType.BUY ? -depth : depth);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void resetBook() {
+            engine = new MatchingEngine();
+            for (int i = 0; i < LIVE_QUOTES; i++) {
+                live[i] = engine.submit(symbolId, sides[i], prices[i], 100, null);
+            }
+            cursor = LIVE_QUOTES;
+        }
+    }
+
+    @Benchmark
+    public int quoteAndCancel(QuotingState quoting) {
+        int i = quoting.cursor++;
+        int flow = i & (FLOW_SIZE - 1);
+        int slot = i & (QuotingState.LIVE_QUOTES - 1);
+        int cancelled = quoting.engine.cancel(quoting.symbolId, quoting.live[slot]);
+        if ((i % 10) == 0) {
+            long sequence = quoting.live[(slot + 1) & (QuotingState.LIVE_QUOTES - 1)];
+            quoting.engine.amend(quoting.symbolId, sequence, quoting.prices[flow], 100, null);
+        }
+        quoting.live[slot] = quoting.engine.submit(
+                quoting.symbolId, quoting.sides[flow], quoting.prices[flow], 100, null);
+        return cancelled;
+    }
+
+    // głęboka księga: po jednym zleceniu na poziom; anulowanie zlecenia z losowego poziomu
+    // (poziom znika) i ponowne złożenie tej samej ceny - księga ma stale `levels` poziomów
+    @State(Scope.Thread)
+    public static class DeepBookState {
+        private static final int PICKS = 1 << 16;
+
+        @Param({"1000", "100000"})
+        int levels;
+
+        private final int[] picks = new int[PICKS];
+        private long[] live;
+        private MatchingEngine engine;
+        private int symbolId;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void preparePicks() {
+            Random random = new Random(19);
+            symbolId = SymbolRegistry.intern(BenchmarkData.symbol(SYMBOLS + 2));
+            for (int i = 0; i < PICKS; i++) {
+                picks[i] = random.nextInt(levels);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void resetBook() {
+            engine = new MatchingEngine();
+            live = new long[levels];
+            for (int level = 0; level < levels; level++) {
+                live[level] = engine.submit(symbolId, OrderType.BUY, 1_000_000 - level, 100, null);
+            }
+            cursor = 0;
+        }
+    }
+
+    @Benchmark
+    public long cancelDeepLevel(DeepBookState deep) {
+        int level = deep.picks[deep.cursor++ & (DeepBookState.PICKS - 1)];
+        deep.engine.cancel(deep.symbolId, deep.live[level]);
+        deep.live[level] = deep.engine.submit(deep.symbolId, OrderType.BUY, 1_000_000 - level, 100, null);
+        return deep.live[level];
+    }
+
+    @Benchmark
+    public void submitPrimitive(Blackhole blackhole) {
+        int i = cursor++ & (FLOW_SIZE - 1);
+        blackhole.consume(engine.submit(symbolIds[i], sides[i], priceTicks[i], quantities[i], null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.AssetPosition;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioFileReader;
+import com.stockmarket.logic.PortfolioFileWriter;
+import com.stockmarket.logic.PortfolioSnapshotReader;
+import com.stockmarket.logic.PortfolioSnapshotWriter;
+import com.stockmarket.logic.PurchaseLot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    private static final int LOTS_PER_ASSET = 100;
+
+    // przybliżona liczba linii pliku (HEADER + ASSET + LOT)
+    @Param({"1000", "100000", "1000000"})
+    int lines;
+
+    private Portfolio portfolio;
+    private Path directory;
+    private Path source;
+    private Path target;
+    private Path snapshot;
+    private Path snapshotTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        portfolio = new Portfolio(1_000_000);
+        int assets = Math.max(1, lines / (LOTS_PER_ASSET + 1));
+        LocalDate start = LocalDate.of(2015, 1, 1);
+
+        for (int a = 0; a < assets; a++) {
+            Asset asset = BenchmarkData.asset(a);
+            portfolio.putPositionForLoad(asset);
+            AssetPosition position = portfolio.getPositionBySymbol(asset.getSymbol());
+            for (int l = 0; l < LOTS_PER_ASSET; l++) {
+                position.addLot(new PurchaseLot(start.plusDays(l), 1 + l % 9, 10.25 + l % 17));
+            }
+        }
+
+        directory = Files.createTempDirectory("portfolio-bench");
+        source = directory.resolve("source.txt");
+        target = directory.resolve("target.txt");
+        new PortfolioFileWriter().save(portfolio, source);
+
+        snapshot = directory.resolve("source.snap");
+        snapshotTarget = directory.resolve("target.snap");
+        new PortfolioSnapshotWriter().save(portfolio, snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(snapshotTarget);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Portfolio load() throws IOException {
+        return new PortfolioFileReader().load(source);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        new PortfolioFileWriter().save(portfolio, target);
+        return target;
+    }
+
+    @Benchmark
+    public Portfolio loadSnapshot() throws IOException {
+        return new PortfolioSnapshotReader().load(snapshot);
+    }
+
+    @Benchmark
+    public Path saveSnapshot() throws IOException {
+        new PortfolioSnapshotWriter().save(portfolio, snapshotTarget);
+        return snapshotTarget;
+    }
+}
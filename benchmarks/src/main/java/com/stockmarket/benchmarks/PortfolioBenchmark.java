@@ -0,0 +1,88 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.AssetPosition;
+import com.stockmarket.logic.LotStorage;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PurchaseLot;
+import com.stockmarket.logic.SellResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioBenchmark {
+
+    @State(Scope.Thread)
+    public static class BuyState {
+        Portfolio portfolio;
+        Share share;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            portfolio = new Portfolio(Double.MAX_VALUE / 4);
+            share = new Share("BUYX", "Buy benchmark", 12.5);
+        }
+    }
+
+    @Benchmark
+    public Portfolio buyAsset(BuyState state) {
+        state.portfolio.buyAsset(state.share, 10);
+        return state.portfolio;
+    }
+
+    // sprzedaż całej pozycji rozłożonej na `lots` partii; pozycja odbudowywana przed każdym wywołaniem
+    @State(Scope.Thread)
+    public static class SellState {
+        @Param({"1", "100", "10000"})
+        int lots;
+
+        @Param({"OBJECTS", "COLUMNAR"})
+        LotStorage storage;
+
+        Portfolio portfolio;
+        PurchaseLot[] template;
+        int totalQuantity;
+
+        @Setup(Level.Trial)
+        public void prepareLots() {
+            template = new PurchaseLot[lots];
+            LocalDate start = LocalDate.of(2020, 1, 1);
+            totalQuantity = 0;
+            for (int i = 0; i < lots; i++) {
+                int quantity = 1 + i % 7;
+                template[i] = new PurchaseLot(start.plusDays(i), quantity, 50 + i % 13);
+                totalQuantity += quantity;
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void refill() {
+            portfolio = new Portfolio(0);
+            portfolio.setLotStorage(storage);
+            Share share = new Share("SELLX", "Sell benchmark", 50);
+            portfolio.putPositionForLoad(share);
+            AssetPosition position = portfolio.getPositionBySymbol("SELLX");
+            for (PurchaseLot lot : template) {
+                position.addLot(new PurchaseLot(lot.getPurchaseDate(), lot.getQuantity(), lot.getUnitPrice()));
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SellResult sellAssetFIFO(SellState state) {
+        return state.portfolio.sellAssetFIFO("SELLX", state.totalQuantity, 60);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SellResult sellAssetFIFOSummary(SellState state) {
+        return state.portfolio.sellAssetFIFO("SELLX", state.totalQuantity, 60, false);
+    }
+}
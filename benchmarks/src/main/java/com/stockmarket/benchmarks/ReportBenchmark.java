@@ -0,0 +1,73 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioReportGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"10000", "100000"})
+    int positions;
+
+    private Portfolio portfolio;
+    private final PortfolioReportGenerator generator = new PortfolioReportGenerator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new Portfolio(Double.MAX_VALUE / 4);
+        for (int i = 0; i < positions; i++) {
+            Asset asset = BenchmarkData.asset(i);
+            portfolio.buyAsset(asset, 1 + i % 50);
+        }
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return generator.generateReport(portfolio);
+    }
+
+    @Benchmark
+    public long writeReportToChannel() throws IOException {
+        DiscardingChannel channel = new DiscardingChannel();
+        generator.writeReport(portfolio, channel);
+        return channel.written;
+    }
+
+    @Benchmark
+    public String generateTopReport() {
+        return generator.generateTopReport(portfolio, 100);
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+        private long written;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            written += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.server.PortfolioServer;
+import com.stockmarket.server.RequestExecutors;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// generator obciążenia PortfolioServer na localhost: `connections` klientów w pętli
+// zamkniętej (każdy czeka na odpowiedź przed kolejnym żądaniem), każdy na własnym koncie.
+// Mieszanka: zakup, sprzedaż, zlecenie (kupno i sprzedaż na zmianę, więc się krzyżują
+// i księga nie rośnie), wycena konta, raport top-10. Po rozgrzewce mierzy przepustowość
+// i percentyle opóźnień.
+//   java -cp benchmarks/target/benchmarks.jar com.stockmarket.benchmarks.ServerLoadGenerator \
+//        [host:port|embedded] [connections] [seconds] [warmupSeconds]
+// Bez adresu uruchamia serwer w tym samym procesie (z sun.net.httpserver.nodelay jak
+// PortfolioServer.main).
+public class ServerLoadGenerator {
+
+    private static final String[] SYMBOLS = {"LDGA", "LDGB", "LDGC", "LDGD", "LDGE", "LDGF", "LDGG", "LDGH"};
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String base;
+
+    private ServerLoadGenerator(String base) {
+        this.base = base;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "embedded";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        if (target.equals("embedded") && System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        PortfolioServer embedded = target.equals("embedded") ? PortfolioServer.start(0) : null;
+        try {
+            String base = "http://" + (embedded != null ? "127.0.0.1:" + embedded.getPort() : target);
+            System.out.printf("cel %s, połączeń %d, %d s (+%d s rozgrzewki), wątki %s%n", base, connections,
+                    seconds, warmupSeconds, RequestExecutors.virtualThreadsAvailable() ? "wirtualne" : "platformowe");
+            new ServerLoadGenerator(base).run(connections, seconds, warmupSeconds);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private void run(int connections, int seconds, int warmupSeconds) throws Exception {
+        for (String symbol : SYMBOLS) {
+            send("POST", "/assets?type=SHARE&symbol=" + symbol + "&price=10");
+            send("POST", "/prices?symbol=" + symbol + "&price=10");
+        }
+        int[] accounts = new int[connections];
+        for (int c = 0; c < connections; c++) {
+            accounts[c] = Integer.parseInt(send("POST", "/accounts?cash=1000000000").body());
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long stopAt = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Future<Worker>> futures = new ArrayList<>();
+        ExecutorService executor = RequestExecutors.perTaskExecutor("load");
+        try {
+            for (int c = 0; c < connections; c++) {
+                Worker worker = new Worker(accounts[c], SYMBOLS[c % SYMBOLS.length]);
+                futures.add(executor.submit(() -> worker.run(measureFrom, stopAt)));
+            }
+            Worker total = new Worker(-1, null);
+            for (Future<Worker> future : futures) {
+                total.merge(future.get());
+            }
+            total.print(seconds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + pathAndQuery))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private final class Worker {
+        private final int account;
+        private final String symbol;
+        private long[] latencies = new long[1 << 14];
+        private int count = 0;
+        private int errors = 0;
+
+        Worker(int account, String symbol) {
+            this.account = account;
+            this.symbol = symbol;
+        }
+
+        Worker run(long measureFrom, long stopAt) throws IOException, InterruptedException {
+            String prefix = "?account=" + account + "&symbol=" + symbol;
+            for (long i = 0; ; i++) {
+                String method = "POST";
+                String path;
+                switch ((int) (i % 10)) {
+                    case 0, 1, 2 -> path = "/buy" + prefix + "&quantity=2";
+                    case 3, 4 -> path = "/sell" + prefix + "&quantity=1&price=11";
+                    case 5 -> path = "/orders" + prefix + "&side=" + ((i / 10) % 2 == 0 ? "BUY" : "SELL")
+                            + "&quantity=5&price=10";
+                    case 6, 7, 8 -> {
+                        method = "GET";
+                        path = "/value?account=" + account;
+                    }
+                    default -> {
+                        method = "GET";
+                        path = "/report?account=" + account + "&top=10";
+                    }
+                }
+
+                long sent = System.nanoTime();
+                if (sent >= stopAt) {
+                    return this;
+                }
+                int status = send(method, path).statusCode();
+                long received = System.nanoTime();
+                if (sent >= measureFrom) {
+                    record(received - sent, status);
+                }
+            }
+        }
+
+        private void record(long latency, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if (status != 200) {
+                errors++;
+            }
+        }
+
+        void merge(Worker other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+        }
+
+        void print(int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("żądań %d (błędów %d), %.0f żądań/s%n", count, errors, count / (double) seconds);
+            System.out.printf("opóźnienie [µs]: p50 %.0f, p99 %.0f, p99.9 %.0f, max %.0f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    count == 0 ? 0.0 : sorted[count - 1] / 1_000.0);
+        }
+
+        private double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(index, 0)] / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.OrderType;
+import com.stockmarket.logic.ShardedMatchingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// przepustowość sekwencera i wątków dopasowujących w funkcji liczby shardów;
+// jedna operacja = partia BATCH zleceń przetworzona do końca (awaitIdle)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedEngineBenchmark {
+
+    private static final int BATCH = 1 << 14;
+    private static final int SYMBOLS = 256;
+
+    @Param({"1", "2", "4"})
+    int shards;
+
+    private ShardedMatchingEngine engine;
+    private int[] symbolIds;
+    private OrderType[] sides;
+    private long[] priceTicks;
+    private int[] quantities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(3);
+        symbolIds = new int[BATCH];
+        sides = new OrderType[BATCH];
+        priceTicks = new long[BATCH];
+        quantities = new int[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            symbolIds[i] = SymbolRegistry.intern(BenchmarkData.symbol(random.nextInt(SYMBOLS)));
+            boolean buy = random.nextBoolean();
+            long offset = (long) Math.abs(random.nextGaussian() * 20);
+            sides[i] = buy ? OrderType.BUY : OrderType.SELL;
+            priceTicks[i] = buy ? 1_000_005 - offset : 999_995 + offset;
+            quantities[i] = 1 + random.nextInt(100);
+        }
+        engine = new ShardedMatchingEngine(shards, 1 << 16, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void submitBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            engine.submit(symbolIds[i], sides[i], priceTicks[i], quantities[i]);
+        }
+        engine.awaitIdle();
+    }
+}
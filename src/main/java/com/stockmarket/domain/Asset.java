@@ -3,6 +3,7 @@ package com.stockmarket.domain;
 public abstract class Asset {
 
     private final String symbol;
+    private final int symbolId;
     private final String name;
     private final double basePrice;
 
@@ -11,8 +12,8 @@ public abstract class Asset {
             throw new IllegalArgumentException("Symbol aktywa nie może być pusty.");
         }
 
-        String normalizedSymbol = symbol.trim().toUpperCase();
-        if (!normalizedSymbol.matches("[A-Z]{3,6}")) {
+        int id = SymbolRegistry.internAsset(symbol);
+        if (id < 0) {
             throw new IllegalArgumentException(
                     "Symbol aktywa musi składać się z 3–6 wielkich liter (A–Z)."
             );
@@ -25,7 +26,8 @@ public abstract class Asset {
             throw new IllegalArgumentException("Cena bazowa musi być większa od zera.");
         }
 
-        this.symbol = normalizedSymbol;
+        this.symbolId = id;
+        this.symbol = SymbolRegistry.symbolOf(id);
         this.name = name.trim();
         this.basePrice = basePrice;
     }
@@ -36,10 +38,23 @@ public abstract class Asset {
         }
     }
 
+    protected void validateMarketPrice(double marketPrice) {
+        if (!(marketPrice > 0)) {
+            throw new IllegalArgumentException("Cena rynkowa musi być większa od zera.");
+        }
+    }
+
     public String getSymbol() { return symbol; }
+    public int getSymbolId() { return symbolId; }
     public String getName() { return name; }
     public double getBasePrice() { return basePrice; }
 
-    public abstract double calculateRealValue(int quantity);
+    public double calculateRealValue(int quantity) {
+        return calculateRealValueAt(quantity, basePrice);
+    }
+
+    // wycena według bieżącej ceny rynkowej zamiast ceny bazowej
+    public abstract double calculateRealValueAt(int quantity, double marketPrice);
+
     public abstract double calculatePurchaseCost(int quantity);
 }
\ No newline at end of file
@@ -15,13 +15,18 @@ public class Commodity extends Asset {
     }
 
     public double calculateRealValue(int quantity, int daysStored) {
+        return calculateRealValueAt(quantity, getBasePrice(), daysStored);
+    }
+
+    public double calculateRealValueAt(int quantity, double marketPrice, int daysStored) {
         validateQuantity(quantity);
+        validateMarketPrice(marketPrice);
 
         if (daysStored < 0) {
             throw new IllegalArgumentException("Czas przechowywania nie może być ujemny.");
         }
 
-        double gross = getBasePrice() * quantity;
+        double gross = marketPrice * quantity;
         double storageLoss = storageCostPerUnitPerDay * quantity * daysStored;
 
         return Math.max(0.0, gross - storageLoss);
@@ -32,6 +37,11 @@ public class Commodity extends Asset {
         return calculateRealValue(quantity, 0);
     }
 
+    @Override
+    public double calculateRealValueAt(int quantity, double marketPrice) {
+        return calculateRealValueAt(quantity, marketPrice, 0);
+    }
+
     @Override
     public double calculatePurchaseCost(int quantity) {
         validateQuantity(quantity);
@@ -18,10 +18,11 @@ public class Currency extends Asset {
     }
 
     @Override
-    public double calculateRealValue(int quantity) {
+    public double calculateRealValueAt(int quantity, double marketPrice) {
         validateQuantity(quantity);
+        validateMarketPrice(marketPrice);
 
-        double bid = getBasePrice() - spread;
+        double bid = Math.max(0.0, marketPrice - spread);
         return bid * quantity;
     }
 
@@ -9,10 +9,11 @@ public class Share extends Asset {
     }
 
     @Override
-    public double calculateRealValue(int quantity) {
+    public double calculateRealValueAt(int quantity, double marketPrice) {
         validateQuantity(quantity);
+        validateMarketPrice(marketPrice);
 
-        double gross = getBasePrice() * quantity;
+        double gross = marketPrice * quantity;
         double net = gross - MANIPULATION_FEE;
 
         return Math.max(0.0, net);
@@ -0,0 +1,212 @@
+package com.stockmarket.domain;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// wspólny rejestr symboli: każdy symbol normalizowany i sprawdzany raz, dalej
+// wszędzie (pozycje portfela, MarketData, księgi zleceń) występuje jako zwarte id
+public final class SymbolRegistry {
+
+    // [A-Z]{1,12} mieści się w long jako liczba w systemie o podstawie 27
+    private static final int MAX_PACKED_LENGTH = 12;
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    private static volatile String[] symbols = new String[64];
+    private static int count = 0;
+
+    // tablica z adresowaniem otwartym packed -> id, czytana bez blokad
+    private static volatile PackedTable packedIds = new PackedTable(64);
+
+    private SymbolRegistry() {
+    }
+
+    public static int intern(String symbol) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol nie może być pusty.");
+        }
+
+        // szybka ścieżka: symbol już w postaci kanonicznej - bez trim()/toUpperCase()
+        long packed = pack(symbol);
+        if (packed >= 0) {
+            int id = packedIds.get(packed);
+            if (id >= 0) {
+                return id;
+            }
+        } else {
+            Integer id = IDS.get(symbol);
+            if (id != null) {
+                return id;
+            }
+        }
+
+        if (symbol.isBlank()) {
+            throw new IllegalArgumentException("Symbol nie może być pusty.");
+        }
+        String normalized = symbol.trim().toUpperCase();
+        long normalizedPacked = pack(normalized);
+        if (normalizedPacked >= 0) {
+            int id = packedIds.get(normalizedPacked);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        return register(normalized);
+    }
+
+    // symbol aktywa: 3–6 wielkich liter po normalizacji; -1 gdy niepoprawny
+    // (niepoprawny symbol nie jest rejestrowany)
+    public static int internAsset(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        String normalized = symbol;
+        long packed = pack(symbol);
+        if (packed < 0) {
+            normalized = symbol.trim().toUpperCase();
+            packed = pack(normalized);
+        }
+        if (packed < 0 || normalized.length() < 3 || normalized.length() > 6) {
+            return -1;
+        }
+
+        int id = packedIds.get(packed);
+        return id >= 0 ? id : register(normalized);
+    }
+
+    // jak intern(), ale nie rejestruje nowego symbolu - zwraca -1, gdy go nie ma
+    public static int find(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
+            return -1;
+        }
+        long packed = pack(symbol);
+        if (packed >= 0) {
+            return packedIds.get(packed);
+        }
+        Integer id = IDS.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        String normalized = symbol.trim().toUpperCase();
+        long normalizedPacked = pack(normalized);
+        if (normalizedPacked >= 0) {
+            return packedIds.get(normalizedPacked);
+        }
+        id = IDS.get(normalized);
+        return id == null ? -1 : id;
+    }
+
+    private static synchronized int register(String normalized) {
+        Integer id = IDS.get(normalized);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = count;
+        String[] table = symbols;
+        if (newId == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[newId] = normalized;
+        symbols = table;
+        count = newId + 1;
+
+        long packed = pack(normalized);
+        if (packed >= 0) {
+            packedIds = packedIds.with(packed, newId);
+        }
+        IDS.put(normalized, newId);
+        return newId;
+    }
+
+    public static String symbolOf(int id) {
+        String[] table = symbols;
+        if (id < 0 || id >= table.length || table[id] == null) {
+            throw new IllegalArgumentException("Nieznany identyfikator symbolu: " + id);
+        }
+        return table[id];
+    }
+
+    public static int size() {
+        return IDS.size();
+    }
+
+    // -1 dla pustych, dłuższych niż 12 znaków albo zawierających coś poza A–Z
+    static long pack(String symbol) {
+        int length = symbol.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            char c = symbol.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return -1;
+            }
+            packed = packed * 27 + (c - 'A' + 1);
+        }
+        return packed;
+    }
+
+    // zapis tylko pod blokadą register(); klucz zapisywany przed id (setRelease),
+    // więc czytelnik, który zobaczy id (getAcquire), widzi też jego klucz
+    private static final class PackedTable {
+        private final long[] keys;
+        private final AtomicIntegerArray ids;
+        private int size = 0;
+
+        PackedTable(int capacity) {
+            keys = new long[capacity];
+            ids = new AtomicIntegerArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                ids.set(i, -1);
+            }
+        }
+
+        int get(long packed) {
+            int mask = keys.length - 1;
+            int slot = hash(packed) & mask;
+            int id;
+            while ((id = ids.getAcquire(slot)) >= 0) {
+                if (keys[slot] == packed) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // zwraca tabelę, do której trafił wpis - nową, jeśli trzeba było powiększyć
+        PackedTable with(long packed, int id) {
+            PackedTable target = this;
+            if ((size + 1) * 2 > keys.length) {
+                target = new PackedTable(keys.length * 2);
+                for (int i = 0; i < keys.length; i++) {
+                    int existing = ids.get(i);
+                    if (existing >= 0) {
+                        target.insert(keys[i], existing);
+                    }
+                }
+            }
+            target.insert(packed, id);
+            return target;
+        }
+
+        private void insert(long packed, int id) {
+            int mask = keys.length - 1;
+            int slot = hash(packed) & mask;
+            while (ids.get(slot) >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = packed;
+            ids.setRelease(slot, id);
+            size++;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
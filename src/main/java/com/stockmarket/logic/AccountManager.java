@@ -0,0 +1,205 @@
+package com.stockmarket.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+// wiele kont (portfeli) na wspólnym MarketData i wspólnych księgach zleceń. Każde konto
+// ma własną gotówkę i pozycje; nową cenę menedżer przekazuje tylko kontom z pozycją
+// w danym symbolu - jeden słuchacz MarketData zamiast jednego na konto.
+// Konta otwierane pod blokadą, odczyt list kont i posiadaczy bez blokady.
+// Sam Portfolio nie jest bezpieczny wątkowo: wywołujący z wielu wątków biorą blokadę
+// konta z getAccountLock, i tak samo robi menedżer przy cenach i wycenie firmy.
+// Blokada konta to ReentrantLock, bo bywa trzymana długo (raport, wycena): wątek
+// wirtualny czekający na nią (JDK 21-23) zwalnia wątek nośny, a czekający na synchronized
+// by go przypiął. Krótkie sekcje rejestracji - openAccount, addHolder, a dalej
+// MatchingEngine.openBook i MarketData.addListener/addPages - zostają synchronized:
+// nie czekają na I/O ani inne blokady, więc monitor jest trzymany tylko chwilę.
+public class AccountManager {
+
+    // poniżej tylu kont suma w jednym wątku jest szybsza niż rozdzielanie zadań
+    private static final int PARALLEL_THRESHOLD = 4_096;
+    private static final int MIN_CHUNK_SIZE = 1_024;
+
+    private final MarketData marketData;
+
+    private final MatchingEngine matchingEngine = new MatchingEngine();
+
+    private volatile Portfolio[] accounts = new Portfolio[16];
+    private volatile ReentrantLock[] locks = new ReentrantLock[16];
+    private volatile int accountCount = 0;
+
+    // posiadacze pozycji indeksowani id symbolu z SymbolRegistry
+    private volatile Holders[] holders = new Holders[16];
+
+    public AccountManager() {
+        this(new MarketData());
+    }
+
+    public AccountManager(MarketData marketData) {
+        if (marketData == null) {
+            throw new IllegalArgumentException("MarketData nie może być null.");
+        }
+        this.marketData = marketData;
+        marketData.addListener(this::onMarketPrice);
+    }
+
+    // identyfikatory kont są kolejnymi liczbami od 0
+    public synchronized int openAccount(double initialCash) {
+        int accountId = accountCount;
+        Portfolio account = new Portfolio(initialCash, marketData, matchingEngine,
+                symbolId -> addHolder(symbolId, accountId));
+        if (accountId == accounts.length) {
+            accounts = Arrays.copyOf(accounts, accountId * 2);
+            locks = Arrays.copyOf(locks, accountId * 2);
+        }
+        accounts[accountId] = account;
+        locks[accountId] = new ReentrantLock();
+        accountCount = accountId + 1;
+        return accountId;
+    }
+
+    public Portfolio getAccount(int accountId) {
+        checkAccount(accountId);
+        return accounts[accountId];
+    }
+
+    // blokada, pod którą wolno używać konta z wielu wątków
+    public ReentrantLock getAccountLock(int accountId) {
+        checkAccount(accountId);
+        return locks[accountId];
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    public MarketData getMarketData() {
+        return marketData;
+    }
+
+    public MatchingEngine getMatchingEngine() {
+        return matchingEngine;
+    }
+
+    public double calculateTotalValue() {
+        return calculateTotalValue(ForkJoinPool.commonPool());
+    }
+
+    // wartość całej firmy: suma wartości kont (każda w O(1) dzięki wycenie przyrostowej),
+    // przy wielu kontach liczona kawałkami w puli; sumowanie z kompensacją
+    public double calculateTotalValue(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pula wątków nie może być null.");
+        }
+        int count = accountCount;
+        Portfolio[] snapshot = accounts;
+        ReentrantLock[] lockSnapshot = locks;
+        if (count < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return sum(snapshot, lockSnapshot, 0, count);
+        }
+
+        int chunk = Math.max(MIN_CHUNK_SIZE, count / (pool.getParallelism() * 4));
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int from = 0; from < count; from += chunk) {
+            int start = from;
+            int end = Math.min(count, from + chunk);
+            tasks.add(() -> sum(snapshot, lockSnapshot, start, end));
+        }
+        PortfolioValuation total = new PortfolioValuation();
+        for (Future<Double> future : pool.invokeAll(tasks)) {
+            total.add(await(future));
+        }
+        return total.total();
+    }
+
+    private static double sum(Portfolio[] accounts, ReentrantLock[] locks, int from, int to) {
+        PortfolioValuation total = new PortfolioValuation();
+        for (int i = from; i < to; i++) {
+            ReentrantLock lock = locks[i];
+            lock.lock();
+            try {
+                total.add(accounts[i].calculateTotalValue());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return total.total();
+    }
+
+    private void checkAccount(int accountId) {
+        if (accountId < 0 || accountId >= accountCount) {
+            throw new IllegalArgumentException("Nieznane konto: " + accountId);
+        }
+    }
+
+    private synchronized void addHolder(int symbolId, int accountId) {
+        Holders[] table = holders;
+        if (symbolId >= table.length) {
+            table = Arrays.copyOf(table, Math.max(symbolId + 1, table.length * 2));
+            holders = table;
+        }
+        Holders entry = table[symbolId];
+        if (entry == null) {
+            entry = new Holders();
+            table[symbolId] = entry;
+        }
+        entry.add(accountId);
+    }
+
+    private void onMarketPrice(int symbolId, double price) {
+        Holders[] table = holders;
+        Holders entry = symbolId < table.length ? table[symbolId] : null;
+        if (entry == null) {
+            return;
+        }
+        int size = entry.size;
+        int[] ids = entry.accountIds;
+        // posiadacz dopisywany po opublikowaniu konta - te tablice już go zawierają
+        Portfolio[] accountTable = accounts;
+        ReentrantLock[] lockTable = locks;
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            lockTable[id].lock();
+            try {
+                accountTable[id].onMarketPrice(symbolId, price);
+            } finally {
+                lockTable[id].unlock();
+            }
+        }
+    }
+
+    private static Double await(Future<Double> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano wycenę kont.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // dopisywanie pod blokadą menedżera; czytelnik najpierw czyta size, potem tablicę -
+    // ewentualna nowsza tablica jest kopią ze wszystkimi wcześniejszymi wpisami
+    private static final class Holders {
+        private volatile int[] accountIds = new int[4];
+        private volatile int size = 0;
+
+        void add(int accountId) {
+            if (size == accountIds.length) {
+                accountIds = Arrays.copyOf(accountIds, size * 2);
+            }
+            accountIds[size] = accountId;
+            size++;
+        }
+    }
+}
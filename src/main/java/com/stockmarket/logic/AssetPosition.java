@@ -2,35 +2,58 @@ package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Collection;
 
 public class AssetPosition {
 
     private final Asset asset;
 
-    private final PriorityQueue<PurchaseLot> lots =
-            new PriorityQueue<>(Comparator.comparing(PurchaseLot::getPurchaseDate));
+    private final LotStorage storage;
+    private final LotStore lots;
 
     private int totalQuantity = 0;
 
+    // wartość pozycji liczona raz przy każdej zmianie ilości i zgłaszana do portfela
+    private final PortfolioValuation valuation;
+    private double realValue = 0.0;
+    private double markPrice = Double.NaN;
+
     public AssetPosition(Asset asset) {
+        this(asset, LotStorage.OBJECTS);
+    }
+
+    public AssetPosition(Asset asset, LotStorage storage) {
+        this(asset, storage, null);
+    }
+
+    AssetPosition(Asset asset, LotStorage storage, PortfolioValuation valuation) {
         if (asset == null) {
             throw new IllegalArgumentException("Asset nie może być null.");
         }
+        if (storage == null) {
+            throw new IllegalArgumentException("Sposób przechowywania partii nie może być null.");
+        }
         this.asset = asset;
+        this.storage = storage;
+        this.lots = LotStore.create(storage);
+        this.valuation = valuation;
     }
 
     public Asset getAsset() {
         return asset;
     }
 
+    public LotStorage getLotStorage() {
+        return storage;
+    }
+
     public void addLot(PurchaseLot lot) {
         if (lot == null) {
             throw new IllegalArgumentException("PurchaseLot nie może być null.");
         }
-        lots.add(lot);
+        lots.append(lot);
         totalQuantity += lot.getQuantity();
+        revalue();
     }
 
     public int getTotalQuantity() {
@@ -38,11 +61,22 @@ public class AssetPosition {
     }
 
     public PurchaseLot peekOldestLot() {
-        return lots.peek();
+        return lots.peekFirst();
     }
 
     public PurchaseLot pollOldestLot() {
-        return lots.poll();
+        return lots.pollFirst();
+    }
+
+    SellResult sell(int quantity, double sellPrice, CostBasis costBasis, boolean detailed) {
+        if (quantity <= 0 || quantity > totalQuantity) {
+            throw new IllegalArgumentException("Niepoprawna ilość sprzedaży.");
+        }
+        SellResult result = new SellResult(detailed);
+        costBasis.consume(lots, quantity, sellPrice, result);
+        totalQuantity -= quantity;
+        revalue();
+        return result;
     }
 
     public void decreaseTotalQuantity(int amount) {
@@ -53,9 +87,45 @@ public class AssetPosition {
             throw new IllegalArgumentException("Nie można zmniejszyć poniżej zera.");
         }
         totalQuantity -= amount;
+        revalue();
+    }
+
+    public double getRealValue() {
+        return realValue;
+    }
+
+    // ostatnia cena rynkowa albo cena bazowa, dopóki żadna nie dotarła
+    public double getMarkPrice() {
+        return Double.isNaN(markPrice) ? asset.getBasePrice() : markPrice;
+    }
+
+    void markToMarket(double price) {
+        markPrice = price;
+        revalue();
+    }
+
+    double computeRealValue() {
+        if (totalQuantity <= 0) {
+            return 0.0;
+        }
+        return Double.isNaN(markPrice)
+                ? asset.calculateRealValue(totalQuantity)
+                : asset.calculateRealValueAt(totalQuantity, markPrice);
+    }
+
+    void revalue() {
+        double value = computeRealValue();
+        if (valuation != null && value != realValue) {
+            valuation.replace(realValue, value);
+        }
+        realValue = value;
     }
 
-    public PriorityQueue<PurchaseLot> getLots() {
-        return new PriorityQueue<>(lots);
+    // widok tylko do odczytu w kolejności FIFO (od najstarszej partii), bez kopiowania
+    // i bez partii wyzerowanych sprzedażą; przy COLUMNAR elementy to widoki ważne
+    // do następnej zmiany partii
+    public Collection<PurchaseLot> getLots() {
+        lots.compact();
+        return lots;
     }
 }
\ No newline at end of file
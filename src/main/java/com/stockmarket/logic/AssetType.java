@@ -1,7 +1,19 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+
 public enum AssetType {
     SHARE,
     COMMODITY,
-    CURRENCY
-}
\ No newline at end of file
+    CURRENCY;
+
+    public static AssetType of(Asset asset) {
+        if (asset instanceof Share) return SHARE;
+        if (asset instanceof Currency) return CURRENCY;
+        if (asset instanceof Commodity) return COMMODITY;
+        throw new IllegalStateException("Nieznany typ aktywa: " + asset.getClass().getName());
+    }
+}
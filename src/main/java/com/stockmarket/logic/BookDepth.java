@@ -0,0 +1,65 @@
+package com.stockmarket.logic;
+
+// migawka najlepszych poziomów księgi; indeks 0 to najlepsza cena strony
+public class BookDepth {
+
+    private final String symbol;
+
+    final long[] bidPrices;
+    final long[] bidQuantities;
+    final long[] askPrices;
+    final long[] askQuantities;
+    int bidLevels;
+    int askLevels;
+
+    BookDepth(String symbol, int maxLevels) {
+        this.symbol = symbol;
+        bidPrices = new long[maxLevels];
+        bidQuantities = new long[maxLevels];
+        askPrices = new long[maxLevels];
+        askQuantities = new long[maxLevels];
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getBidLevels() {
+        return bidLevels;
+    }
+
+    public int getAskLevels() {
+        return askLevels;
+    }
+
+    public long getBidPriceTicks(int level) {
+        return bidPrices[checkLevel(level, bidLevels)];
+    }
+
+    public double getBidPrice(int level) {
+        return PriceTicks.toPrice(getBidPriceTicks(level));
+    }
+
+    public long getBidQuantity(int level) {
+        return bidQuantities[checkLevel(level, bidLevels)];
+    }
+
+    public long getAskPriceTicks(int level) {
+        return askPrices[checkLevel(level, askLevels)];
+    }
+
+    public double getAskPrice(int level) {
+        return PriceTicks.toPrice(getAskPriceTicks(level));
+    }
+
+    public long getAskQuantity(int level) {
+        return askQuantities[checkLevel(level, askLevels)];
+    }
+
+    private static int checkLevel(int level, int levels) {
+        if (level < 0 || level >= levels) {
+            throw new IndexOutOfBoundsException(level);
+        }
+        return level;
+    }
+}
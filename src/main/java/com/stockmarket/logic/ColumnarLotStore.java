@@ -0,0 +1,259 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDate;
+
+// partie w trzech równoległych kolumnach: dzień epoki (int), ilość (int) i cena
+// w stałym przecinku SnapshotFormat (long) - 16 bajtów na partię zamiast ~60 dla
+// PurchaseLot z LocalDate. Ceny, które nie mieszczą się w stałym przecinku,
+// przełączają całą kolumnę na surowe bity double. Kolejność i złożoność jak
+// w ObjectLotStore.
+final class ColumnarLotStore extends LotStore {
+
+    private int[] days = new int[16];
+    private int[] quantities = new int[16];
+    private long[] prices = new long[16];
+    private boolean fixedPrices = true;
+    private int head = 0;
+    private int tail = 0;
+
+    @Override
+    void append(PurchaseLot lot) {
+        long epochDay = lot.getPurchaseDate().toEpochDay();
+        if (epochDay != (int) epochDay) {
+            throw new IllegalArgumentException("Data zakupu poza zakresem: " + lot.getPurchaseDate());
+        }
+        append((int) epochDay, lot.getQuantity(), lot.getUnitPrice());
+    }
+
+    void append(int epochDay, int quantity, double unitPrice) {
+        if (fixedPrices && !SnapshotFormat.fitsFixed(unitPrice)) {
+            switchToRawPrices();
+        }
+        if (tail == days.length) {
+            makeRoom();
+        }
+
+        int index = tail;
+        boolean slotsMoved = false;
+        if (tail != head && epochDay < days[tail - 1]) {
+            slotsMoved = true;
+            index = insertionPoint(epochDay);
+            System.arraycopy(days, index, days, index + 1, tail - index);
+            System.arraycopy(quantities, index, quantities, index + 1, tail - index);
+            System.arraycopy(prices, index, prices, index + 1, tail - index);
+        }
+        days[index] = epochDay;
+        quantities[index] = quantity;
+        prices[index] = encode(unitPrice);
+        tail++;
+        track(quantity, unitPrice);
+        afterAppend(index, slotsMoved);
+    }
+
+    @Override
+    PurchaseLot peekFirst() {
+        return head == tail ? null : new LotView(head);
+    }
+
+    // zdjęta partia zwracana jako samodzielna kopia - jej slot może zostać nadpisany
+    @Override
+    PurchaseLot pollFirst() {
+        if (head == tail) {
+            return null;
+        }
+        beforeDrop(head, head + 1);
+        PurchaseLot lot = new PurchaseLot(
+                LocalDate.ofEpochDay(days[head]), quantities[head], decode(prices[head]), true);
+        track(-quantities[head], lot.getUnitPrice());
+        head++;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+        return lot;
+    }
+
+    @Override
+    int headSlot() {
+        return head;
+    }
+
+    @Override
+    int tailSlot() {
+        return tail;
+    }
+
+    @Override
+    int quantityAt(int slot) {
+        return quantities[slot];
+    }
+
+    @Override
+    double unitPriceAt(int slot) {
+        return decode(prices[slot]);
+    }
+
+    @Override
+    long epochDayAt(int slot) {
+        return days[slot];
+    }
+
+    @Override
+    void decreaseAt(int slot, int amount) {
+        quantities[slot] -= amount;
+        track(-amount, decode(prices[slot]));
+    }
+
+    @Override
+    void dropHead(int newHead) {
+        if (newHead == head) {
+            return;
+        }
+        beforeDrop(head, newHead);
+        head = newHead;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+    }
+
+    @Override
+    void dropTail(int newTail) {
+        if (newTail == tail) {
+            return;
+        }
+        beforeDrop(newTail, tail);
+        tail = newTail;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+    }
+
+    @Override
+    void removeEmpty() {
+        int write = head;
+        for (int read = head; read < tail; read++) {
+            if (quantities[read] > 0) {
+                days[write] = days[read];
+                quantities[write] = quantities[read];
+                prices[write] = prices[read];
+                write++;
+            }
+        }
+        dropTail(write);
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return tail - head;
+    }
+
+    @Override
+    PurchaseLot get(int index) {
+        if (index < 0 || index >= tail - head) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new LotView(head + index);
+    }
+
+    private long encode(double price) {
+        return fixedPrices ? Math.round(price * SnapshotFormat.PRICE_SCALE) : Double.doubleToRawLongBits(price);
+    }
+
+    private double decode(long encoded) {
+        return fixedPrices ? encoded / SnapshotFormat.PRICE_SCALE : Double.longBitsToDouble(encoded);
+    }
+
+    private void switchToRawPrices() {
+        for (int i = head; i < tail; i++) {
+            prices[i] = Double.doubleToRawLongBits(prices[i] / SnapshotFormat.PRICE_SCALE);
+        }
+        fixedPrices = false;
+    }
+
+    private int insertionPoint(int epochDay) {
+        int low = head;
+        int high = tail;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] > epochDay) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private void makeRoom() {
+        int size = tail - head;
+        if (head > 0 && size <= days.length / 2) {
+            System.arraycopy(days, head, days, 0, size);
+            System.arraycopy(quantities, head, quantities, 0, size);
+            System.arraycopy(prices, head, prices, 0, size);
+        } else {
+            int capacity = days.length * 2;
+            int[] newDays = new int[capacity];
+            int[] newQuantities = new int[capacity];
+            long[] newPrices = new long[capacity];
+            System.arraycopy(days, head, newDays, 0, size);
+            System.arraycopy(quantities, head, newQuantities, 0, size);
+            System.arraycopy(prices, head, newPrices, 0, size);
+            days = newDays;
+            quantities = newQuantities;
+            prices = newPrices;
+        }
+        afterShift(head, size);
+        head = 0;
+        tail = size;
+    }
+
+    // widok na jeden slot, ważny do następnej zmiany strukturalnej magazynu;
+    // decreaseQuantity zapisuje bezpośrednio do kolumny ilości
+    private final class LotView extends PurchaseLot {
+        private final int slot;
+        private final int expectedModCount = modCount;
+
+        LotView(int slot) {
+            super(null, 0, 0.0, true);
+            this.slot = slot;
+        }
+
+        @Override
+        public LocalDate getPurchaseDate() {
+            check();
+            return LocalDate.ofEpochDay(days[slot]);
+        }
+
+        @Override
+        public int getQuantity() {
+            check();
+            return quantities[slot];
+        }
+
+        @Override
+        public double getUnitPrice() {
+            check();
+            return decode(prices[slot]);
+        }
+
+        @Override
+        public void decreaseQuantity(int amount) {
+            check();
+            if (amount <= 0) throw new IllegalArgumentException("Zmniejszenie musi być dodatnie.");
+            if (amount > quantities[slot]) throw new IllegalArgumentException("Nie można zmniejszyć poniżej zera.");
+            decreaseAt(slot, amount);
+        }
+
+        private void check() {
+            if (modCount != expectedModCount) {
+                throw new IllegalStateException("Widok partii jest nieaktualny po zmianie pozycji.");
+            }
+        }
+    }
+}
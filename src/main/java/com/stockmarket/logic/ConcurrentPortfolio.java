@@ -0,0 +1,241 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// portfel do jednoczesnego użycia z wielu wątków. Gotówka to bity double w AtomicLong,
+// rezerwowana przez CAS przed zmianą pozycji; każda pozycja ma własną blokadę (sam obiekt
+// AssetPosition), więc operacje na różnych symbolach nie czekają na siebie.
+// Pozycje indeksowane id symbolu: odczyt bez blokady, blokada portfela tylko przy
+// otwieraniu nowej pozycji. Wycena sumuje pozycje - bez wspólnej sumy przyrostowej,
+// którą musiałyby aktualizować wszystkie wątki.
+public class ConcurrentPortfolio implements AutoCloseable {
+
+    private final AtomicLong cashBits;
+
+    private volatile AtomicReferenceArray<AssetPosition> positions = new AtomicReferenceArray<>(16);
+
+    // pozycje w kolejności otwarcia; dopisywane pod blokadą, size zapisywany po elemencie
+    private volatile AssetPosition[] opened = new AssetPosition[16];
+    private volatile int openedCount = 0;
+
+    private final MarketData marketData;
+
+    // trzymany, żeby close() mógł go wyrejestrować z MarketData
+    private final MarketData.PriceListener priceListener = this::onMarketPrice;
+
+    public ConcurrentPortfolio(double initialCash, MarketData marketData) {
+        if (initialCash < 0) {
+            throw new IllegalArgumentException("Początkowa gotówka nie może być ujemna.");
+        }
+        if (marketData == null) {
+            throw new IllegalArgumentException("MarketData nie może być null.");
+        }
+        this.cashBits = new AtomicLong(Double.doubleToRawLongBits(initialCash));
+        this.marketData = marketData;
+        marketData.addListener(priceListener);
+    }
+
+    public ConcurrentPortfolio(double initialCash) {
+        this(initialCash, new MarketData());
+    }
+
+    public double getCash() {
+        return Double.longBitsToDouble(cashBits.get());
+    }
+
+    public void buyAsset(Asset asset, int quantity) {
+        buyAsset(asset, quantity, LocalDate.now());
+    }
+
+    public void buyAsset(Asset asset, int quantity, LocalDate purchaseDate) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Aktywo nie może być null.");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia.");
+        }
+        if (purchaseDate == null) {
+            throw new IllegalArgumentException("Data zakupu nie może być null.");
+        }
+
+        double cost = asset.calculatePurchaseCost(quantity);
+        reserveCash(cost);
+
+        AssetPosition pos = positionFor(asset);
+        synchronized (pos) {
+            pos.addLot(new PurchaseLot(purchaseDate, quantity, asset.getBasePrice()));
+        }
+    }
+
+    public SellResult sellAssetFIFO(String symbol, int quantity, double sellPrice) {
+        return sellAsset(symbol, quantity, sellPrice, CostBasis.FIFO, true);
+    }
+
+    public SellResult sellAsset(String symbol, int quantity, double sellPrice, CostBasis costBasis) {
+        return sellAsset(symbol, quantity, sellPrice, costBasis, true);
+    }
+
+    // sprawdzenie ilości i zdjęcie partii pod blokadą pozycji, więc dwie sprzedaże
+    // tego samego symbolu nie sprzedadzą razem więcej, niż było
+    public SellResult sellAsset(String symbol, int quantity, double sellPrice, CostBasis costBasis,
+                                boolean withClosures) {
+        if (costBasis == null) {
+            throw new IllegalArgumentException("Metoda rozliczania kosztu nie może być null.");
+        }
+        if (quantity <= 0 || sellPrice <= 0) {
+            throw new IllegalArgumentException("Niepoprawne dane sprzedaży.");
+        }
+
+        AssetPosition pos = position(symbolId(symbol));
+        if (pos == null) {
+            throw new InsufficientHoldingsException("Brak wystarczającej ilości aktywa.");
+        }
+        SellResult result;
+        synchronized (pos) {
+            if (pos.getTotalQuantity() < quantity) {
+                throw new InsufficientHoldingsException("Brak wystarczającej ilości aktywa.");
+            }
+            result = pos.sell(quantity, sellPrice, costBasis, withClosures);
+        }
+        addCash(quantity * sellPrice);
+        return result;
+    }
+
+    public int getQuantity(String symbol) {
+        AssetPosition pos = position(symbolId(symbol));
+        if (pos == null) {
+            return 0;
+        }
+        synchronized (pos) {
+            return pos.getTotalQuantity();
+        }
+    }
+
+    public int getPositionCount() {
+        return openedCount;
+    }
+
+    public MarketData getMarketData() {
+        return marketData;
+    }
+
+    // każda pozycja odczytana pod swoją blokadą; przy równoległych zmianach wynik
+    // odpowiada stanowi pozycji z chwili ich odczytu, a nie jednej chwili całego portfela
+    public double calculateTotalAssetsRealValue() {
+        int count = openedCount;
+        AssetPosition[] list = opened;
+        PortfolioValuation total = new PortfolioValuation();
+        for (int i = 0; i < count; i++) {
+            AssetPosition pos = list[i];
+            synchronized (pos) {
+                total.add(pos.getRealValue());
+            }
+        }
+        return total.total();
+    }
+
+    public double calculateTotalValue() {
+        return getCash() + calculateTotalAssetsRealValue();
+    }
+
+    private void reserveCash(double cost) {
+        while (true) {
+            long bits = cashBits.get();
+            double cash = Double.longBitsToDouble(bits);
+            if (cost > cash) {
+                throw new IllegalStateException("Brak środków na zakup: potrzebne " + cost);
+            }
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(cash - cost))) {
+                return;
+            }
+        }
+    }
+
+    private void addCash(double amount) {
+        while (true) {
+            long bits = cashBits.get();
+            double cash = Double.longBitsToDouble(bits);
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(cash + amount))) {
+                return;
+            }
+        }
+    }
+
+    private AssetPosition position(int symbolId) {
+        if (symbolId < 0) {
+            return null;
+        }
+        AtomicReferenceArray<AssetPosition> table = positions;
+        return symbolId < table.length() ? table.get(symbolId) : null;
+    }
+
+    private AssetPosition positionFor(Asset asset) {
+        AssetPosition pos = position(asset.getSymbolId());
+        return pos != null ? pos : openPosition(asset);
+    }
+
+    private synchronized AssetPosition openPosition(Asset asset) {
+        int symbolId = asset.getSymbolId();
+        AtomicReferenceArray<AssetPosition> table = positions;
+        if (symbolId >= table.length()) {
+            AtomicReferenceArray<AssetPosition> grown =
+                    new AtomicReferenceArray<>(Math.max(table.length() * 2, symbolId + 1));
+            for (int i = 0; i < table.length(); i++) {
+                grown.set(i, table.get(i));
+            }
+            table = grown;
+            positions = table;
+        }
+        AssetPosition pos = table.get(symbolId);
+        if (pos != null) {
+            return pos;
+        }
+
+        pos = new AssetPosition(asset, LotStorage.OBJECTS, null);
+        int count = openedCount;
+        if (count == opened.length) {
+            opened = Arrays.copyOf(opened, count * 2);
+        }
+        opened[count] = pos;
+        openedCount = count + 1;
+        table.set(symbolId, pos);
+
+        // cena czytana dopiero po publikacji i pod blokadą pozycji: nowsza cena albo już
+        // tu widoczna, albo jej słuchacz znajdzie pozycję i poczeka na blokadę
+        synchronized (pos) {
+            if (marketData.hasPrice(symbolId)) {
+                pos.markToMarket(marketData.getPrice(symbolId));
+            }
+        }
+        return pos;
+    }
+
+    // odłącza portfel od MarketData: kolejne ceny nie zmieniają już jego wyceny
+    @Override
+    public void close() {
+        marketData.removeListener(priceListener);
+    }
+
+    // cena z wątku zasilającego pod blokadą pozycji - nie miesza się z kupnem ani sprzedażą
+    private void onMarketPrice(int symbolId, double price) {
+        AssetPosition pos = position(symbolId);
+        if (pos != null) {
+            synchronized (pos) {
+                pos.markToMarket(price);
+            }
+        }
+    }
+
+    private int symbolId(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("Symbol nie może być pusty.");
+        }
+        return SymbolRegistry.find(symbol);
+    }
+}
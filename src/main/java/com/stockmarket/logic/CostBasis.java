@@ -0,0 +1,35 @@
+package com.stockmarket.logic;
+
+// metoda rozliczania kosztu przy sprzedaży - które partie są zamykane i po jakim koszcie
+public enum CostBasis {
+    // najstarsze partie najpierw
+    FIFO {
+        @Override
+        void consume(LotStore lots, int quantity, double sellPrice, SellResult result) {
+            lots.consumeFifo(quantity, sellPrice, result);
+        }
+    },
+    // najnowsze partie najpierw
+    LIFO {
+        @Override
+        void consume(LotStore lots, int quantity, double sellPrice, SellResult result) {
+            lots.consumeLifo(quantity, sellPrice, result);
+        }
+    },
+    // najdroższe partie najpierw (najmniejszy zysk); indeks cen zamiast przeszukiwania partii
+    HIFO {
+        @Override
+        void consume(LotStore lots, int quantity, double sellPrice, SellResult result) {
+            lots.consumeHifo(quantity, sellPrice, result);
+        }
+    },
+    // koszt średni ważony wszystkich partii; ilości zdejmowane w kolejności FIFO
+    AVERAGE {
+        @Override
+        void consume(LotStore lots, int quantity, double sellPrice, SellResult result) {
+            lots.consumeAverage(quantity, sellPrice, result);
+        }
+    };
+
+    abstract void consume(LotStore lots, int quantity, double sellPrice, SellResult result);
+}
@@ -0,0 +1,74 @@
+package com.stockmarket.logic;
+
+import java.nio.ByteBuffer;
+
+// szybkie parsowanie liczb dziesiętnych wprost z bajtów, wspólne dla PipeRecordScanner
+// (okno zmapowanego pliku) i MarketDataFeed (bufor strumienia). Dokładne dla typowych
+// zapisów (opcjonalny znak, mantysa < 2^53, najwyżej 18 cyfr): dzielenie dwóch dokładnie
+// reprezentowalnych liczb daje poprawnie zaokrąglony wynik. Wszystko inne (wykładnik,
+// NaN, długie mantysy, puste pole) zwraca NOT_PARSED - wołający parsuje wtedy tekst
+// przez Double.parseDouble i sam decyduje o obsłudze błędu
+final class DecimalParser {
+
+    // szybka ścieżka nigdy nie zwraca NaN
+    static final double NOT_PARSED = Double.NaN;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private static final int MAX_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private DecimalParser() {
+    }
+
+    // bajty [start, end) czytane bezwzględnie - pozycja i limit bufora bez zmian;
+    // białe znaki z obu końców pomijane jak w Double.parseDouble
+    static double parse(ByteBuffer bytes, int start, int end) {
+        while (start < end && isWhitespace(bytes.get(start))) start++;
+        while (end > start && isWhitespace(bytes.get(end - 1))) end--;
+        if (start == end) {
+            return NOT_PARSED;
+        }
+
+        int i = start;
+        boolean negative = false;
+        byte first = bytes.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits == MAX_DIGITS) {
+                return NOT_PARSED;
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+
+        if (digits == 0 || mantissa >= MAX_EXACT_MANTISSA) {
+            return NOT_PARSED;
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    // znaki sterujące ASCII i spacja; bajty UTF-8 spoza ASCII są ujemne
+    private static boolean isWhitespace(byte b) {
+        return b <= ' ' && b >= 0;
+    }
+}
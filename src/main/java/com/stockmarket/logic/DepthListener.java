@@ -0,0 +1,8 @@
+package com.stockmarket.logic;
+
+@FunctionalInterface
+public interface DepthListener {
+
+    // totalQuantity == 0: poziom zniknął z księgi
+    void onLevelChange(int symbolId, OrderType side, long priceTicks, long totalQuantity);
+}
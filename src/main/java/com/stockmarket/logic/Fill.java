@@ -0,0 +1,38 @@
+package com.stockmarket.logic;
+
+public class Fill {
+
+    private final String symbol;
+    private final long buyOrderSequence;
+    private final long sellOrderSequence;
+    private final int quantity;
+    private final double price;
+
+    public Fill(String symbol, long buyOrderSequence, long sellOrderSequence, int quantity, double price) {
+        this.symbol = symbol;
+        this.buyOrderSequence = buyOrderSequence;
+        this.sellOrderSequence = sellOrderSequence;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getBuyOrderSequence() {
+        return buyOrderSequence;
+    }
+
+    public long getSellOrderSequence() {
+        return sellOrderSequence;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,7 @@
+package com.stockmarket.logic;
+
+@FunctionalInterface
+public interface FillListener {
+
+    void onFill(int symbolId, long buySequence, long sellSequence, long priceTicks, int quantity);
+}
@@ -0,0 +1,256 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// portfel z trwałością: każda operacja trafia do dziennika transakcji, a po
+// zatwierdzeniu fsync (wspólnego dla wielu operacji) wraca do wywołującego.
+// Odtworzenie = ostatnia migawka "snapshot-<lsn>.snap" + rekordy dziennika o wyższym LSN.
+// Księgi zleceń nie są częścią migawki, dlatego rekordy ORDER są odtwarzane zawsze,
+// a punkt kontrolny przepisuje dziennik do samych zleceń wciąż oczekujących w księgach.
+public class JournaledPortfolio implements AutoCloseable {
+
+    static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final Portfolio portfolio;
+    private final TransactionJournal journal;
+    private final long checkpointInterval;
+
+    private volatile long snapshotLsn;
+
+    // ostatni LSN zaraz po punkcie kontrolnym - od niego liczony interwał; zlecenia
+    // przepisane do dziennika przy kompakcji mają LSN powyżej snapshotLsn i nie mogą
+    // się liczyć do interwału, bo każdy kolejny commit wywoływałby punkt kontrolny
+    private volatile long checkpointedLsn;
+
+    private JournaledPortfolio(Path directory, Portfolio portfolio, TransactionJournal journal,
+                               long snapshotLsn, long checkpointInterval) {
+        this.directory = directory;
+        this.portfolio = portfolio;
+        this.journal = journal;
+        this.snapshotLsn = snapshotLsn;
+        this.checkpointedLsn = journal.getLastLsn();
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public static JournaledPortfolio open(Path directory, double initialCash) throws IOException {
+        return open(directory, initialCash, 0);
+    }
+
+    // checkpointInterval > 0: automatyczny punkt kontrolny co tyle rekordów dziennika,
+    // co ogranicza czas odtwarzania po awarii
+    public static JournaledPortfolio open(Path directory, double initialCash, long checkpointInterval)
+            throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Katalog nie może być null.");
+        }
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Interwał punktu kontrolnego nie może być ujemny.");
+        }
+        Files.createDirectories(directory);
+
+        long snapshotLsn = 0;
+        Path snapshot = null;
+        for (Path candidate : listSnapshots(directory)) {
+            long lsn = snapshotLsnOf(candidate);
+            if (lsn >= snapshotLsn) {
+                snapshotLsn = lsn;
+                snapshot = candidate;
+            }
+        }
+
+        // pusty katalog: stan początkowy (gotówka) też musi przetrwać restart
+        Portfolio portfolio;
+        if (snapshot == null) {
+            portfolio = new Portfolio(initialCash);
+            writeSnapshot(directory, portfolio, 0);
+        } else {
+            portfolio = new PortfolioSnapshotReader().load(snapshot);
+        }
+
+        long recoveredFrom = snapshotLsn;
+        long lastLsn = TransactionJournal.replay(directory.resolve(JOURNAL_FILE), new TransactionJournal.Replay() {
+            @Override
+            public void buy(long lsn, Asset asset, int quantity, LocalDate purchaseDate) {
+                if (lsn > recoveredFrom) {
+                    portfolio.buyAsset(asset, quantity, purchaseDate);
+                }
+            }
+
+            @Override
+            public void sell(long lsn, String symbol, int quantity, double sellPrice) {
+                if (lsn > recoveredFrom) {
+                    portfolio.sellAssetFIFO(symbol, quantity, sellPrice);
+                }
+            }
+
+            @Override
+            public void order(long lsn, Order order) {
+                portfolio.placeOrder(order);
+            }
+        });
+
+        TransactionJournal journal = new TransactionJournal(
+                directory.resolve(JOURNAL_FILE), Math.max(lastLsn, snapshotLsn));
+        return new JournaledPortfolio(directory, portfolio, journal, snapshotLsn, checkpointInterval);
+    }
+
+    // zapis z wyprzedzeniem: walidacja bez zmiany stanu, dopisanie do dziennika, dopiero
+    // potem wykonanie - gdy dziennik odrzuci rekord (zamknięty, niesprawny), portfel zostaje
+    // bez zmian. Oczekiwanie na fsync odbywa się poza blokadą, więc współbieżne operacje
+    // dzielą jeden fsync; nieudany fsync psuje dziennik, więc punkt kontrolny (journal.sync())
+    // nie zapisze już migawki ze stanem, którego dziennik nie utrwalił
+    public void buyAsset(Asset asset, int quantity) throws IOException {
+        long lsn;
+        synchronized (this) {
+            LocalDate date = LocalDate.now();
+            portfolio.checkBuy(asset, quantity, date);
+            lsn = journal.appendBuy(asset, quantity, date);
+            portfolio.buyAsset(asset, quantity, date);
+        }
+        commit(lsn);
+    }
+
+    public SellResult sellAssetFIFO(String symbol, int quantity, double sellPrice) throws IOException {
+        SellResult result;
+        long lsn;
+        synchronized (this) {
+            portfolio.checkSell(symbol, quantity, sellPrice, CostBasis.FIFO);
+            lsn = journal.appendSell(symbol, quantity, sellPrice);
+            result = portfolio.sellAssetFIFO(symbol, quantity, sellPrice);
+        }
+        commit(lsn);
+        return result;
+    }
+
+    // zlecenie poprawne od konstrukcji, a jego złożenie w księdze nie ma warunków do sprawdzenia
+    public List<Fill> placeOrder(Order order) throws IOException {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        List<Fill> fills;
+        long lsn;
+        synchronized (this) {
+            lsn = journal.appendOrder(order);
+            fills = portfolio.placeOrder(order);
+        }
+        commit(lsn);
+        return fills;
+    }
+
+    private void commit(long lsn) throws IOException {
+        journal.awaitDurable(lsn);
+        if (checkpointInterval > 0 && lsn - checkpointedLsn >= checkpointInterval) {
+            synchronized (this) {
+                if (journal.getLastLsn() - checkpointedLsn >= checkpointInterval) {
+                    checkpoint();
+                }
+            }
+        }
+    }
+
+    public synchronized void checkpoint() throws IOException {
+        journal.sync();
+        long lsn = journal.getLastLsn();
+
+        writeSnapshot(directory, portfolio, lsn);
+
+        journal.rewriteWithOrders(collectRestingOrders());
+        snapshotLsn = lsn;
+        checkpointedLsn = journal.getLastLsn();
+
+        // obie zmiany nazw są już trwałe (fsync katalogu), więc starsze migawki nie są potrzebne
+        for (Path old : listSnapshots(directory)) {
+            if (snapshotLsnOf(old) < lsn) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    private static void writeSnapshot(Path directory, Portfolio portfolio, long lsn) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + lsn + SNAPSHOT_SUFFIX + ".tmp");
+        Path snapshot = directory.resolve(SNAPSHOT_PREFIX + lsn + SNAPSHOT_SUFFIX);
+        new PortfolioSnapshotWriter().save(portfolio, temporary);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        TransactionJournal.forceDirectory(directory);
+    }
+
+    private List<TransactionJournal.RestingOrderRecord> collectRestingOrders() {
+        List<long[]> resting = new ArrayList<>();
+        List<TransactionJournal.RestingOrderRecord> records = new ArrayList<>();
+
+        for (OrderBook book : portfolio.getOrderBooks()) {
+            resting.clear();
+            book.forEachRestingOrder((side, priceTicks, remaining, sequence) ->
+                    resting.add(new long[]{sequence, side == OrderType.BUY ? 0 : 1, priceTicks, remaining}));
+            // kolejność według numeru sekwencyjnego zachowuje priorytet czasowy po odtworzeniu
+            resting.sort(Comparator.comparingLong(r -> r[0]));
+            for (long[] r : resting) {
+                records.add(new TransactionJournal.RestingOrderRecord(
+                        book.getSymbol(),
+                        r[1] == 0 ? OrderType.BUY : OrderType.SELL,
+                        (int) r[3],
+                        PriceTicks.toPrice(r[2])));
+            }
+        }
+        return records;
+    }
+
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshots.add(path);
+                } else if (name.endsWith(SNAPSHOT_SUFFIX + ".tmp")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    private static long snapshotLsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new DataIntegrityException("Niepoprawna nazwa migawki: " + name, e);
+        }
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    public long getLastLsn() {
+        return journal.getLastLsn();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            journal.close();
+        } finally {
+            portfolio.close();
+        }
+    }
+}
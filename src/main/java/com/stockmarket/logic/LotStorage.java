@@ -0,0 +1,10 @@
+package com.stockmarket.logic;
+
+// sposób przechowywania partii pozycji
+public enum LotStorage {
+    // obiekt PurchaseLot na partię
+    OBJECTS,
+    // kolumny prymitywów (dzień epoki, ilość, cena w stałym przecinku) - kilka razy
+    // mniej pamięci na partię; PurchaseLot zwracane jako widoki na kolumny
+    COLUMNAR
+}
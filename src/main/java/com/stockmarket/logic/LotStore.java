@@ -0,0 +1,391 @@
+package com.stockmarket.logic;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// magazyn partii jednej pozycji w kolejności FIFO (daty rosnąco, równe daty w kolejności
+// dodania). Jako Collection to widok tylko do odczytu - bez kopiowania partii.
+// Partie zajmują sloty [headSlot(), tailSlot()); sprzedaż ze środka (HIFO) zeruje
+// ilość partii, a puste sloty są usuwane z końców od razu, ze środka - kompakcją,
+// najpóźniej w compact() przed wystawieniem widoku na zewnątrz.
+abstract class LotStore extends AbstractCollection<PurchaseLot> {
+
+    // zmiany strukturalne (dodanie/usunięcie partii), dla iteratorów i widoków
+    int modCount = 0;
+
+    // indeks HIFO: kopiec slotów wg ceny malejąco, budowany leniwie przy pierwszej
+    // sprzedaży HIFO. heapIndex[slot] to pozycja slotu w kopcu (-1 poza nim), więc
+    // partie zdejmowane z końców przez inne metody wypadają z kopca w O(log n),
+    // a przesunięcie wszystkich slotów przy makeRoom tylko go przenumerowuje.
+    // Unieważniają go jedynie operacje przesuwające część slotów (zakup ze starszą
+    // datą, kompakcja) - i tak kosztują O(n). Sloty wyzerowane poza sprzedażą
+    // zostają w kopcu i są usuwane leniwie
+    private int[] priceHeap = new int[0];
+    private int[] heapIndex = new int[0];
+    private int priceHeapSize = 0;
+    private boolean priceHeapValid = false;
+
+    // czy w środku mogą być puste sloty po sprzedaży HIFO
+    private boolean emptyInside = false;
+
+    // pula kosztu (ilość * cena) i sztuk pozycji dla metody AVERAGE: zakup dodaje koszt
+    // partii, sprzedaż konkretnych partii zdejmuje ich koszt, a sprzedaż po średniej -
+    // koszt średni, więc średnia pozostałych sztuk się nie zmienia. Koszt sumowany
+    // z kompensacją, bo odejmowanie i dodawanie trwa przez całe życie pozycji
+    private double costSum = 0.0;
+    private double costCompensation = 0.0;
+    private long units = 0;
+
+    static LotStore create(LotStorage storage) {
+        return switch (storage) {
+            case OBJECTS -> new ObjectLotStore();
+            case COLUMNAR -> new ColumnarLotStore();
+        };
+    }
+
+    abstract void append(PurchaseLot lot);
+
+    abstract PurchaseLot peekFirst();
+
+    abstract PurchaseLot pollFirst();
+
+    // partia o danym indeksie licząc od najstarszej
+    abstract PurchaseLot get(int index);
+
+    abstract int headSlot();
+
+    abstract int tailSlot();
+
+    abstract int quantityAt(int slot);
+
+    abstract double unitPriceAt(int slot);
+
+    abstract long epochDayAt(int slot);
+
+    abstract void decreaseAt(int slot, int amount);
+
+    // usuwa sloty [headSlot(), newHead)
+    abstract void dropHead(int newHead);
+
+    // usuwa sloty [newTail, tailSlot())
+    abstract void dropTail(int newTail);
+
+    // usuwa wszystkie partie z ilością 0, zachowując kolejność pozostałych
+    abstract void removeEmpty();
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<PurchaseLot> iterator() {
+        return new Iterator<>() {
+            private int cursor = 0;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size();
+            }
+
+            @Override
+            public PurchaseLot next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (cursor >= size()) {
+                    throw new NoSuchElementException();
+                }
+                return get(cursor++);
+            }
+        };
+    }
+
+    // wołane przez podklasy po dopisaniu partii zamiast modCount++: jeśli żaden slot
+    // się nie przesunął, partia trafia do ważnego kopca HIFO zamiast go unieważniać
+    final void afterAppend(int slot, boolean slotsMoved) {
+        modCount++;
+        if (!priceHeapValid) {
+            return;
+        }
+        if (slotsMoved) {
+            priceHeapValid = false;
+            return;
+        }
+        if (priceHeapSize == priceHeap.length) {
+            priceHeap = Arrays.copyOf(priceHeap, Math.max(16, priceHeapSize * 2));
+        }
+        ensureHeapIndex(slot + 1);
+        priceHeap[priceHeapSize] = slot;
+        siftUp(priceHeapSize++);
+    }
+
+    // wołane przez podklasy przed zdjęciem slotów [from, to) z początku albo końca
+    final void beforeDrop(int from, int to) {
+        if (!priceHeapValid) {
+            return;
+        }
+        for (int slot = from; slot < to; slot++) {
+            if (heapIndex[slot] >= 0) {
+                removeFromPriceHeap(heapIndex[slot]);
+            }
+        }
+    }
+
+    // wołane przez podklasy po przeniesieniu slotów [shift, shift + size) na [0, size);
+    // kopiec zawiera tylko sloty z tego zakresu, a kolejność slotów się nie zmienia
+    final void afterShift(int shift, int size) {
+        if (!priceHeapValid || shift == 0) {
+            return;
+        }
+        for (int i = 0; i < priceHeapSize; i++) {
+            priceHeap[i] -= shift;
+        }
+        System.arraycopy(heapIndex, shift, heapIndex, 0, size);
+        Arrays.fill(heapIndex, size, shift + size, -1);
+    }
+
+    // zamknięcie `used` sztuk ze slotu z kosztem `basis` za sztukę
+    final void close(int slot, int used, double sellPrice, double basis, SellResult result) {
+        result.record(epochDayAt(slot), used, used * (sellPrice - basis));
+        decreaseAt(slot, used);
+    }
+
+    // Metody consume*: wywołujący gwarantuje, że `quantity` nie przekracza sumy ilości partii.
+    final void consumeFifo(int quantity, double sellPrice, SellResult result) {
+        consumeFromHead(quantity, sellPrice, result, Double.NaN);
+    }
+
+    // fixedBasis == NaN: koszt z ceny każdej partii, inaczej wspólny koszt za sztukę
+    private void consumeFromHead(int quantity, double sellPrice, SellResult result, double fixedBasis) {
+        int remaining = quantity;
+        int slot = headSlot();
+        int tail = tailSlot();
+        while (remaining > 0) {
+            if (slot == tail) {
+                throw new DataIntegrityException("Partie nie pokrywają ilości pozycji.");
+            }
+            int available = quantityAt(slot);
+            int used = Math.min(available, remaining);
+            if (used > 0) {
+                close(slot, used, sellPrice, Double.isNaN(fixedBasis) ? unitPriceAt(slot) : fixedBasis, result);
+                remaining -= used;
+            }
+            if (used == available) {
+                slot++;
+            }
+        }
+        dropHead(slot);
+    }
+
+    final void consumeLifo(int quantity, double sellPrice, SellResult result) {
+        int remaining = quantity;
+        int head = headSlot();
+        int slot = tailSlot();
+        while (remaining > 0) {
+            if (slot == head) {
+                throw new DataIntegrityException("Partie nie pokrywają ilości pozycji.");
+            }
+            int available = quantityAt(slot - 1);
+            int used = Math.min(available, remaining);
+            if (used > 0) {
+                close(slot - 1, used, sellPrice, unitPriceAt(slot - 1), result);
+                remaining -= used;
+            }
+            if (used == available) {
+                slot--;
+            }
+        }
+        dropTail(slot);
+    }
+
+    // najdroższe partie najpierw (przy równej cenie starsza); O(log n) na partię
+    // po jednorazowym zbudowaniu kopca w O(n)
+    final void consumeHifo(int quantity, double sellPrice, SellResult result) {
+        if (!priceHeapValid) {
+            buildPriceHeap();
+        }
+
+        int remaining = quantity;
+        while (remaining > 0) {
+            if (priceHeapSize == 0) {
+                throw new DataIntegrityException("Partie nie pokrywają ilości pozycji.");
+            }
+            int slot = priceHeap[0];
+            int available = slot >= headSlot() && slot < tailSlot() ? quantityAt(slot) : 0;
+            if (available == 0) {
+                removeFromPriceHeap(0);
+                continue;
+            }
+            int used = Math.min(available, remaining);
+            close(slot, used, sellPrice, unitPriceAt(slot), result);
+            remaining -= used;
+            if (used == available) {
+                removeFromPriceHeap(0);
+            }
+        }
+
+        // puste sloty z końców zdejmowane od razu - to nie przesuwa pozostałych slotów,
+        // więc kopiec zostaje ważny; kompakcja środka dopiero gdy pustych jest więcej niż pełnych
+        int head = headSlot();
+        int tail = tailSlot();
+        int newHead = head;
+        while (newHead < tail && quantityAt(newHead) == 0) {
+            newHead++;
+        }
+        int newTail = tail;
+        while (newTail > newHead && quantityAt(newTail - 1) == 0) {
+            newTail--;
+        }
+        if (newHead == tail) {
+            dropHead(tail);
+        } else {
+            dropTail(newTail);
+            dropHead(newHead);
+        }
+
+        // sloty poza kopcem to puste partie w środku
+        if ((size() - priceHeapSize) * 2 > size()) {
+            priceHeapValid = false;
+            removeEmpty();
+            emptyInside = false;
+        } else {
+            emptyInside = size() > priceHeapSize;
+        }
+    }
+
+    // usuwa puste partie ze środka, żeby widok miał tylko partie z ilością; kopiec HIFO
+    // zbuduje się od nowa przy następnej sprzedaży HIFO
+    final void compact() {
+        if (emptyInside) {
+            priceHeapValid = false;
+            removeEmpty();
+            emptyInside = false;
+        }
+    }
+
+    // średni koszt z puli prowadzonej na bieżąco; ilości zdejmowane w kolejności FIFO.
+    // Zamknięte partie zdjęły z puli własne koszty - pula ma stracić koszt średni
+    final void consumeAverage(int quantity, double sellPrice, SellResult result) {
+        double basis = averageCost();
+        consumeFromHead(quantity, sellPrice, result, basis);
+        costSum = units == 0 ? 0.0 : basis * units;
+        costCompensation = 0.0;
+    }
+
+    final double averageCost() {
+        return units == 0 ? 0.0 : (costSum + costCompensation) / units;
+    }
+
+    // zmiana ilości partii o cenie `unitPrice` - wołane przy każdym dodaniu, zmniejszeniu
+    // i zdjęciu partii z niezerową ilością
+    final void track(int quantityDelta, double unitPrice) {
+        units += quantityDelta;
+        if (units == 0) {
+            costSum = 0.0;
+            costCompensation = 0.0;
+            return;
+        }
+        double value = quantityDelta * unitPrice;
+        double t = costSum + value;
+        if (Math.abs(costSum) >= Math.abs(value)) {
+            costCompensation += (costSum - t) + value;
+        } else {
+            costCompensation += (value - t) + costSum;
+        }
+        costSum = t;
+    }
+
+    private void buildPriceHeap() {
+        int head = headSlot();
+        int tail = tailSlot();
+        if (priceHeap.length < tail - head) {
+            priceHeap = new int[tail - head];
+        }
+        ensureHeapIndex(tail);
+        Arrays.fill(heapIndex, -1);
+        priceHeapSize = 0;
+        for (int slot = head; slot < tail; slot++) {
+            if (quantityAt(slot) > 0) {
+                heapIndex[slot] = priceHeapSize;
+                priceHeap[priceHeapSize++] = slot;
+            }
+        }
+        for (int i = priceHeapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        priceHeapValid = true;
+    }
+
+    private void ensureHeapIndex(int slots) {
+        if (heapIndex.length < slots) {
+            int old = heapIndex.length;
+            heapIndex = Arrays.copyOf(heapIndex, Math.max(slots, Math.max(16, old * 2)));
+            Arrays.fill(heapIndex, old, heapIndex.length, -1);
+        }
+    }
+
+    private void removeFromPriceHeap(int index) {
+        heapIndex[priceHeap[index]] = -1;
+        int last = priceHeap[--priceHeapSize];
+        if (index == priceHeapSize) {
+            return;
+        }
+        priceHeap[index] = last;
+        heapIndex[last] = index;
+        if (index > 0 && above(last, priceHeap[(index - 1) / 2])) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+
+    private void siftUp(int index) {
+        int slot = priceHeap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!above(slot, priceHeap[parent])) {
+                break;
+            }
+            priceHeap[index] = priceHeap[parent];
+            heapIndex[priceHeap[index]] = index;
+            index = parent;
+        }
+        priceHeap[index] = slot;
+        heapIndex[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = priceHeap[index];
+        double price = unitPriceAt(slot);
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= priceHeapSize) {
+                break;
+            }
+            if (child + 1 < priceHeapSize && above(priceHeap[child + 1], priceHeap[child])) {
+                child++;
+            }
+            int childSlot = priceHeap[child];
+            double childPrice = unitPriceAt(childSlot);
+            if (childPrice < price || (childPrice == price && childSlot > slot)) {
+                break;
+            }
+            priceHeap[index] = childSlot;
+            heapIndex[childSlot] = index;
+            index = child;
+        }
+        priceHeap[index] = slot;
+        heapIndex[slot] = index;
+    }
+
+    private boolean above(int a, int b) {
+        double pa = unitPriceAt(a);
+        double pb = unitPriceAt(b);
+        return pa > pb || (pa == pb && a < b);
+    }
+}
@@ -1,20 +1,41 @@
 package com.stockmarket.logic;
 
-import java.util.HashMap;
-import java.util.Map;
+import com.stockmarket.domain.SymbolRegistry;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ceny trzymane jako bity double w stronach AtomicLongArray indeksowanych id symbolu
+// z SymbolRegistry; 0 oznacza brak ceny (cena zawsze jest dodatnia). Jeden wątek
+// zasilający i dowolnie wielu czytelników: zapis i odczyt jednego slotu są atomowe,
+// więc czytelnik nigdy nie zobaczy "rozerwanej" ceny, a setPrice(int, double)
+// nie alokuje. Strony są tylko dokładane, nigdy kopiowane - zapis nie może zginąć.
 public class MarketData {
 
-    private final Map<String, Double> prices = new HashMap<>();
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long NO_PRICE = 0L;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+
+    private volatile PriceListener[] listeners = new PriceListener[0];
 
     public void setPrice(String symbol, double price) {
         if (symbol == null || symbol.isBlank()) {
             throw new IllegalArgumentException("Symbol nie może być pusty.");
         }
-        if (price <= 0) {
+        setPrice(SymbolRegistry.intern(symbol), price);
+    }
+
+    public void setPrice(int symbolId, double price) {
+        if (price <= 0 || Double.isNaN(price)) {
             throw new IllegalArgumentException("Cena musi być dodatnia.");
         }
-        prices.put(symbol.trim().toUpperCase(), price);
+        page(symbolId).setRelease(symbolId & (PAGE_SIZE - 1), Double.doubleToRawLongBits(price));
+
+        for (PriceListener listener : listeners) {
+            listener.onPrice(symbolId, price);
+        }
     }
 
     public double getPrice(String symbol) {
@@ -22,10 +43,93 @@ public class MarketData {
             throw new IllegalArgumentException("Symbol nie może być pusty.");
         }
 
-        Double price = prices.get(symbol.trim().toUpperCase());
-        if (price == null) {
+        int id = SymbolRegistry.find(symbol);
+        long bits = id < 0 ? NO_PRICE : bitsOf(id);
+        if (bits == NO_PRICE) {
             throw new IllegalStateException("Brak ceny rynkowej dla: " + symbol);
         }
-        return price;
+        return Double.longBitsToDouble(bits);
+    }
+
+    public double getPrice(int symbolId) {
+        long bits = bitsOf(symbolId);
+        if (bits == NO_PRICE) {
+            throw new IllegalStateException("Brak ceny rynkowej dla: " + SymbolRegistry.symbolOf(symbolId));
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public boolean hasPrice(String symbol) {
+        int id = SymbolRegistry.find(symbol);
+        return id >= 0 && bitsOf(id) != NO_PRICE;
+    }
+
+    public boolean hasPrice(int symbolId) {
+        return bitsOf(symbolId) != NO_PRICE;
+    }
+
+    public synchronized void addListener(PriceListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null.");
+        }
+        PriceListener[] current = listeners;
+        PriceListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(PriceListener listener) {
+        PriceListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                PriceListener[] updated = new PriceListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    private long bitsOf(int symbolId) {
+        if (symbolId < 0) {
+            throw new IllegalArgumentException("Niepoprawny identyfikator symbolu: " + symbolId);
+        }
+        AtomicLongArray[] current = pages;
+        int pageIndex = symbolId >>> PAGE_BITS;
+        if (pageIndex >= current.length) {
+            return NO_PRICE;
+        }
+        return current[pageIndex].getAcquire(symbolId & (PAGE_SIZE - 1));
+    }
+
+    private AtomicLongArray page(int symbolId) {
+        if (symbolId < 0) {
+            throw new IllegalArgumentException("Niepoprawny identyfikator symbolu: " + symbolId);
+        }
+        AtomicLongArray[] current = pages;
+        int pageIndex = symbolId >>> PAGE_BITS;
+        if (pageIndex < current.length) {
+            return current[pageIndex];
+        }
+        return addPages(pageIndex);
+    }
+
+    private synchronized AtomicLongArray addPages(int pageIndex) {
+        AtomicLongArray[] current = pages;
+        if (pageIndex < current.length) {
+            return current[pageIndex];
+        }
+        AtomicLongArray[] updated = Arrays.copyOf(current, pageIndex + 1);
+        for (int i = current.length; i < updated.length; i++) {
+            updated[i] = new AtomicLongArray(PAGE_SIZE);
+        }
+        pages = updated;
+        return updated[pageIndex];
+    }
+
+    // wywoływany synchronicznie w wątku, który ustawił cenę
+    public interface PriceListener {
+        void onPrice(int symbolId, double price);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// strumień notowań w formacie "SYMBOL|cena" (jedna linia na notowanie) z pliku
+// albo gniazda; parsowanie bezpośrednio z bajtów bufora, a symbol rozwiązywany do
+// id z SymbolRegistry tylko raz - notowanie nie alokuje niczego
+public final class MarketDataFeed {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SYMBOL_LENGTH = 8;
+
+    private final MarketData marketData;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    // widok bufora do odczytów bezwzględnych (DecimalParser) - limit zawsze pełny
+    private final ByteBuffer bytes = ByteBuffer.wrap(buffer);
+
+    // symbol (do 8 bajtów upakowanych w long) -> id z SymbolRegistry
+    private long[] symbolKeys = new long[64];
+    private int[] symbolIds = new int[64];
+    private int symbolCount = 0;
+
+    private long tickCount = 0;
+    private long lineNumber = 0;
+
+    public MarketDataFeed(MarketData marketData) {
+        if (marketData == null) {
+            throw new IllegalArgumentException("MarketData nie może być null.");
+        }
+        this.marketData = marketData;
+        Arrays.fill(symbolIds, -1);
+    }
+
+    public static long replay(Path file, MarketData marketData) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MarketDataFeed(marketData).consume(channel);
+        }
+    }
+
+    // czyta kanał do końca strumienia; zwraca liczbę przetworzonych notowań
+    public long consume(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Kanał nie może być null.");
+        }
+
+        long before = tickCount;
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        int filled = 0;
+
+        while (true) {
+            view.limit(buffer.length).position(filled);
+            int read = channel.read(view);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+
+            int consumed = parseLines(filled);
+            if (consumed == 0 && filled == buffer.length) {
+                throw new DataIntegrityException("Linia notowania " + (lineNumber + 1) + " jest za długa.");
+            }
+            System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+            filled -= consumed;
+        }
+
+        // ostatnia linia bez znaku nowej linii
+        if (filled > 0) {
+            parseTick(0, filled);
+        }
+        return tickCount - before;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    private int parseLines(int limit) {
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                parseTick(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        return lineStart;
+    }
+
+    private void parseTick(int start, int end) {
+        lineNumber++;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        long key = 0;
+        int i = start;
+        for (; i < end && buffer[i] != '|'; i++) {
+            if (i - start == MAX_SYMBOL_LENGTH) {
+                throw new DataIntegrityException("Za długi symbol w linii notowania " + lineNumber);
+            }
+            key = (key << 8) | (buffer[i] & 0xFF);
+        }
+        if (i == start || i == end) {
+            throw new DataIntegrityException("Niepoprawna linia notowania " + lineNumber);
+        }
+
+        int symbolId = symbolFor(key, start, i - start);
+        double price = parsePrice(i + 1, end);
+        if (!(price > 0) || Double.isInfinite(price)) {
+            throw new DataIntegrityException("Niepoprawna cena w linii notowania " + lineNumber);
+        }
+
+        marketData.setPrice(symbolId, price);
+        tickCount++;
+    }
+
+    private int symbolFor(long key, int start, int length) {
+        int mask = symbolKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (symbolIds[slot] >= 0) {
+            if (symbolKeys[slot] == key) {
+                return symbolIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String name = new String(buffer, start, length, StandardCharsets.US_ASCII);
+        if (name.isBlank()) {
+            throw new DataIntegrityException("Pusty symbol w linii notowania " + lineNumber);
+        }
+        int id = SymbolRegistry.intern(name);
+        symbolKeys[slot] = key;
+        symbolIds[slot] = id;
+        if (++symbolCount * 2 > symbolKeys.length) {
+            growSymbols();
+        }
+        return id;
+    }
+
+    private void growSymbols() {
+        long[] oldKeys = symbolKeys;
+        int[] oldIds = symbolIds;
+        symbolKeys = new long[oldKeys.length * 2];
+        symbolIds = new int[oldIds.length * 2];
+        Arrays.fill(symbolIds, -1);
+        int mask = symbolKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIds[i] < 0) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (symbolIds[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            symbolKeys[slot] = oldKeys[i];
+            symbolIds[slot] = oldIds[i];
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private double parsePrice(int start, int end) {
+        double price = DecimalParser.parse(bytes, start, end);
+        return Double.isNaN(price) ? parsePriceSlow(start, end) : price;
+    }
+
+    private double parsePriceSlow(int start, int end) {
+        try {
+            return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new DataIntegrityException("Niepoprawna cena w linii notowania " + lineNumber, e);
+        }
+    }
+}
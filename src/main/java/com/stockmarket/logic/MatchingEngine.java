@@ -0,0 +1,165 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MatchingEngine {
+
+    // jedna księga na symbol, indeksowana identyfikatorem z SymbolRegistry;
+    // odczyt bez blokady, blokada tylko przy otwieraniu nowej księgi
+    private volatile OrderBook[] books = new OrderBook[16];
+
+    // słuchacze głębokości wszystkich ksiąg - także otwieranych później
+    private DepthListener[] depthListeners = new DepthListener[0];
+
+    public List<Fill> submit(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        return bookFor(order.getSymbolId()).submit(order);
+    }
+
+    public long submit(int symbolId, OrderType side, long priceTicks, int quantity, FillListener listener) {
+        long sequence = Order.nextSequence();
+        bookFor(symbolId).submit(side, priceTicks, quantity, sequence, listener);
+        return sequence;
+    }
+
+    public OrderBatchResult submitAll(List<Order> orders) {
+        return submitAll(orders, null);
+    }
+
+    // wsad zleceń: walidacja całej listy, jedno sortowanie po symbolu (stabilne - w obrębie
+    // symbolu zostaje kolejność listy), a w każdej księdze zlecenia, które zostają w księdze,
+    // są wstawiane zbiorczo. Stan ksiąg i transakcje jak przy kolejnych submit(), tylko
+    // transakcje różnych symboli są zgłaszane symbol po symbolu.
+    // listener == null: transakcje zbierane w OrderBatchResult.getFills()
+    public OrderBatchResult submitAll(List<Order> orders, FillListener listener) {
+        if (orders == null) {
+            throw new IllegalArgumentException("Lista zleceń nie może być null.");
+        }
+        int size = orders.size();
+        OrderBatchResult result = new OrderBatchResult(size, listener == null);
+        FillListener fills = listener == null ? result.collector() : listener;
+
+        // identyfikatory symboli są gęste, więc jedno sortowanie przez zliczanie: O(n + liczba symboli)
+        int[] symbolStart = new int[SymbolRegistry.size() + 1];
+        for (int i = 0; i < size; i++) {
+            Order order = orders.get(i);
+            if (order == null) {
+                result.reject(i, "Order nie może być null.");
+            } else {
+                symbolStart[order.getSymbolId() + 1]++;
+            }
+        }
+        for (int id = 1; id < symbolStart.length; id++) {
+            symbolStart[id] += symbolStart[id - 1];
+        }
+        int valid = symbolStart[symbolStart.length - 1];
+        Order[] sorted = new Order[valid];
+        int[] indexes = new int[valid];
+        for (int i = 0; i < size; i++) {
+            Order order = orders.get(i);
+            if (order != null) {
+                int at = symbolStart[order.getSymbolId()]++;
+                sorted[at] = order;
+                indexes[at] = i;
+            }
+        }
+
+        OrderBook book = null;
+        for (int k = 0; k < valid; k++) {
+            Order order = sorted[k];
+            if (book == null || book.getSymbolId() != order.getSymbolId()) {
+                if (book != null) {
+                    book.flushStaged();
+                }
+                book = bookFor(order.getSymbolId());
+            }
+            int remaining = book.submitStaged(order.getType(), order.getLimitPriceTicks(),
+                    order.getQuantity(), order.getSequence(), fills);
+            result.accept(indexes[k], order.getSequence(), order.getQuantity() - remaining, remaining);
+        }
+        if (book != null) {
+            book.flushStaged();
+        }
+        return result;
+    }
+
+    // 0 / false, gdy zlecenia nie ma już w księdze - także gdy księga symbolu nie istnieje
+    public int cancel(int symbolId, long sequence) {
+        OrderBook book = getBook(symbolId);
+        return book == null ? 0 : book.cancel(sequence);
+    }
+
+    public boolean amend(int symbolId, long sequence, long newPriceTicks, int newQuantity, FillListener listener) {
+        OrderBook book = getBook(symbolId);
+        return book != null && book.amend(sequence, newPriceTicks, newQuantity, listener);
+    }
+
+    public OrderBook bookFor(int symbolId) {
+        OrderBook[] table = books;
+        if (symbolId < table.length) {
+            OrderBook book = table[symbolId];
+            if (book != null) {
+                return book;
+            }
+        }
+        return openBook(symbolId);
+    }
+
+    private synchronized OrderBook openBook(int symbolId) {
+        OrderBook[] table = books;
+        if (symbolId >= table.length) {
+            table = Arrays.copyOf(table, Math.max(table.length * 2, symbolId + 1));
+        }
+        OrderBook book = table[symbolId];
+        if (book == null) {
+            book = new OrderBook(symbolId);
+            for (DepthListener listener : depthListeners) {
+                book.addDepthListener(listener);
+            }
+            table[symbolId] = book;
+        }
+        books = table;
+        return book;
+    }
+
+    public synchronized void addDepthListener(DepthListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null.");
+        }
+        depthListeners = Arrays.copyOf(depthListeners, depthListeners.length + 1);
+        depthListeners[depthListeners.length - 1] = listener;
+        for (OrderBook book : books) {
+            if (book != null) {
+                book.addDepthListener(listener);
+            }
+        }
+    }
+
+    public OrderBook getBook(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("Symbol nie może być pusty.");
+        }
+        return getBook(SymbolRegistry.find(symbol));
+    }
+
+    public OrderBook getBook(int symbolId) {
+        OrderBook[] table = books;
+        return symbolId >= 0 && symbolId < table.length ? table[symbolId] : null;
+    }
+
+    public List<OrderBook> getBooks() {
+        List<OrderBook> result = new ArrayList<>();
+        for (OrderBook book : books) {
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+}
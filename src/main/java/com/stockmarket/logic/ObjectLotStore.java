@@ -0,0 +1,190 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// partie jako obiekty PurchaseLot w tablicy, w kolejności dat w [head, tail).
+// Zakup z datą nie wcześniejszą niż ostatnia partia to dopisanie na końcu w O(1),
+// tylko partia wsteczna jest wstawiana w miejsce wyszukane binarnie.
+final class ObjectLotStore extends LotStore {
+
+    private PurchaseLot[] lots = new PurchaseLot[8];
+    private int head = 0;
+    private int tail = 0;
+
+    @Override
+    void append(PurchaseLot lot) {
+        if (tail == lots.length) {
+            makeRoom();
+        }
+
+        LocalDate date = lot.getPurchaseDate();
+        int index = tail;
+        boolean slotsMoved = false;
+        if (tail != head && date.isBefore(lots[tail - 1].getPurchaseDate())) {
+            index = insertionPoint(date);
+            System.arraycopy(lots, index, lots, index + 1, tail - index);
+            slotsMoved = true;
+        }
+        lots[index] = lot;
+        tail++;
+        lot.owner = this;
+        track(lot.getQuantity(), lot.getUnitPrice());
+        afterAppend(index, slotsMoved);
+    }
+
+    @Override
+    PurchaseLot peekFirst() {
+        return head == tail ? null : lots[head];
+    }
+
+    @Override
+    PurchaseLot pollFirst() {
+        if (head == tail) {
+            return null;
+        }
+        beforeDrop(head, head + 1);
+        PurchaseLot lot = lots[head];
+        lots[head++] = null;
+        lot.owner = null;
+        track(-lot.getQuantity(), lot.getUnitPrice());
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+        return lot;
+    }
+
+    @Override
+    int headSlot() {
+        return head;
+    }
+
+    @Override
+    int tailSlot() {
+        return tail;
+    }
+
+    @Override
+    int quantityAt(int slot) {
+        return lots[slot].getQuantity();
+    }
+
+    @Override
+    double unitPriceAt(int slot) {
+        return lots[slot].getUnitPrice();
+    }
+
+    @Override
+    long epochDayAt(int slot) {
+        return lots[slot].getPurchaseDate().toEpochDay();
+    }
+
+    @Override
+    void decreaseAt(int slot, int amount) {
+        lots[slot].decreaseQuantity(amount);
+    }
+
+    @Override
+    void dropHead(int newHead) {
+        if (newHead == head) {
+            return;
+        }
+        beforeDrop(head, newHead);
+        release(head, newHead);
+        Arrays.fill(lots, head, newHead, null);
+        head = newHead;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+    }
+
+    @Override
+    void dropTail(int newTail) {
+        if (newTail == tail) {
+            return;
+        }
+        beforeDrop(newTail, tail);
+        release(newTail, tail);
+        Arrays.fill(lots, newTail, tail, null);
+        tail = newTail;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+    }
+
+    @Override
+    void removeEmpty() {
+        int write = head;
+        for (int read = head; read < tail; read++) {
+            if (lots[read].getQuantity() > 0) {
+                lots[write++] = lots[read];
+            } else {
+                lots[read].owner = null;
+            }
+        }
+        // [write, tail) to już nieaktualne kopie przesuniętych partii - bez release()
+        Arrays.fill(lots, write, tail, null);
+        tail = write;
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return tail - head;
+    }
+
+    @Override
+    PurchaseLot get(int index) {
+        if (index < 0 || index >= tail - head) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return lots[head + index];
+    }
+
+    // partie zdejmowane z magazynu mają ilość 0 - nie zmieniają sum, tylko tracą właściciela
+    private void release(int from, int to) {
+        for (int i = from; i < to; i++) {
+            lots[i].owner = null;
+        }
+    }
+
+    // pierwsza partia z datą późniejszą niż `date` - partie z tą samą datą
+    // zachowują kolejność dodania
+    private int insertionPoint(LocalDate date) {
+        int low = head;
+        int high = tail;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lots[mid].getPurchaseDate().isAfter(date)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // najpierw odzyskanie miejsca po sprzedanych partiach z początku, potem wzrost
+    private void makeRoom() {
+        int size = tail - head;
+        PurchaseLot[] target = head > 0 && size <= lots.length / 2 ? lots : new PurchaseLot[lots.length * 2];
+        System.arraycopy(lots, head, target, 0, size);
+        if (target == lots) {
+            Arrays.fill(lots, size, tail, null);
+        }
+        lots = target;
+        afterShift(head, size);
+        head = 0;
+        tail = size;
+    }
+}
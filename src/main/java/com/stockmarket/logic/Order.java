@@ -1,14 +1,22 @@
 package com.stockmarket.logic;
 
-import java.time.LocalDateTime;
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Order {
 
+    // monotoniczny numer sekwencyjny - o kolejności przy równej cenie decyduje
+    // kolejność przyjęcia zlecenia, a nie rozdzielczość zegara
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
     private final String symbol;
+    private final int symbolId;
     private final OrderType type;
     private final int quantity;
     private final double limitPrice;
-    private final LocalDateTime createdAt;
+    private final long limitPriceTicks;
+    private final long sequence;
 
     public Order(String symbol, OrderType type, int quantity, double limitPrice) {
         if (symbol == null || symbol.isBlank()) {
@@ -24,17 +32,27 @@ public class Order {
             throw new IllegalArgumentException("Limit price musi być dodatni.");
         }
 
-        this.symbol = symbol.trim().toUpperCase();
+        this.symbolId = SymbolRegistry.intern(symbol);
+        this.symbol = SymbolRegistry.symbolOf(symbolId);
         this.type = type;
         this.quantity = quantity;
         this.limitPrice = limitPrice;
-        this.createdAt = LocalDateTime.now();
+        this.limitPriceTicks = PriceTicks.toTicks(limitPrice);
+        this.sequence = nextSequence();
+    }
+
+    public static long nextSequence() {
+        return SEQUENCE.incrementAndGet();
     }
 
     public String getSymbol() {
         return symbol;
     }
 
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     public OrderType getType() {
         return type;
     }
@@ -47,7 +65,11 @@ public class Order {
         return limitPrice;
     }
 
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
+    public long getLimitPriceTicks() {
+        return limitPriceTicks;
+    }
+
+    public long getSequence() {
+        return sequence;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// wynik wsadu zleceń: dla każdego zlecenia (w kolejności listy wejściowej) przyjęcie
+// albo powód odrzucenia, ilość wykonana od razu i ilość, która została w księdze
+public class OrderBatchResult {
+
+    private final long[] sequences;
+    private final int[] executed;
+    private final int[] resting;
+    private final String[] rejections;
+    private int acceptedCount;
+
+    // transakcje zebrane, gdy wsad złożono bez własnego FillListener
+    private final List<Fill> fills;
+
+    OrderBatchResult(int size, boolean collectFills) {
+        sequences = new long[size];
+        executed = new int[size];
+        resting = new int[size];
+        rejections = new String[size];
+        fills = collectFills ? new ArrayList<>() : null;
+    }
+
+    void accept(int index, long sequence, int executedQuantity, int restingQuantity) {
+        sequences[index] = sequence;
+        executed[index] = executedQuantity;
+        resting[index] = restingQuantity;
+        acceptedCount++;
+    }
+
+    void reject(int index, String reason) {
+        rejections[index] = reason;
+    }
+
+    FillListener collector() {
+        return (symbolId, buySequence, sellSequence, priceTicks, quantity) ->
+                fills.add(new Fill(SymbolRegistry.symbolOf(symbolId),
+                        buySequence, sellSequence, quantity, PriceTicks.toPrice(priceTicks)));
+    }
+
+    public int size() {
+        return sequences.length;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public boolean isAccepted(int index) {
+        return rejections[index] == null;
+    }
+
+    // null dla przyjętego zlecenia
+    public String getRejectionReason(int index) {
+        return rejections[index];
+    }
+
+    public long getSequence(int index) {
+        return sequences[index];
+    }
+
+    // ilość wykonana w chwili przyjęcia zlecenia
+    public int getExecutedQuantity(int index) {
+        return executed[index];
+    }
+
+    // ilość, która po przyjęciu została w księdze
+    public int getRestingQuantity(int index) {
+        return resting[index];
+    }
+
+    // transakcje w kolejności wykonania w obrębie symbolu; puste, gdy wsad złożono z FillListener
+    public List<Fill> getFills() {
+        return fills == null ? List.of() : fills;
+    }
+}
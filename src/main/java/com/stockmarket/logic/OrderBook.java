@@ -0,0 +1,366 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class OrderBook {
+
+    private final int symbolId;
+    private final String symbol;
+
+    // zlecenia i poziomy trzymane w tablicach prymitywów - ścieżka dopasowania
+    // nie alokuje obiektów (poza okazjonalnym powiększeniem tablic)
+    private final OrderPool pool = new OrderPool(64);
+    private final PriceLevels bids = new PriceLevels(true);
+    private final PriceLevels asks = new PriceLevels(false);
+
+    // numer sekwencyjny zlecenia spoczynkowego -> (uchwyt << 1) | strona (0 = kupno)
+    private final OrderIndex index = new OrderIndex(64);
+
+    private int restingOrderCount = 0;
+
+    private DepthListener[] depthListeners = new DepthListener[0];
+
+    public OrderBook(String symbol) {
+        this(SymbolRegistry.intern(symbol));
+    }
+
+    public OrderBook(int symbolId) {
+        this.symbolId = symbolId;
+        this.symbol = SymbolRegistry.symbolOf(symbolId);
+    }
+
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public List<Fill> submit(Order order) {
+        checkSymbol(order);
+
+        FillCollector collector = new FillCollector();
+        submit(order.getType(), order.getLimitPriceTicks(), order.getQuantity(), order.getSequence(), collector);
+        return collector.fills == null ? List.of() : collector.fills;
+    }
+
+    public int submit(OrderType side, long priceTicks, int quantity, long sequence, FillListener listener) {
+        if (side == null) {
+            throw new IllegalArgumentException("Typ zlecenia nie może być null.");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia.");
+        }
+        if (priceTicks <= 0) {
+            throw new IllegalArgumentException("Limit price musi być dodatni.");
+        }
+
+        int remaining = match(side, priceTicks, quantity, sequence, listener);
+        if (remaining > 0) {
+            PriceLevels levels = side == OrderType.BUY ? bids : asks;
+            levels.append(priceTicks, rest(side, priceTicks, remaining, sequence), pool);
+        }
+        return remaining;
+    }
+
+    // wariant wsadowy (bez walidacji - robi ją wywołujący): reszta zlecenia jest odkładana
+    // zamiast wstawiana od razu, a wstawia ją dopiero flushStaged() albo zlecenie przeciwnej
+    // strony, które mogłoby ją dosięgnąć - wynik jak przy kolejnych wywołaniach submit()
+    int submitStaged(OrderType side, long priceTicks, int quantity, long sequence, FillListener listener) {
+        PriceLevels opposite = side == OrderType.BUY ? asks : bids;
+        if (opposite.stagedReaches(priceTicks)) {
+            opposite.mergeStaged(pool);
+        }
+        int remaining = match(side, priceTicks, quantity, sequence, listener);
+        if (remaining > 0) {
+            PriceLevels levels = side == OrderType.BUY ? bids : asks;
+            levels.stage(priceTicks, rest(side, priceTicks, remaining, sequence));
+        }
+        return remaining;
+    }
+
+    void flushStaged() {
+        bids.mergeStaged(pool);
+        asks.mergeStaged(pool);
+    }
+
+    private int rest(OrderType side, long priceTicks, int remaining, long sequence) {
+        int handle = pool.allocate(priceTicks, remaining, sequence);
+        index.put(sequence, handle << 1 | (side == OrderType.BUY ? 0 : 1));
+        restingOrderCount++;
+        return handle;
+    }
+
+    // anulowanie po numerze sekwencyjnym: wyszukanie w indeksie O(log odległości od
+    // najnowszego zlecenia), wypięcie z kolejki poziomu O(1), usunięcie opustoszałego
+    // poziomu w głębi oczekiwane O(log poziomów). Zwraca anulowaną ilość,
+    // 0 gdy zlecenia nie ma już w księdze (wykonane, anulowane albo nieznane).
+    public int cancel(long sequence) {
+        int entry = index.get(sequence);
+        if (entry == OrderIndex.ABSENT) {
+            return 0;
+        }
+        int handle = entry >>> 1;
+        int cancelled = pool.remaining[handle];
+        ((entry & 1) == 0 ? bids : asks).unlink(handle, pool);
+        index.removeHandle(handle, pool.sequence[handle]);
+        pool.release(handle);
+        restingOrderCount--;
+        return cancelled;
+    }
+
+    // zmiana zlecenia spoczynkowego; newQuantity to nowa ilość pozostała do wykonania.
+    // Zmniejszenie ilości przy tej samej cenie zachowuje miejsce w kolejce, zmiana ceny
+    // albo zwiększenie ilości - jak anulowanie i ponowne złożenie (może od razu dopasować).
+    // false, gdy zlecenia nie ma już w księdze.
+    public boolean amend(long sequence, long newPriceTicks, int newQuantity, FillListener listener) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia.");
+        }
+        if (newPriceTicks <= 0) {
+            throw new IllegalArgumentException("Limit price musi być dodatni.");
+        }
+        int entry = index.get(sequence);
+        if (entry == OrderIndex.ABSENT) {
+            return false;
+        }
+        int handle = entry >>> 1;
+        if (pool.priceTicks[handle] == newPriceTicks && newQuantity <= pool.remaining[handle]) {
+            ((entry & 1) == 0 ? bids : asks).adjust(pool.level[handle], newQuantity - pool.remaining[handle]);
+            pool.remaining[handle] = newQuantity;
+            return true;
+        }
+
+        // ponowne złożenie na tym samym uchwycie: wpis w indeksie zostaje bez zmian
+        OrderType side = (entry & 1) == 0 ? OrderType.BUY : OrderType.SELL;
+        PriceLevels levels = side == OrderType.BUY ? bids : asks;
+        levels.unlink(handle, pool);
+        int remaining = match(side, newPriceTicks, newQuantity, sequence, listener);
+        if (remaining == 0) {
+            index.removeHandle(handle, pool.sequence[handle]);
+            pool.release(handle);
+            restingOrderCount--;
+        } else {
+            pool.priceTicks[handle] = newPriceTicks;
+            pool.remaining[handle] = remaining;
+            pool.next[handle] = OrderPool.NONE;
+            pool.prev[handle] = OrderPool.NONE;
+            levels.append(newPriceTicks, handle, pool);
+        }
+        return true;
+    }
+
+    public List<Fill> amend(Order order, double newLimitPrice, int newQuantity) {
+        checkSymbol(order);
+        FillCollector collector = new FillCollector();
+        if (!amend(order.getSequence(), PriceTicks.toTicks(newLimitPrice), newQuantity, collector)) {
+            throw new IllegalStateException("Zlecenia nie ma w księdze: " + order.getSequence());
+        }
+        return collector.fills == null ? List.of() : collector.fills;
+    }
+
+    public int cancel(Order order) {
+        checkSymbol(order);
+        return cancel(order.getSequence());
+    }
+
+    // ilość zlecenia pozostała w księdze, 0 gdy go tam nie ma
+    public int getRestingQuantity(long sequence) {
+        int entry = index.get(sequence);
+        return entry == OrderIndex.ABSENT ? 0 : pool.remaining[entry >>> 1];
+    }
+
+    private void checkSymbol(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        if (order.getSymbolId() != symbolId) {
+            throw new IllegalArgumentException("Zlecenie dla innego symbolu: " + order.getSymbol());
+        }
+    }
+
+    private int match(OrderType side, long priceTicks, int quantity, long sequence, FillListener listener) {
+        int remaining = quantity;
+        if (side == OrderType.BUY) {
+            while (remaining > 0 && !asks.isEmpty() && asks.bestPrice() <= priceTicks) {
+                remaining = matchBest(asks, true, sequence, remaining, listener);
+            }
+        } else {
+            while (remaining > 0 && !bids.isEmpty() && bids.bestPrice() >= priceTicks) {
+                remaining = matchBest(bids, false, sequence, remaining, listener);
+            }
+        }
+        return remaining;
+    }
+
+    private int matchBest(PriceLevels levels, boolean incomingBuy, long incomingSequence,
+                          int remaining, FillListener listener) {
+        long price = levels.bestPrice();
+        int handle = levels.bestHead();
+        int start = remaining;
+
+        while (remaining > 0 && handle != OrderPool.NONE) {
+            int traded = Math.min(remaining, pool.remaining[handle]);
+            long restingSequence = pool.sequence[handle];
+
+            if (listener != null) {
+                if (incomingBuy) {
+                    listener.onFill(symbolId, incomingSequence, restingSequence, price, traded);
+                } else {
+                    listener.onFill(symbolId, restingSequence, incomingSequence, price, traded);
+                }
+            }
+
+            remaining -= traded;
+            pool.remaining[handle] -= traded;
+
+            if (pool.remaining[handle] == 0) {
+                int next = pool.next[handle];
+                index.removeHandle(handle, pool.sequence[handle]);
+                pool.release(handle);
+                restingOrderCount--;
+                handle = next;
+            }
+        }
+
+        if (handle == OrderPool.NONE) {
+            levels.removeBest();
+        } else {
+            levels.setBestHead(handle, pool);
+            levels.reduceBest(start - remaining);
+        }
+        return remaining;
+    }
+
+    public boolean hasBids() {
+        return !bids.isEmpty();
+    }
+
+    public boolean hasAsks() {
+        return !asks.isEmpty();
+    }
+
+    public double getBestBid() {
+        return PriceTicks.toPrice(getBestBidTicks());
+    }
+
+    public double getBestAsk() {
+        return PriceTicks.toPrice(getBestAskTicks());
+    }
+
+    public long getBestBidTicks() {
+        if (bids.isEmpty()) {
+            throw new IllegalStateException("Brak zleceń kupna dla: " + symbol);
+        }
+        return bids.bestPrice();
+    }
+
+    public long getBestAskTicks() {
+        if (asks.isEmpty()) {
+            throw new IllegalStateException("Brak zleceń sprzedaży dla: " + symbol);
+        }
+        return asks.bestPrice();
+    }
+
+    public int getRestingOrderCount() {
+        return restingOrderCount;
+    }
+
+    // `levels` najlepszych poziomów każdej strony z łączną ilością - O(levels), sumy
+    // poziomów są utrzymywane przy każdym wstawieniu, wykonaniu i anulowaniu
+    public BookDepth getDepth(int levels) {
+        if (levels <= 0) {
+            throw new IllegalArgumentException("Liczba poziomów musi być dodatnia.");
+        }
+        BookDepth depth = new BookDepth(symbol, levels);
+        depth.bidLevels = bids.copyTop(levels, depth.bidPrices, depth.bidQuantities);
+        depth.askLevels = asks.copyTop(levels, depth.askPrices, depth.askQuantities);
+        return depth;
+    }
+
+    // strumień zmian poziomów: każda zmiana łącznej ilości poziomu (także zniknięcie - ilość 0),
+    // zgłaszana synchronicznie przez wątek modyfikujący księgę
+    public void addDepthListener(DepthListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null.");
+        }
+        DepthListener[] current = depthListeners;
+        DepthListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        setDepthListeners(updated);
+    }
+
+    public boolean removeDepthListener(DepthListener listener) {
+        DepthListener[] current = depthListeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                DepthListener[] updated = new DepthListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                setDepthListeners(updated);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setDepthListeners(DepthListener[] listeners) {
+        depthListeners = listeners;
+        PriceLevels.LevelListener forward = listeners.length == 0 ? null : this::publishLevel;
+        bids.listener = forward;
+        asks.listener = forward;
+    }
+
+    private void publishLevel(boolean bidSide, long price, long total) {
+        OrderType side = bidSide ? OrderType.BUY : OrderType.SELL;
+        for (DepthListener listener : depthListeners) {
+            listener.onLevelChange(symbolId, side, price, total);
+        }
+    }
+
+    public int getBidLevelCount() {
+        return bids.count;
+    }
+
+    public int getAskLevelCount() {
+        return asks.count;
+    }
+
+    public void forEachRestingOrder(RestingOrderVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor nie może być null.");
+        }
+        visitLevels(bids, OrderType.BUY, visitor);
+        visitLevels(asks, OrderType.SELL, visitor);
+    }
+
+    private void visitLevels(PriceLevels levels, OrderType side, RestingOrderVisitor visitor) {
+        for (int level = levels.bestLevel(); level != PriceLevels.NONE; level = levels.nextLevel(level)) {
+            for (int handle = levels.heads[level]; handle != OrderPool.NONE; handle = pool.next[handle]) {
+                visitor.visit(side, levels.priceOf(level), pool.remaining[handle], pool.sequence[handle]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RestingOrderVisitor {
+        void visit(OrderType side, long priceTicks, int remainingQuantity, long sequence);
+    }
+
+    private final class FillCollector implements FillListener {
+        private List<Fill> fills;
+
+        @Override
+        public void onFill(int symbolId, long buySequence, long sellSequence, long priceTicks, int quantity) {
+            if (fills == null) {
+                fills = new ArrayList<>();
+            }
+            fills.add(new Fill(symbol, buySequence, sellSequence, quantity, PriceTicks.toPrice(priceTicks)));
+        }
+    }
+}
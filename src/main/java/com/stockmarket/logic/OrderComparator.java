@@ -23,9 +23,8 @@ public class OrderComparator implements Comparator<Order> {
             return a.getType().compareTo(b.getType());
         }
 
-        int sym = a.getSymbol().compareTo(b.getSymbol());
-        if (sym != 0) {
-            return sym;
+        if (a.getSymbolId() != b.getSymbolId()) {
+            return a.getSymbol().compareTo(b.getSymbol());
         }
 
         int priceCmp;
@@ -36,6 +35,6 @@ public class OrderComparator implements Comparator<Order> {
         }
         if (priceCmp != 0) return priceCmp;
 
-        return a.getCreatedAt().compareTo(b.getCreatedAt());
+        return Long.compare(a.getSequence(), b.getSequence());
     }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+
+// numer sekwencyjny zlecenia -> wartość (uchwyt w OrderPool ze stroną księgi).
+// Numery rosną, więc indeks to dziennik posortowany przez samo dopisywanie:
+// wstawienie to zapis na końcu tablicy (bez chybień pamięci podręcznej, jakie
+// dawałaby tablica haszująca przy milionach zleceń), wyszukanie - wykładniczo
+// od końca, O(log odległości od najnowszego), a usunięcie po uchwycie - O(1)
+// przez slotOfHandle. Usunięte wpisy zostają jako ABSENT i są wycinane, gdy
+// stanowią ponad połowę dziennika. Numer mniejszy niż ostatni w dzienniku (zlecenie
+// złożone długo po utworzeniu) trafia do osobnej tablicy haszującej.
+final class OrderIndex {
+
+    static final int ABSENT = -1;
+
+    private static final int MIN_COMPACT_SIZE = 64;
+    private static final int LATE = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int end = 0;
+    private int live = 0;
+
+    // slot wpisu dla uchwytu z OrderPool (wartość >>> 1), LATE dla wpisów w `late`
+    private int[] slotOfHandle;
+
+    private final LateTable late = new LateTable();
+
+    OrderIndex(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        keys = new long[capacity];
+        values = new int[capacity];
+        slotOfHandle = new int[capacity];
+    }
+
+    void put(long key, int value) {
+        int handle = value >>> 1;
+        if (handle >= slotOfHandle.length) {
+            slotOfHandle = Arrays.copyOf(slotOfHandle, Math.max(handle + 1, slotOfHandle.length * 2));
+        }
+        if (end > 0 && key < keys[end - 1]) {
+            late.put(key, value);
+            slotOfHandle[handle] = LATE;
+            return;
+        }
+
+        if (end == keys.length) {
+            if (live * 2 <= end) {
+                compact();
+            } else {
+                keys = Arrays.copyOf(keys, end * 2);
+                values = Arrays.copyOf(values, end * 2);
+            }
+        }
+
+        keys[end] = key;
+        values[end] = value;
+        slotOfHandle[handle] = end;
+        end++;
+        live++;
+    }
+
+    int get(long key) {
+        if (late.size > 0) {
+            int value = late.get(key);
+            if (value != ABSENT) {
+                return value;
+            }
+        }
+        int slot = upperBound(key) - 1;
+        // ten sam numer złożony ponownie: najnowszy żywy wpis
+        for (; slot >= 0 && keys[slot] == key; slot--) {
+            if (values[slot] != ABSENT) {
+                return values[slot];
+            }
+        }
+        return ABSENT;
+    }
+
+    void removeHandle(int handle, long key) {
+        int slot = slotOfHandle[handle];
+        if (slot == LATE) {
+            late.remove(key, handle);
+            return;
+        }
+        values[slot] = ABSENT;
+        live--;
+        while (end > 0 && values[end - 1] == ABSENT) {
+            end--;
+        }
+        if (end >= MIN_COMPACT_SIZE && live * 2 < end) {
+            compact();
+        }
+    }
+
+    int size() {
+        return live + late.size;
+    }
+
+    // pierwszy slot z kluczem większym niż `key`; wyszukiwanie wykładnicze od końca
+    private int upperBound(long key) {
+        int hi = end;
+        int step = 1;
+        int lo = end - 1;
+        while (lo >= 0 && keys[lo] > key) {
+            hi = lo;
+            lo = end - 1 - step;
+            step <<= 1;
+        }
+        lo = Math.max(lo, 0);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] > key) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < end; read++) {
+            int value = values[read];
+            if (value != ABSENT) {
+                keys[write] = keys[read];
+                values[write] = value;
+                slotOfHandle[value >>> 1] = write;
+                write++;
+            }
+        }
+        end = write;
+    }
+
+    // adresowanie otwarte z sondowaniem liniowym; klucz i wartość obok siebie w jednej
+    // tablicy, usuwanie przez cofanie kolejnych wpisów zamiast znaczników
+    private static final class LateTable {
+        // [2 * slot] = klucz, [2 * slot + 1] = wartość albo ABSENT
+        private long[] table = emptyTable(16);
+        private int mask = 15;
+        private int size = 0;
+
+        int get(long key) {
+            for (int slot = hash(key) & mask; table[2 * slot + 1] != ABSENT; slot = (slot + 1) & mask) {
+                if (table[2 * slot] == key) {
+                    return (int) table[2 * slot + 1];
+                }
+            }
+            return ABSENT;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > mask + 1) {
+                rehash((mask + 1) * 2);
+            }
+            int slot = hash(key) & mask;
+            while (table[2 * slot + 1] != ABSENT) {
+                if (table[2 * slot] == key) {
+                    table[2 * slot + 1] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[2 * slot] = key;
+            table[2 * slot + 1] = value;
+            size++;
+        }
+
+        // tylko, jeśli wpis nadal wskazuje ten uchwyt (ten sam numer mógł zostać nadpisany)
+        void remove(long key, int handle) {
+            for (int slot = hash(key) & mask; table[2 * slot + 1] != ABSENT; slot = (slot + 1) & mask) {
+                if (table[2 * slot] == key) {
+                    if (table[2 * slot + 1] >>> 1 == handle) {
+                        delete(slot);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void delete(int slot) {
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (table[2 * next + 1] != ABSENT) {
+                int home = hash(table[2 * next]) & mask;
+                // wpis można przesunąć do dziury, jeśli jego miejsce docelowe nie leży w (hole, next]
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[2 * hole] = table[2 * next];
+                    table[2 * hole + 1] = table[2 * next + 1];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[2 * hole + 1] = ABSENT;
+            size--;
+        }
+
+        private void rehash(int capacity) {
+            long[] old = table;
+            table = emptyTable(capacity);
+            mask = capacity - 1;
+            size = 0;
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i + 1] != ABSENT) {
+                    put(old[i], (int) old[i + 1]);
+                }
+            }
+        }
+
+        private static long[] emptyTable(int capacity) {
+            long[] table = new long[2 * capacity];
+            for (int i = 1; i < table.length; i += 2) {
+                table[i] = ABSENT;
+            }
+            return table;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
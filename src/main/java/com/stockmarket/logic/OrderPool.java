@@ -0,0 +1,67 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+
+// zlecenia spoczynkowe w układzie struct-of-arrays: uchwyt zlecenia to indeks
+// w tablicach, zwolnione sloty wracają na listę wolnych i są używane ponownie.
+// next/prev tworzą dwukierunkową kolejkę poziomu - anulowanie wypina zlecenie w O(1);
+// level to slot poziomu cenowego zlecenia w PriceLevels jego strony
+final class OrderPool {
+
+    static final int NONE = -1;
+
+    long[] priceTicks;
+    long[] sequence;
+    int[] remaining;
+    int[] next;
+    int[] prev;
+    int[] level;
+
+    private int freeHead = NONE;
+    private int used = 0;
+
+    OrderPool(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        priceTicks = new long[capacity];
+        sequence = new long[capacity];
+        remaining = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        level = new int[capacity];
+    }
+
+    int allocate(long price, int quantity, long seq) {
+        int handle;
+        if (freeHead != NONE) {
+            handle = freeHead;
+            freeHead = next[handle];
+        } else {
+            if (used == priceTicks.length) {
+                grow();
+            }
+            handle = used++;
+        }
+        priceTicks[handle] = price;
+        sequence[handle] = seq;
+        remaining[handle] = quantity;
+        next[handle] = NONE;
+        prev[handle] = NONE;
+        return handle;
+    }
+
+    void release(int handle) {
+        remaining[handle] = 0;
+        next[handle] = freeHead;
+        freeHead = handle;
+    }
+
+    private void grow() {
+        int capacity = priceTicks.length * 2;
+        priceTicks = Arrays.copyOf(priceTicks, capacity);
+        sequence = Arrays.copyOf(sequence, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        level = Arrays.copyOf(level, capacity);
+    }
+}
@@ -0,0 +1,99 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// bufor pierścieniowy jeden producent / jeden konsument w stylu disruptora:
+// sloty są prealokowanymi tablicami prymitywów, a producent i konsument
+// komunikują się wyłącznie przez dwa kursory (zapis z semantyką release)
+final class OrderRingBuffer {
+
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private static final int YIELDS_BEFORE_PARK = 100;
+
+    private final int mask;
+
+    final int[] symbolIds;
+    final byte[] sides;
+    final long[] priceTicks;
+    final int[] quantities;
+    final long[] sequences;
+
+    // następna pozycja do zapisu / do odczytu
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    private long producerCursor = 0;
+    private long cachedConsumed = 0;
+
+    // wątek opróżniający bufor; gdy zakończył działanie, pełny bufor już się nie zwolni
+    private Thread consumer;
+
+    OrderRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Pojemność bufora musi być potęgą dwójki.");
+        }
+        mask = capacity - 1;
+        symbolIds = new int[capacity];
+        sides = new byte[capacity];
+        priceTicks = new long[capacity];
+        quantities = new int[capacity];
+        sequences = new long[capacity];
+    }
+
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    void publish(int symbolId, byte side, long price, int quantity, long sequence) {
+        long position = producerCursor;
+        long wrapPoint = position - symbolIds.length;
+        if (cachedConsumed <= wrapPoint) {
+            int idle = 0;
+            while ((cachedConsumed = consumed.get()) <= wrapPoint) {
+                // żywotność sprawdzana dopiero po fazie aktywnego czekania
+                if (idle >= SPINS_BEFORE_YIELD && consumer != null && !consumer.isAlive()) {
+                    throw new IllegalStateException("Wątek dopasowujący zakończył działanie.");
+                }
+                idle = backOff(idle);
+            }
+        }
+
+        int slot = (int) position & mask;
+        symbolIds[slot] = symbolId;
+        sides[slot] = side;
+        priceTicks[slot] = price;
+        quantities[slot] = quantity;
+        sequences[slot] = sequence;
+
+        producerCursor = position + 1;
+        published.lazySet(producerCursor);
+    }
+
+    long availableTo() {
+        return published.get();
+    }
+
+    long consumedTo() {
+        return consumed.get();
+    }
+
+    int slot(long position) {
+        return (int) position & mask;
+    }
+
+    void markConsumed(long position) {
+        consumed.lazySet(position);
+    }
+
+    static int backOff(int idle) {
+        if (idle < SPINS_BEFORE_YIELD) {
+            Thread.onSpinWait();
+        } else if (idle < SPINS_BEFORE_YIELD + YIELDS_BEFORE_PARK) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000L);
+        }
+        return idle + 1;
+    }
+}
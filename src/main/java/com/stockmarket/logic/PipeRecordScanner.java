@@ -0,0 +1,247 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// skaner rekordów "A|B|C" czytający bezpośrednio z pliku zmapowanego w pamięci:
+// pola są tylko parami indeksów w oknie mapowania, a liczby i daty parsowane
+// z bajtów - String powstaje wyłącznie gdy wywołujący o niego poprosi
+final class PipeRecordScanner {
+
+    static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private int pos;
+
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+    private long recordStart;
+
+    private byte[] scratch = new byte[64];
+
+    private int cachedDateKey = -1;
+    private LocalDate cachedDate;
+
+    PipeRecordScanner(FileChannel channel, long start, long end) throws IOException {
+        this(channel, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    PipeRecordScanner(FileChannel channel, long start, long end, int windowSize) throws IOException {
+        this.channel = channel;
+        this.end = end;
+        this.windowSize = windowSize;
+        map(start);
+    }
+
+    private void map(long absolutePosition) throws IOException {
+        windowStart = absolutePosition;
+        windowLimit = (int) Math.min(windowSize, end - absolutePosition);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, absolutePosition, windowLimit);
+        pos = 0;
+    }
+
+    boolean next() throws IOException {
+        while (true) {
+            if (windowStart + pos >= end) {
+                return false;
+            }
+
+            int lineEnd = indexOfNewline(pos);
+            if (lineEnd < 0) {
+                if (windowStart + windowLimit < end) {
+                    if (pos == 0) {
+                        throw new DataIntegrityException("Zbyt długa linia w pliku portfela.");
+                    }
+                    map(windowStart + pos);
+                    continue;
+                }
+                lineEnd = windowLimit;
+            }
+
+            int start = pos;
+            int contentEnd = lineEnd;
+            if (contentEnd > start && window.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            pos = Math.min(lineEnd + 1, windowLimit);
+
+            if (isBlank(start, contentEnd)) {
+                continue;
+            }
+
+            recordStart = windowStart + start;
+            split(start, contentEnd);
+            return true;
+        }
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < windowLimit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = window.get(i);
+            if (b < 0 || b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // jak String.split("\\|"): końcowe puste pola są odrzucane
+    private void split(int from, int to) {
+        fieldCount = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || window.get(i) == '|') {
+                if (fieldCount == starts.length) {
+                    starts = Arrays.copyOf(starts, fieldCount * 2);
+                    ends = Arrays.copyOf(ends, fieldCount * 2);
+                }
+                starts[fieldCount] = fieldStart;
+                ends[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+        while (fieldCount > 0 && starts[fieldCount - 1] == ends[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    long recordStart() {
+        return recordStart;
+    }
+
+    void requireFields(int count) {
+        if (fieldCount < count) {
+            throw new DataIntegrityException("Za mało pól w rekordzie: " + string(0));
+        }
+    }
+
+    boolean fieldEquals(int field, String ascii) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (window.get(start + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String string(int field) {
+        if (field >= fieldCount) {
+            return "";
+        }
+        int length = ends[field] - starts[field];
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(starts[field], scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int parseInt(int field) {
+        int start = starts[field];
+        int stop = ends[field];
+        if (start == stop || stop - start > 9) {
+            return Integer.parseInt(string(field));
+        }
+
+        boolean negative = false;
+        int i = start;
+        byte first = window.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == stop) {
+                return Integer.parseInt(string(field));
+            }
+        }
+
+        int value = 0;
+        for (; i < stop; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(string(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // szybka ścieżka DecimalParser, zapisy spoza niej przez Double.parseDouble
+    double parseDouble(int field) {
+        double value = DecimalParser.parse(window, starts[field], ends[field]);
+        return Double.isNaN(value) ? Double.parseDouble(string(field)) : value;
+    }
+
+    LocalDate parseDate(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 10
+                || window.get(start + 4) != '-' || window.get(start + 7) != '-') {
+            return LocalDate.parse(string(field));
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(string(field));
+        }
+
+        // kolejne partie często mają tę samą datę - ten sam obiekt LocalDate
+        int key = year * 10_000 + month * 100 + day;
+        if (key == cachedDateKey) {
+            return cachedDate;
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return LocalDate.parse(string(field));
+        }
+        cachedDateKey = key;
+        cachedDate = date;
+        return date;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -1,23 +1,43 @@
 package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.SymbolRegistry;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.IntConsumer;
 
-public class Portfolio {
+public class Portfolio implements AutoCloseable {
 
     private double cash;
 
-    private final Map<String, AssetPosition> positions = new HashMap<>();
+    private final PositionTable positions = new PositionTable();
 
     private final Set<String> watchlist = new HashSet<>();
 
     private final MarketData marketData;
 
-    private final PriorityQueue<Order> orders;
+    private final MatchingEngine matchingEngine;
+
+    // konto w AccountManager: zgłasza otwarcie pozycji, a ceny dostaje od menedżera;
+    // null dla samodzielnego portfela, który sam słucha MarketData
+    private final IntConsumer positionOpened;
+
+    // słuchacz zarejestrowany w MarketData (null dla konta) - trzymany, żeby close()
+    // mógł go wyrejestrować; inaczej MarketData trzymałby portfel przy życiu
+    private final MarketData.PriceListener priceListener;
+
+    private final PortfolioValuation valuation = new PortfolioValuation();
+
+    private boolean valuationVerification = false;
+
+    private LotStorage lotStorage = LotStorage.OBJECTS;
 
     public Portfolio(double initialCash, MarketData marketData) {
+        this(initialCash, marketData, new MatchingEngine(), null);
+    }
+
+    Portfolio(double initialCash, MarketData marketData, MatchingEngine matchingEngine, IntConsumer positionOpened) {
         if (initialCash < 0) {
             throw new IllegalArgumentException("Początkowa gotówka nie może być ujemna.");
         }
@@ -27,7 +47,14 @@ public class Portfolio {
 
         this.cash = initialCash;
         this.marketData = marketData;
-        this.orders = new PriorityQueue<>(new OrderComparator(marketData));
+        this.matchingEngine = matchingEngine;
+        this.positionOpened = positionOpened;
+        if (positionOpened == null) {
+            this.priceListener = this::onMarketPrice;
+            marketData.addListener(priceListener);
+        } else {
+            this.priceListener = null;
+        }
     }
 
     public Portfolio(double initialCash) {
@@ -39,87 +66,204 @@ public class Portfolio {
     }
 
     public void buyAsset(Asset asset, int quantity) {
+        buyAsset(asset, quantity, LocalDate.now());
+    }
+
+    public void buyAsset(Asset asset, int quantity, LocalDate purchaseDate) {
+        double cost = checkBuy(asset, quantity, purchaseDate);
+        cash -= cost;
+
+        AssetPosition pos = positions.get(asset.getSymbolId());
+        if (pos == null) {
+            pos = openPosition(asset);
+        }
+
+        pos.addLot(new PurchaseLot(purchaseDate, quantity, asset.getBasePrice()));
+    }
+
+    public SellResult sellAssetFIFO(String symbol, int quantity, double sellPrice) {
+        return sellAssetFIFO(symbol, quantity, sellPrice, true);
+    }
+
+    // withClosures == false: tylko sumy (zysk, ilość, liczba partii), bez zamknięć per partia
+    public SellResult sellAssetFIFO(String symbol, int quantity, double sellPrice, boolean withClosures) {
+        return sellAsset(symbol, quantity, sellPrice, CostBasis.FIFO, withClosures);
+    }
+
+    public SellResult sellAsset(String symbol, int quantity, double sellPrice, CostBasis costBasis) {
+        return sellAsset(symbol, quantity, sellPrice, costBasis, true);
+    }
+
+    public SellResult sellAsset(String symbol, int quantity, double sellPrice, CostBasis costBasis,
+                                boolean withClosures) {
+        AssetPosition position = checkSell(symbol, quantity, sellPrice, costBasis);
+        SellResult result = position.sell(quantity, sellPrice, costBasis, withClosures);
+        cash += quantity * sellPrice;
+        return result;
+    }
+
+    // walidacja zakupu bez zmiany stanu (JournaledPortfolio sprawdza operację przed
+    // zapisem do dziennika); zwraca koszt zakupu
+    double checkBuy(Asset asset, int quantity, LocalDate purchaseDate) {
         if (asset == null) {
             throw new IllegalArgumentException("Aktywo nie może być null.");
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Ilość musi być dodatnia.");
         }
+        if (purchaseDate == null) {
+            throw new IllegalArgumentException("Data zakupu nie może być null.");
+        }
 
         double cost = asset.calculatePurchaseCost(quantity);
         if (cost > cash) {
             throw new IllegalStateException("Brak środków na zakup: potrzebne " + cost);
         }
-
-        cash -= cost;
-
-        String key = normalizeSymbol(asset.getSymbol());
-        AssetPosition pos = positions.get(key);
-        if (pos == null) {
-            pos = new AssetPosition(asset);
-            positions.put(key, pos);
-        }
-
-        pos.addLot(new PurchaseLot(LocalDate.now(), quantity, asset.getBasePrice()));
+        return cost;
     }
 
-    public SellResult sellAssetFIFO(String symbol, int quantity, double sellPrice) {
+    // walidacja sprzedaży bez zmiany stanu; zwraca sprzedawaną pozycję
+    AssetPosition checkSell(String symbol, int quantity, double sellPrice, CostBasis costBasis) {
+        if (costBasis == null) {
+            throw new IllegalArgumentException("Metoda rozliczania kosztu nie może być null.");
+        }
         if (quantity <= 0 || sellPrice <= 0) {
             throw new IllegalArgumentException("Niepoprawne dane sprzedaży.");
         }
 
-        AssetPosition position = positions.get(normalizeSymbol(symbol));
+        AssetPosition position = positions.get(symbolId(symbol));
         if (position == null || position.getTotalQuantity() < quantity) {
             throw new InsufficientHoldingsException("Brak wystarczającej ilości aktywa.");
         }
+        return position;
+    }
 
-        SellResult result = new SellResult();
-        int remaining = quantity;
+    public boolean addToWatchlist(String symbol) {
+        String key = normalizeSymbol(symbol);
+        return watchlist.add(key);
+    }
 
-        while (remaining > 0) {
-            PurchaseLot lot = position.peekOldestLot();
+    public List<Fill> placeOrder(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        return matchingEngine.submit(order);
+    }
 
-            int used = Math.min(lot.getQuantity(), remaining);
+    public OrderBatchResult placeOrders(List<Order> orders) {
+        return matchingEngine.submitAll(orders);
+    }
 
-            double profit = used * (sellPrice - lot.getUnitPrice());
-            result.addClosure(new LotClosure(lot.getPurchaseDate(), used, profit));
+    // anulowana ilość; 0, gdy zlecenie zostało już wykonane albo anulowane
+    public int cancelOrder(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        return matchingEngine.cancel(order.getSymbolId(), order.getSequence());
+    }
 
-            lot.decreaseQuantity(used);
-            position.decreaseTotalQuantity(used);
-            remaining -= used;
+    // newQuantity to nowa ilość pozostała do wykonania; zmniejszenie przy tej samej cenie
+    // zachowuje kolejność w księdze, zmiana ceny lub zwiększenie ilości ustawia na końcu kolejki
+    public List<Fill> amendOrder(Order order, double newLimitPrice, int newQuantity) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        OrderBook book = matchingEngine.getBook(order.getSymbolId());
+        if (book == null) {
+            throw new IllegalStateException("Zlecenia nie ma w księdze: " + order.getSequence());
+        }
+        return book.amend(order, newLimitPrice, newQuantity);
+    }
 
-            if (lot.getQuantity() == 0) {
-                position.pollOldestLot();
+    // najlepsze poziomy księgi symbolu; bez poziomów, gdy księga jeszcze nie istnieje
+    public BookDepth getDepth(String symbol, int levels) {
+        OrderBook book = getOrderBook(symbol);
+        if (book == null) {
+            if (levels <= 0) {
+                throw new IllegalArgumentException("Liczba poziomów musi być dodatnia.");
             }
+            return new BookDepth(symbol.trim().toUpperCase(), levels);
         }
+        return book.getDepth(levels);
+    }
 
-        cash += quantity * sellPrice;
-        return result;
+    public void addDepthListener(DepthListener listener) {
+        matchingEngine.addDepthListener(listener);
     }
 
-    public boolean addToWatchlist(String symbol) {
-        String key = normalizeSymbol(symbol);
-        return watchlist.add(key);
+    public OrderBook getOrderBook(String symbol) {
+        return matchingEngine.getBook(symbolId(symbol));
     }
 
-    public void placeOrder(Order order) {
-        if (order == null) {
-            throw new IllegalArgumentException("Order nie może być null.");
-        }
-        orders.add(order);
+    public List<OrderBook> getOrderBooks() {
+        return matchingEngine.getBooks();
     }
 
+    // O(1): suma utrzymywana przyrostowo przez pozycje; w trybie weryfikacji
+    // dodatkowo porównywana z pełnym przeliczeniem wszystkich pozycji
     public double calculateTotalAssetsRealValue() {
+        double total = valuation.total();
+        if (valuationVerification) {
+            double scanned = scanTotalAssetsRealValue();
+            if (Math.abs(total - scanned) > 1e-9 * Math.max(1.0, Math.abs(scanned))) {
+                throw new DataIntegrityException(
+                        "Niespójna wycena przyrostowa: " + total + " zamiast " + scanned);
+            }
+        }
+        return total;
+    }
+
+    private double scanTotalAssetsRealValue() {
         double total = 0.0;
         for (AssetPosition pos : positions.values()) {
-            int qty = pos.getTotalQuantity();
-            if (qty > 0) {
-                total += pos.getAsset().calculateRealValue(qty);
-            }
+            total += pos.computeRealValue();
         }
         return total;
     }
 
+    private AssetPosition openPosition(Asset asset) {
+        int symbolId = asset.getSymbolId();
+        AssetPosition pos = new AssetPosition(asset, lotStorage, valuation);
+        positions.put(symbolId, pos);
+        if (positionOpened != null) {
+            // przed odczytem ceny, żeby nie zgubić ceny ustawionej w międzyczasie
+            positionOpened.accept(symbolId);
+        }
+        if (marketData.hasPrice(symbolId)) {
+            pos.markToMarket(marketData.getPrice(symbolId));
+        }
+        return pos;
+    }
+
+    // nowa cena z MarketData przelicza tylko pozycję w tym symbolu
+    void onMarketPrice(int symbolId, double price) {
+        AssetPosition pos = positions.get(symbolId);
+        if (pos != null) {
+            pos.markToMarket(price);
+        }
+    }
+
+    // odłącza portfel od MarketData: kolejne ceny nie zmieniają już jego wyceny.
+    // Konto AccountManager nie ma własnego słuchacza - dla niego to nic nie robi
+    @Override
+    public void close() {
+        if (priceListener != null) {
+            marketData.removeListener(priceListener);
+        }
+    }
+
+    // dotyczy pozycji otwieranych od tej chwili
+    public void setLotStorage(LotStorage lotStorage) {
+        if (lotStorage == null) {
+            throw new IllegalArgumentException("Sposób przechowywania partii nie może być null.");
+        }
+        this.lotStorage = lotStorage;
+    }
+
+    public void setValuationVerification(boolean enabled) {
+        this.valuationVerification = enabled;
+    }
+
     public double calculateTotalValue() {
         return cash + calculateTotalAssetsRealValue();
     }
@@ -128,21 +272,31 @@ public class Portfolio {
         if (asset == null) {
             throw new IllegalArgumentException("Aktywo nie może być null.");
         }
-        String key = normalizeSymbol(asset.getSymbol());
-        if (!positions.containsKey(key)) {
-            positions.put(key, new AssetPosition(asset));
+        if (positions.get(asset.getSymbolId()) == null) {
+            openPosition(asset);
         }
     }
 
     public AssetPosition getPositionBySymbol(String symbol) {
-        String key = normalizeSymbol(symbol);
-        return positions.get(key);
+        return positions.get(symbolId(symbol));
+    }
+
+    public AssetPosition getPosition(int symbolId) {
+        return positions.get(symbolId);
     }
 
     public Iterable<AssetPosition> getPositions() {
         return new ArrayList<>(positions.values());
     }
 
+    // symbol nieznany w rejestrze daje -1, czyli brak pozycji/księgi
+    private int symbolId(String symbol) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("Symbol nie może być pusty.");
+        }
+        return SymbolRegistry.find(symbol);
+    }
+
     private String normalizeSymbol(String symbol) {
         if (symbol == null || symbol.isBlank()) {
             throw new IllegalArgumentException("Symbol nie może być pusty.");
@@ -2,76 +2,96 @@ package com.stockmarket.logic;
 
 import com.stockmarket.domain.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.time.LocalDate;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class PortfolioFileReader {
 
+    // poniżej tego rozmiaru podział na bloki się nie opłaca
+    private static final long MIN_PARALLEL_FILE_SIZE = 4L * 1024 * 1024;
+    private static final long MIN_BLOCK_SIZE = 1024L * 1024;
+    private static final byte[] ASSET_PREFIX = {'A', 'S', 'S', 'E', 'T', '|'};
+
+    private final int windowSize;
+
+    public PortfolioFileReader() {
+        this(PipeRecordScanner.DEFAULT_WINDOW_SIZE);
+    }
+
+    public PortfolioFileReader(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Rozmiar okna mapowania musi być dodatni.");
+        }
+        this.windowSize = windowSize;
+    }
+
     public Portfolio load(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Ścieżka nie może być null.");
+        }
+
         Portfolio portfolio = null;
         Asset currentAsset = null;
+        AssetPosition currentPosition = null;
         int declaredQty = 0;
         int lotSum = 0;
 
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                String[] p = line.split("\\|");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PipeRecordScanner scanner = new PipeRecordScanner(channel, 0, channel.size(), windowSize);
 
-                switch (p[0]) {
+            while (scanner.next()) {
+                if (scanner.fieldCount() == 0) {
+                    throw new DataIntegrityException("Nieznany rekord");
+                }
 
-                    case "HEADER" -> {
-                        if (p.length != 3 || !"CASH".equals(p[1]))
-                            throw new DataIntegrityException("Błędny HEADER");
+                if (scanner.fieldEquals(0, "LOT")) {
+                    if (currentAsset == null)
+                        throw new DataIntegrityException("LOT bez ASSET");
 
-                        portfolio = new Portfolio(Double.parseDouble(p[2]));
-                    }
+                    scanner.requireFields(4);
+                    int qty = scanner.parseInt(2);
+                    lotSum += qty;
 
-                    case "ASSET" -> {
-                        if (portfolio == null)
-                            throw new DataIntegrityException("ASSET przed HEADER");
+                    currentPosition.addLot(new PurchaseLot(
+                            scanner.parseDate(1),
+                            qty,
+                            scanner.parseDouble(3)
+                    ));
 
-                        if (declaredQty != lotSum && currentAsset != null)
-                            throw new DataIntegrityException("Niespójność LOT");
+                } else if (scanner.fieldEquals(0, "ASSET")) {
+                    if (portfolio == null)
+                        throw new DataIntegrityException("ASSET przed HEADER");
 
-                        AssetType type = AssetType.valueOf(p[1]);
-                        String symbol = p[2];
-                        String name = p[3];
-                        double price = Double.parseDouble(p[4]);
-                        declaredQty = Integer.parseInt(p[5]);
-                        lotSum = 0;
+                    if (declaredQty != lotSum && currentAsset != null)
+                        throw new DataIntegrityException("Niespójność LOT");
 
-                        currentAsset = switch (type) {
-                            case SHARE -> new Share(symbol, name, price);
-                            case CURRENCY -> new Currency(symbol, name, price, Double.parseDouble(p[6]));
-                            case COMMODITY -> new Commodity(symbol, name, price, Double.parseDouble(p[6]));
-                        };
+                    currentAsset = parseAsset(scanner);
+                    declaredQty = scanner.parseInt(5);
+                    lotSum = 0;
 
-                        portfolio.putPositionForLoad(currentAsset);
-                    }
+                    portfolio.putPositionForLoad(currentAsset);
+                    currentPosition = portfolio.getPosition(currentAsset.getSymbolId());
 
-                    case "LOT" -> {
-                        if (currentAsset == null)
-                            throw new DataIntegrityException("LOT bez ASSET");
+                } else if (scanner.fieldEquals(0, "HEADER")) {
+                    // jak w loadParallel: drugi HEADER nie zaczyna portfela od nowa
+                    if (portfolio != null)
+                        throw new DataIntegrityException("Powtórzony HEADER");
+                    if (scanner.fieldCount() != 3 || !scanner.fieldEquals(1, "CASH"))
+                        throw new DataIntegrityException("Błędny HEADER");
 
-                        int qty = Integer.parseInt(p[2]);
-                        lotSum += qty;
-
-                        portfolio.getPositionBySymbol(currentAsset.getSymbol())
-                                .addLot(new PurchaseLot(
-                                        LocalDate.parse(p[1]),
-                                        qty,
-                                        Double.parseDouble(p[3])
-                                ));
-                    }
+                    portfolio = new Portfolio(scanner.parseDouble(2));
 
-                    default -> throw new DataIntegrityException("Nieznany rekord");
+                } else {
+                    throw new DataIntegrityException("Nieznany rekord");
                 }
             }
         }
@@ -84,4 +104,221 @@ public class PortfolioFileReader {
 
         return portfolio;
     }
-}
\ No newline at end of file
+
+    public Portfolio loadParallel(Path path) throws IOException {
+        return loadParallel(path, ForkJoinPool.commonPool());
+    }
+
+    // każdy rekord ASSET wraz z następującymi po nim LOT jest niezależnym blokiem:
+    // plik dzielony jest na granicach ASSET, bloki parsowane równolegle,
+    // a wynik scalany do Portfolio w kolejności z pliku
+    public Portfolio loadParallel(Path path, ForkJoinPool pool) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Ścieżka nie może być null.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pula wątków nie może być null.");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MIN_PARALLEL_FILE_SIZE || pool.getParallelism() < 2) {
+                return load(path);
+            }
+
+            PipeRecordScanner headerScanner = new PipeRecordScanner(channel, 0, size, windowSize);
+            if (!headerScanner.next()) {
+                throw new DataIntegrityException("Brak HEADER");
+            }
+            if (!headerScanner.fieldEquals(0, "HEADER")) {
+                if (headerScanner.fieldEquals(0, "ASSET"))
+                    throw new DataIntegrityException("ASSET przed HEADER");
+                if (headerScanner.fieldEquals(0, "LOT"))
+                    throw new DataIntegrityException("LOT bez ASSET");
+                throw new DataIntegrityException("Nieznany rekord");
+            }
+            if (headerScanner.fieldCount() != 3 || !headerScanner.fieldEquals(1, "CASH"))
+                throw new DataIntegrityException("Błędny HEADER");
+
+            Portfolio portfolio = new Portfolio(headerScanner.parseDouble(2));
+
+            long bodyStart = headerScanner.next() ? headerScanner.recordStart() : size;
+            long[] boundaries = findBlockBoundaries(channel, bodyStart, size, pool.getParallelism() * 4);
+
+            List<Callable<List<ParsedAsset>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                tasks.add(() -> parseBlock(channel, start, end));
+            }
+
+            for (Future<List<ParsedAsset>> future : pool.invokeAll(tasks)) {
+                for (ParsedAsset parsed : await(future)) {
+                    portfolio.putPositionForLoad(parsed.asset);
+                    AssetPosition position = portfolio.getPosition(parsed.asset.getSymbolId());
+                    for (PurchaseLot lot : parsed.lots) {
+                        position.addLot(lot);
+                    }
+                }
+            }
+            return portfolio;
+        }
+    }
+
+    private List<ParsedAsset> parseBlock(FileChannel channel, long start, long end) throws IOException {
+        List<ParsedAsset> result = new ArrayList<>();
+        ParsedAsset current = null;
+
+        PipeRecordScanner scanner = new PipeRecordScanner(channel, start, end, windowSize);
+        while (scanner.next()) {
+            if (scanner.fieldCount() == 0) {
+                throw new DataIntegrityException("Nieznany rekord");
+            }
+
+            if (scanner.fieldEquals(0, "LOT")) {
+                if (current == null)
+                    throw new DataIntegrityException("LOT bez ASSET");
+
+                scanner.requireFields(4);
+                int qty = scanner.parseInt(2);
+                current.lotSum += qty;
+                current.lots.add(new PurchaseLot(scanner.parseDate(1), qty, scanner.parseDouble(3)));
+
+            } else if (scanner.fieldEquals(0, "ASSET")) {
+                if (current != null && current.declaredQty != current.lotSum)
+                    throw new DataIntegrityException("Niespójność LOT");
+
+                Asset asset = parseAsset(scanner);
+                current = new ParsedAsset(asset, scanner.parseInt(5));
+                result.add(current);
+
+            } else if (scanner.fieldEquals(0, "HEADER")) {
+                throw new DataIntegrityException("Powtórzony HEADER");
+
+            } else {
+                throw new DataIntegrityException("Nieznany rekord");
+            }
+        }
+
+        if (current != null && current.declaredQty != current.lotSum)
+            throw new DataIntegrityException("Niespójność LOT");
+
+        return result;
+    }
+
+    // granice bloków: początek najbliższej linii zaczynającej się od "ASSET|"
+    // za każdym z równomiernie rozłożonych punktów podziału
+    private long[] findBlockBoundaries(FileChannel channel, long bodyStart, long size, int targetBlocks)
+            throws IOException {
+        long blockSize = Math.max(MIN_BLOCK_SIZE, (size - bodyStart) / Math.max(1, targetBlocks));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(bodyStart);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long candidate = bodyStart + blockSize;
+        while (candidate < size) {
+            long boundary = nextAssetLine(channel, candidate, size, buffer);
+            if (boundary >= size) {
+                break;
+            }
+            if (boundary > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(boundary);
+            }
+            candidate = boundary + blockSize;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private long nextAssetLine(FileChannel channel, long from, long size, ByteBuffer buffer) throws IOException {
+        long position = from;
+        boolean atLineStart = false;
+        int matched = 0;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    atLineStart = true;
+                    matched = 0;
+                } else if (atLineStart && b == ASSET_PREFIX[matched]) {
+                    matched++;
+                    if (matched == ASSET_PREFIX.length) {
+                        return position + i - (ASSET_PREFIX.length - 1);
+                    }
+                } else {
+                    atLineStart = false;
+                    matched = 0;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static List<ParsedAsset> await(Future<List<ParsedAsset>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano wczytywanie portfela.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class ParsedAsset {
+        private final Asset asset;
+        private final int declaredQty;
+        private final List<PurchaseLot> lots = new ArrayList<>();
+        private int lotSum = 0;
+
+        private ParsedAsset(Asset asset, int declaredQty) {
+            this.asset = asset;
+            this.declaredQty = declaredQty;
+        }
+    }
+
+    static Asset parseAsset(PipeRecordScanner scanner) {
+        scanner.requireFields(6);
+
+        AssetType type = parseAssetType(scanner);
+        String symbol = scanner.string(2);
+        String name = scanner.string(3);
+        double price = scanner.parseDouble(4);
+
+        return switch (type) {
+            case SHARE -> new Share(symbol, name, price);
+            case CURRENCY -> {
+                scanner.requireFields(7);
+                yield new Currency(symbol, name, price, scanner.parseDouble(6));
+            }
+            case COMMODITY -> {
+                scanner.requireFields(7);
+                yield new Commodity(symbol, name, price, scanner.parseDouble(6));
+            }
+        };
+    }
+
+    private static AssetType parseAssetType(PipeRecordScanner scanner) {
+        if (scanner.fieldEquals(1, "SHARE")) return AssetType.SHARE;
+        if (scanner.fieldEquals(1, "CURRENCY")) return AssetType.CURRENCY;
+        if (scanner.fieldEquals(1, "COMMODITY")) return AssetType.COMMODITY;
+        return AssetType.valueOf(scanner.string(1));
+    }
+}
@@ -6,9 +6,6 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
 
 public class PortfolioFileWriter {
 
@@ -40,10 +37,8 @@ public class PortfolioFileWriter {
                 writeAssetLine(writer, asset, declaredQuantity);
                 writer.newLine();
 
-                List<PurchaseLot> fifoLots = new ArrayList<>(position.getLots());
-                fifoLots.sort(Comparator.comparing(PurchaseLot::getPurchaseDate));
-
-                for (PurchaseLot lot : fifoLots) {
+                // getLots() jest już w kolejności FIFO
+                for (PurchaseLot lot : position.getLots()) {
                     if (lot == null) {
                         throw new DataIntegrityException("Null LOT w pozycji: " + asset.getSymbol());
                     }
@@ -1,50 +1,486 @@
 package com.stockmarket.logic;
 
-import com.stockmarket.domain.*;
+import com.stockmarket.domain.Asset;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 
 public class PortfolioReportGenerator {
 
-    private static final Comparator<AssetPosition> REPORT_COMPARATOR =
-            (a, b) -> {
-                double va = a.getAsset().calculateRealValue(a.getTotalQuantity());
-                double vb = b.getAsset().calculateRealValue(b.getTotalQuantity());
+    // poniżej tylu pozycji koszt rozdzielania zadań przewyższa zysk z równoległości
+    private static final int PARALLEL_THRESHOLD = 8_192;
+    private static final int CHUNK_SIZE = 4_096;
 
-                int cmp = Double.compare(vb, va);
-                if (cmp != 0) return cmp;
-
-                return a.getAsset().getSymbol()
-                        .compareTo(b.getAsset().getSymbol());
-            };
+    private static final int SYMBOL_CODE_LENGTH = 6;
+    private static final long INDEX_MASK = 0xFFFF_FFFFL;
 
     public String generateReport(Portfolio portfolio) {
+        return generateReport(portfolio, ForkJoinPool.commonPool());
+    }
+
+    // wartość każdej pozycji liczona dokładnie raz; kolejność (wartość malejąco, potem symbol)
+    // wyznaczana sortowaniem kluczy long zamiast komparatora, a wiersze składane kawałkami
+    public String generateReport(Portfolio portfolio, ForkJoinPool pool) {
+        AssetPosition[] positions = positionsOf(portfolio, pool);
+        String header = header(portfolio);
+
+        StringBuilder[] chunks;
+        if (isParallel(positions.length, pool)) {
+            // Arrays.parallelSort i invokeAll wywołane z wątku puli pracują w tej puli
+            chunks = await(pool.submit(() -> rank(positions, true).render(0, positions.length, true)));
+        } else {
+            chunks = rank(positions, false).render(0, positions.length, false);
+        }
+
+        // jedno kopiowanie kawałków do bufora o znanym rozmiarze
+        int length = header.length();
+        for (StringBuilder chunk : chunks) {
+            length += chunk.length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(header);
+        for (StringBuilder chunk : chunks) {
+            sb.append(chunk);
+        }
+        return sb.toString();
+    }
+
+    public void writeReport(Portfolio portfolio, Appendable out) throws IOException {
+        writeReport(portfolio, out, ForkJoinPool.commonPool());
+    }
+
+    // ten sam raport bez składania całego tekstu: w pamięci są klucze sortowania
+    // i co najwyżej okno kawałków (po jednym na wątek puli)
+    public void writeReport(Portfolio portfolio, Appendable out, ForkJoinPool pool) throws IOException {
+        AssetPosition[] positions = positionsOf(portfolio, pool);
+        if (out == null) {
+            throw new IllegalArgumentException("Cel raportu nie może być null.");
+        }
+        out.append(header(portfolio));
+
+        int n = positions.length;
+        if (!isParallel(n, pool)) {
+            writeRows(rank(positions, false), out);
+            return;
+        }
+        Ranking ranking = await(pool.submit(() -> rank(positions, true)));
+        int window = CHUNK_SIZE * pool.getParallelism();
+        for (int from = 0; from < n; from += window) {
+            int start = from;
+            int end = Math.min(n, from + window);
+            for (StringBuilder chunk : await(pool.submit(() -> ranking.render(start, end, true)))) {
+                out.append(chunk);
+            }
+        }
+    }
+
+    // UTF-8 przez bufor o stałym rozmiarze
+    public void writeReport(Portfolio portfolio, WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Kanał nie może być null.");
+        }
+        ChannelAppendable out = new ChannelAppendable(channel);
+        writeReport(portfolio, out);
+        out.finish();
+    }
+
+    public String generateTopReport(Portfolio portfolio, int limit) {
+        AssetPosition[] positions = positionsOf(portfolio, ForkJoinPool.commonPool());
+        Ranking ranking = top(positions, limit);
+        StringBuilder sb = new StringBuilder(header(portfolio));
+        ranking.render(sb, 0, ranking.order.length);
+        return sb.toString();
+    }
+
+    // tylko `limit` pozycji o największej wartości, w kolejności pełnego raportu
+    public void writeTopReport(Portfolio portfolio, int limit, Appendable out) throws IOException {
+        AssetPosition[] positions = positionsOf(portfolio, ForkJoinPool.commonPool());
+        if (out == null) {
+            throw new IllegalArgumentException("Cel raportu nie może być null.");
+        }
+        Ranking ranking = top(positions, limit);
+        out.append(header(portfolio));
+        writeRows(ranking, out);
+    }
+
+    private static AssetPosition[] positionsOf(Portfolio portfolio, ForkJoinPool pool) {
         if (portfolio == null) {
             throw new IllegalArgumentException("Portfolio null.");
         }
-
-        List<AssetPosition> positions = new ArrayList<>();
+        if (pool == null) {
+            throw new IllegalArgumentException("Pula wątków nie może być null.");
+        }
+        List<AssetPosition> list = new ArrayList<>();
         for (AssetPosition pos : portfolio.getPositions()) {
-            positions.add(pos);
+            list.add(pos);
         }
+        return list.toArray(new AssetPosition[0]);
+    }
 
-        positions.sort(REPORT_COMPARATOR);
+    private static String header(Portfolio portfolio) {
+        return "=== RAPORT PORTFELA ===\n"
+                + "Gotówka: " + portfolio.getCash() + "\n"
+                + "Łączna wartość portfela: " + portfolio.calculateTotalValue() + "\n";
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== RAPORT PORTFELA ===\n");
+    private static boolean isParallel(int positions, ForkJoinPool pool) {
+        return positions >= PARALLEL_THRESHOLD && pool.getParallelism() > 1;
+    }
 
-        for (AssetPosition pos : positions) {
-            sb.append(pos.getAsset().getSymbol())
-                    .append(" | ilość: ")
-                    .append(pos.getTotalQuantity())
-                    .append(" | wartość: ")
-                    .append(pos.getAsset()
-                            .calculateRealValue(pos.getTotalQuantity()))
-                    .append("\n");
+    private static void writeRows(Ranking ranking, Appendable out) throws IOException {
+        int n = ranking.order.length;
+        StringBuilder sb = new StringBuilder(Math.min(n, CHUNK_SIZE) * 48);
+        for (int from = 0; from < n; from += CHUNK_SIZE) {
+            sb.setLength(0);
+            ranking.render(sb, from, Math.min(n, from + CHUNK_SIZE));
+            out.append(sb);
         }
+    }
 
-        return sb.toString();
+    private static Ranking rank(AssetPosition[] positions, boolean parallel) {
+        int n = positions.length;
+
+        // przy okazji kod symbolu - potem potrzebny w kolejności rang, gdzie sięganie
+        // do Asset i String oznaczałoby chybienie pamięci podręcznej na każdą pozycję
+        double[] values = new double[n];
+        long[] symbols = new long[n];
+        forEachChunk(0, n, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Asset asset = positions[i].getAsset();
+                values[i] = valueOf(positions[i]);
+                symbols[i] = symbolCode(asset.getSymbol());
+            }
+        });
+
+        return new Ranking(positions, values, sortOrder(values, symbols, parallel));
+    }
+
+    // kopiec ograniczony do `limit` wpisów zamiast pełnego sortowania: w korzeniu
+    // najsłabsza z zachowanych pozycji, wypierana przez każdą lepszą
+    private static Ranking top(AssetPosition[] positions, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit pozycji musi być dodatni.");
+        }
+        int capacity = Math.min(limit, positions.length);
+        int[] heap = new int[capacity];
+        long[] heapKeys = new long[capacity];
+        long[] heapSymbols = new long[capacity];
+        double[] values = new double[positions.length];
+
+        int size = 0;
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = valueOf(positions[i]);
+            long key = descendingKey(values[i]);
+            long symbol = symbolCode(positions[i].getAsset().getSymbol());
+            if (size < capacity) {
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (!weaker(key, symbol, heapKeys[parent], heapSymbols[parent])) {
+                        break;
+                    }
+                    heap[child] = heap[parent];
+                    heapKeys[child] = heapKeys[parent];
+                    heapSymbols[child] = heapSymbols[parent];
+                    child = parent;
+                }
+                heap[child] = i;
+                heapKeys[child] = key;
+                heapSymbols[child] = symbol;
+            } else if (weaker(heapKeys[0], heapSymbols[0], key, symbol)) {
+                siftDown(heap, heapKeys, heapSymbols, size, i, key, symbol);
+            }
+        }
+
+        // zdejmowanie najsłabszych od końca daje kolejność od najlepszej
+        int[] order = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            order[last] = heap[0];
+            siftDown(heap, heapKeys, heapSymbols, last, heap[last], heapKeys[last], heapSymbols[last]);
+        }
+        return new Ranking(positions, values, order);
+    }
+
+    // czy wiersz (key, symbol) stoi w raporcie za wierszem (otherKey, otherSymbol)
+    private static boolean weaker(long key, long symbol, long otherKey, long otherSymbol) {
+        return key > otherKey || (key == otherKey && symbol > otherSymbol);
+    }
+
+    private static void siftDown(int[] heap, long[] keys, long[] symbols, int size,
+                                 int index, long key, long symbol) {
+        int slot = 0;
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && weaker(keys[child + 1], symbols[child + 1], keys[child], symbols[child])) {
+                child++;
+            }
+            if (!weaker(keys[child], symbols[child], key, symbol)) {
+                break;
+            }
+            heap[slot] = heap[child];
+            keys[slot] = keys[child];
+            symbols[slot] = symbols[child];
+            slot = child;
+        }
+        if (size > 0) {
+            heap[slot] = index;
+            keys[slot] = key;
+            symbols[slot] = symbol;
+        }
+    }
+
+    // wartość utrzymywana przez pozycję (po ostatniej cenie rynkowej) - ta sama,
+    // którą sumuje nagłówek, więc wiersze i suma się zgadzają
+    private static double valueOf(AssetPosition position) {
+        return position.getTotalQuantity() > 0 ? position.getRealValue() : 0.0;
+    }
+
+    // jedno sortowanie samych kluczy wartości; pozycja trafia na miejsce wyznaczone
+    // pierwszym wystąpieniem jej klucza (jak w sortowaniu przez zliczanie), a symbolem
+    // porządkowane są już tylko serie równych wartości
+    private static int[] sortOrder(double[] values, long[] symbols, boolean parallel) {
+        int n = values.length;
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = descendingKey(values[i]);
+        }
+        long[] sorted = keys.clone();
+        sort(sorted, parallel);
+
+        int[] rank = new int[n];
+        forEachChunk(0, n, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                rank[i] = firstIndexOf(sorted, keys[i]);
+            }
+        });
+
+        int[] order = new int[n];
+        int[] placed = new int[n];
+        for (int i = 0; i < n; i++) {
+            int r = rank[i];
+            order[r + placed[r]++] = i;
+        }
+
+        long[] ties = null;
+        for (int from = 0; from < n; ) {
+            int to = from + placed[from];
+            if (to - from > 1) {
+                if (ties == null || ties.length < to - from) {
+                    ties = new long[Math.max(to - from, 16)];
+                }
+                for (int k = from; k < to; k++) {
+                    ties[k - from] = symbols[order[k]] << 32 | order[k];
+                }
+                Arrays.sort(ties, 0, to - from);
+                for (int k = from; k < to; k++) {
+                    order[k] = (int) (ties[k - from] & INDEX_MASK);
+                }
+            }
+            from = to;
+        }
+        return order;
+    }
+
+    // symbole aktywów to 3–6 liter A–Z; dopełnienie zerami zachowuje porządek leksykograficzny
+    private static long symbolCode(String symbol) {
+        long code = 0;
+        for (int i = 0; i < SYMBOL_CODE_LENGTH; i++) {
+            code = code * 27 + (i < symbol.length() ? symbol.charAt(i) - 'A' + 1 : 0);
+        }
+        return code;
+    }
+
+    // porządek kluczy jak Double.compare, odwrócony
+    private static long descendingKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return ~(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+    }
+
+    private static int firstIndexOf(long[] sorted, long key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static void sort(long[] keys, boolean parallel) {
+        if (parallel) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+    }
+
+    private interface ChunkBody {
+        void run(int from, int to);
+    }
+
+    private static void forEachChunk(int start, int end, boolean parallel, ChunkBody body) {
+        if (!parallel) {
+            for (int from = start; from < end; from += CHUNK_SIZE) {
+                body.run(from, Math.min(end, from + CHUNK_SIZE));
+            }
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = start; from < end; from += CHUNK_SIZE) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(end, from + CHUNK_SIZE);
+            tasks.add(ForkJoinTask.adapt(() -> body.run(chunkStart, chunkEnd)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano generowanie raportu.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // pozycje z wartościami policzonymi raz i kolejnością wierszy raportu
+    private static final class Ranking {
+        private final AssetPosition[] positions;
+        private final double[] values;
+        private final int[] order;
+
+        private Ranking(AssetPosition[] positions, double[] values, int[] order) {
+            this.positions = positions;
+            this.values = values;
+            this.order = order;
+        }
+
+        void render(StringBuilder sb, int from, int to) {
+            for (int k = from; k < to; k++) {
+                AssetPosition pos = positions[order[k]];
+                sb.append(AssetType.of(pos.getAsset()))
+                        .append(" | ")
+                        .append(pos.getAsset().getSymbol())
+                        .append(" | ilość: ")
+                        .append(pos.getTotalQuantity())
+                        .append(" | wartość: ")
+                        .append(values[order[k]])
+                        .append('\n');
+            }
+        }
+
+        // wiersze [start, end) w kawałkach po CHUNK_SIZE, kawałek i zaczyna się od start + i * CHUNK_SIZE
+        StringBuilder[] render(int start, int end, boolean parallel) {
+            StringBuilder[] chunks = new StringBuilder[(end - start + CHUNK_SIZE - 1) / CHUNK_SIZE];
+            forEachChunk(start, end, parallel, (from, to) -> {
+                StringBuilder sb = new StringBuilder((to - from) * 48);
+                render(sb, from, to);
+                chunks[(from - start) / CHUNK_SIZE] = sb;
+            });
+            return chunks;
+        }
+    }
+
+    // kodowanie UTF-8 do kanału przez stałe bufory; znaki z kolejnych append() mogą
+    // dzielić parę surogatów, więc niezakodowana końcówka czeka na następne wywołanie
+    private static final class ChannelAppendable implements Appendable {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE / 4);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private ChannelAppendable(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            int from = start;
+            while (from < end) {
+                int count = Math.min(end - from, chars.remaining());
+                int to = from + count;
+                if (csq instanceof StringBuilder sb) {
+                    sb.getChars(from, to, chars.array(), chars.arrayOffset() + chars.position());
+                } else if (csq instanceof String s) {
+                    s.getChars(from, to, chars.array(), chars.arrayOffset() + chars.position());
+                } else {
+                    for (int i = from; i < to; i++) {
+                        chars.array()[chars.arrayOffset() + chars.position() + i - from] = csq.charAt(i);
+                    }
+                }
+                chars.position(chars.position() + count);
+                from = to;
+                encode(false);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            return append(String.valueOf(c));
+        }
+
+        void finish() throws IOException {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+        }
+
+        private void encode(boolean endOfInput) throws IOException {
+            chars.flip();
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    break;
+                }
+            }
+            chars.compact();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+public class PortfolioSnapshotReader {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    public Portfolio load(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Ścieżka nie może być null.");
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            return read(in, Files.size(path));
+        } catch (EOFException e) {
+            throw new DataIntegrityException("Niekompletna migawka portfela.", e);
+        }
+    }
+
+    private Portfolio read(DataInputStream in, long fileSize) throws IOException {
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC)) {
+            throw new DataIntegrityException("Nieznany format migawki.");
+        }
+        int version = in.readUnsignedShort();
+        if (version != SnapshotFormat.VERSION) {
+            throw new DataIntegrityException("Nieobsługiwana wersja migawki: " + version);
+        }
+
+        if (in.readByte() != SnapshotFormat.tagOf(RecordType.HEADER)) {
+            throw new DataIntegrityException("Brak HEADER");
+        }
+        Portfolio portfolio = new Portfolio(in.readDouble());
+        long position = magic.length + Short.BYTES + 1 + Double.BYTES;
+
+        byte[] block = new byte[256];
+        CRC32C crc = new CRC32C();
+        int blocks = 0;
+
+        while (true) {
+            byte tag = in.readByte();
+
+            if (tag == SnapshotFormat.TAG_END) {
+                int declaredBlocks = in.readInt();
+                if (declaredBlocks != blocks) {
+                    throw new DataIntegrityException("Niezgodna liczba bloków ASSET w migawce.");
+                }
+                if (in.read() != -1) {
+                    throw new DataIntegrityException("Nadmiarowe dane za końcem migawki.");
+                }
+                return portfolio;
+            }
+
+            if (tag != SnapshotFormat.tagOf(RecordType.ASSET)) {
+                throw new DataIntegrityException("Nieznany rekord");
+            }
+
+            int length = in.readInt();
+            position += 1 + Integer.BYTES;
+            // blok, jego crc i rekord END muszą się zmieścić w pozostałej części pliku
+            long remaining = fileSize - position - Integer.BYTES - SnapshotFormat.END_LENGTH;
+            if (length < 0 || length > SnapshotFormat.MAX_BLOCK_LENGTH || length > remaining) {
+                throw new DataIntegrityException("Uszkodzony blok migawki.");
+            }
+            if (block.length < length) {
+                block = new byte[Math.max(length, block.length * 2)];
+            }
+            in.readFully(block, 0, length);
+
+            crc.reset();
+            crc.update(block, 0, length);
+            if ((int) crc.getValue() != in.readInt()) {
+                throw new DataIntegrityException("Błędna suma kontrolna bloku ASSET nr " + (blocks + 1));
+            }
+            position += length + Integer.BYTES;
+
+            decodeAsset(new SnapshotFormat.Decoder(block, length), portfolio);
+            blocks++;
+        }
+    }
+
+    private void decodeAsset(SnapshotFormat.Decoder block, Portfolio portfolio) {
+        AssetType type = SnapshotFormat.assetTypeOf(block.readByte());
+        String symbol = new String(block.readBytes(), StandardCharsets.US_ASCII);
+        String name = new String(block.readBytes(), StandardCharsets.UTF_8);
+        boolean fixed = block.readByte() == SnapshotFormat.PRICES_FIXED;
+        double price = block.readPrice(fixed);
+
+        Asset asset = switch (type) {
+            case SHARE -> new Share(symbol, name, price);
+            case CURRENCY -> new Currency(symbol, name, price, block.readPrice(fixed));
+            case COMMODITY -> new Commodity(symbol, name, price, block.readPrice(fixed));
+        };
+
+        int declaredQty = block.readVarInt();
+        int lotCount = block.readVarInt();
+
+        portfolio.putPositionForLoad(asset);
+        AssetPosition position = portfolio.getPosition(asset.getSymbolId());
+
+        long epochDay = 0;
+        long lotSum = 0;
+        LocalDate date = null;
+        for (int i = 0; i < lotCount; i++) {
+            long delta = block.readSignedVarLong();
+            if (date == null || delta != 0) {
+                epochDay += delta;
+                date = LocalDate.ofEpochDay(epochDay);
+            }
+            int qty = block.readVarInt();
+            lotSum += qty;
+            position.addLot(new PurchaseLot(date, qty, block.readPrice(fixed)));
+        }
+
+        if (block.hasRemaining()) {
+            throw new DataIntegrityException("Nadmiarowe dane w bloku ASSET: " + symbol);
+        }
+        if (declaredQty != lotSum) {
+            throw new DataIntegrityException("Niespójność LOT");
+        }
+    }
+}
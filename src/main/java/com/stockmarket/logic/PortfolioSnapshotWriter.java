@@ -0,0 +1,116 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+public class PortfolioSnapshotWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    public void save(Portfolio portfolio, Path path) throws IOException {
+        if (portfolio == null) {
+            throw new IllegalArgumentException("Portfolio nie może być null.");
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("Ścieżka nie może być null.");
+        }
+
+        SnapshotFormat.Encoder block = new SnapshotFormat.Encoder();
+        CRC32C crc = new CRC32C();
+        int blocks = 0;
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))) {
+
+            out.write(SnapshotFormat.MAGIC);
+            out.writeShort(SnapshotFormat.VERSION);
+
+            out.writeByte(SnapshotFormat.tagOf(RecordType.HEADER));
+            out.writeDouble(portfolio.getCash());
+
+            for (AssetPosition position : portfolio.getPositions()) {
+                block.reset();
+                encodeAsset(block, position);
+                if (block.length > SnapshotFormat.MAX_BLOCK_LENGTH) {
+                    throw new IllegalStateException("Blok ASSET przekracza maksymalny rozmiar migawki: "
+                            + position.getAsset().getSymbol());
+                }
+
+                crc.reset();
+                crc.update(block.bytes, 0, block.length);
+
+                out.writeByte(SnapshotFormat.tagOf(RecordType.ASSET));
+                out.writeInt(block.length);
+                out.write(block.bytes, 0, block.length);
+                out.writeInt((int) crc.getValue());
+                blocks++;
+            }
+
+            out.writeByte(SnapshotFormat.TAG_END);
+            out.writeInt(blocks);
+        }
+    }
+
+    private void encodeAsset(SnapshotFormat.Encoder block, AssetPosition position) {
+        Asset asset = position.getAsset();
+        if (asset == null) {
+            throw new DataIntegrityException("Pozycja zawiera null Asset.");
+        }
+
+        int declaredQuantity = position.getTotalQuantity();
+        if (declaredQuantity < 0) {
+            throw new DataIntegrityException("Ujemna ilość w pozycji: " + asset.getSymbol());
+        }
+
+        AssetType type = AssetType.of(asset);
+        double extra = switch (type) {
+            case SHARE -> 0;
+            case CURRENCY -> ((Currency) asset).getSpread();
+            case COMMODITY -> ((Commodity) asset).getStorageCostPerUnitPerDay();
+        };
+
+        // getLots() jest już w kolejności FIFO: jedno przejście liczy partie i sprawdza ceny
+        boolean fixed = SnapshotFormat.fitsFixed(asset.getBasePrice()) && SnapshotFormat.fitsFixed(extra);
+        int lotCount = 0;
+        for (PurchaseLot lot : position.getLots()) {
+            if (lot == null) {
+                throw new DataIntegrityException("Null LOT w pozycji: " + asset.getSymbol());
+            }
+            if (lot.getQuantity() > 0) {
+                lotCount++;
+                fixed = fixed && SnapshotFormat.fitsFixed(lot.getUnitPrice());
+            }
+        }
+
+        block.writeByte(SnapshotFormat.assetTypeCode(type));
+        block.writeBytes(asset.getSymbol().getBytes(StandardCharsets.US_ASCII));
+        block.writeBytes(asset.getName().getBytes(StandardCharsets.UTF_8));
+        block.writeByte(fixed ? SnapshotFormat.PRICES_FIXED : SnapshotFormat.PRICES_DOUBLE);
+        block.writePrice(asset.getBasePrice(), fixed);
+        if (type != AssetType.SHARE) {
+            block.writePrice(extra, fixed);
+        }
+        block.writeVarLong(declaredQuantity);
+        block.writeVarLong(lotCount);
+
+        // daty jako różnica dni epoki względem poprzedniej partii - w kolejności FIFO zwykle 1 bajt
+        long previousDay = 0;
+        for (PurchaseLot lot : position.getLots()) {
+            if (lot.getQuantity() <= 0) {
+                continue;
+            }
+            long epochDay = lot.getPurchaseDate().toEpochDay();
+            block.writeSignedVarLong(epochDay - previousDay);
+            previousDay = epochDay;
+            block.writeVarLong(lot.getQuantity());
+            block.writePrice(lot.getUnitPrice(), fixed);
+        }
+    }
+}
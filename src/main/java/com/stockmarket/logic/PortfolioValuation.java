@@ -0,0 +1,28 @@
+package com.stockmarket.logic;
+
+// bieżąca suma wartości pozycji portfela, aktualizowana przy każdej zmianie pozycji;
+// sumowanie z kompensacją (Neumaier), żeby miliony korekt nie kumulowały błędu zaokrągleń
+final class PortfolioValuation {
+
+    private double sum = 0.0;
+    private double compensation = 0.0;
+
+    void replace(double oldValue, double newValue) {
+        add(-oldValue);
+        add(newValue);
+    }
+
+    void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    double total() {
+        return sum + compensation;
+    }
+}
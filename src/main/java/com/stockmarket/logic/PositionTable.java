@@ -0,0 +1,81 @@
+package com.stockmarket.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// pozycje portfela po id symbolu: mała tablica z adresowaniem otwartym (bez
+// boksowania kluczy i haszowania napisów) plus lista w kolejności otwarcia do iteracji
+final class PositionTable {
+
+    private int[] keys = new int[16];
+    private AssetPosition[] values = new AssetPosition[16];
+    private final List<AssetPosition> inOrder = new ArrayList<>();
+
+    PositionTable() {
+        Arrays.fill(keys, -1);
+    }
+
+    AssetPosition get(int symbolId) {
+        if (symbolId < 0) {
+            return null;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(symbolId) & mask;
+        int key;
+        while ((key = keys[slot]) >= 0) {
+            if (key == symbolId) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(int symbolId, AssetPosition position) {
+        if ((inOrder.size() + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(symbolId, position);
+        inOrder.add(position);
+    }
+
+    int size() {
+        return inOrder.size();
+    }
+
+    List<AssetPosition> values() {
+        return Collections.unmodifiableList(inOrder);
+    }
+
+    private void insert(int symbolId, AssetPosition position) {
+        int mask = keys.length - 1;
+        int slot = hash(symbolId) & mask;
+        while (keys[slot] >= 0) {
+            if (keys[slot] == symbolId) {
+                throw new IllegalStateException("Pozycja już istnieje: " + symbolId);
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = symbolId;
+        values[slot] = position;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        AssetPosition[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new AssetPosition[oldValues.length * 2];
+        Arrays.fill(keys, -1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] >= 0) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        return key * 0x9E3779B9 >>> 16 ^ key;
+    }
+}
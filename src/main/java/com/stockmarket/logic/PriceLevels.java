@@ -0,0 +1,408 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+
+// jedna strona księgi: poziomy cenowe w liście z przeskokami (skip list) zapisanej
+// w tablicach, uporządkowanej od najlepszej ceny. Odczyt najlepszego poziomu to O(1),
+// jego zdjęcie - O(wysokości węzła) (średnio 4/3), a wstawienie i usunięcie poziomu
+// w głębi oczekiwane O(log P), bez przesuwania pozostałych poziomów. Zlecenie na cenie,
+// która już ma poziom (najczęstszy przypadek), znajduje go w tablicy haszującej cena ->
+// slot w O(1) - lista jest przeszukiwana tylko przy dodaniu i zdjęciu poziomu. Sloty
+// poziomów się nie przesuwają, więc zlecenie pamięta slot swojego poziomu (OrderPool.level)
+// i anulowanie, które poziomu nie opróżnia, nie szuka ceny.
+// Każdy poziom to kolejka FIFO uchwytów z OrderPool (head/tail + OrderPool.next)
+// z utrzymywaną na bieżąco łączną ilością (totals) - głębokość księgi bez przeglądania zleceń
+final class PriceLevels {
+
+    static final int NONE = -1;
+
+    // każde kolejne piętro z prawdopodobieństwem 1/4; 12 pięter wystarcza na miliony poziomów
+    private static final int MAX_HEIGHT = 12;
+
+    // węzeł to 16 intów (64 bajty): cena (górne i dolne 32 bity), wysokość, następniki na
+    // kolejnych piętrach - wyszukiwanie czyta jeden rekord na krok zamiast dwóch tablic
+    private static final int NODE_SHIFT = 4;
+    private static final int PRICE_HIGH = 0;
+    private static final int PRICE_LOW = 1;
+    private static final int HEIGHT = 2;
+    private static final int FORWARD = 4;
+
+    // slot 0 to głowa listy (bez ceny): jej następnik na piętrze 0 to najlepszy poziom
+    private static final int HEAD = 0;
+
+    // zmiana łącznej ilości poziomu; total == 0 - poziom zniknął
+    @FunctionalInterface
+    interface LevelListener {
+        void levelChanged(boolean bidSide, long price, long total);
+    }
+
+    private final boolean bidSide;
+
+    private int[] nodes = new int[16 << NODE_SHIFT];
+    int[] heads = new int[16];
+    int[] tails = new int[16];
+    long[] totals = new long[16];
+    // piętra używane przez głowę; wolne sloty tworzą łańcuch przez następnik na piętrze 0
+    private int height = 1;
+    private int slotsUsed = 1;
+    private int freeSlot = NONE;
+    int count = 0;
+
+    // cena -> slot poziomu: adresowanie otwarte z sondowaniem liniowym, cena i slot obok
+    // siebie ([2 * i] = cena, [2 * i + 1] = slot albo NONE), usuwanie przez cofanie wpisów
+    private long[] byPrice = emptyTable(16);
+    private int byPriceMask = 15;
+
+    // poprzednicy znalezieni przy wyszukiwaniu, na każdym piętrze
+    private final int[] update = new int[MAX_HEIGHT];
+    private long random = 0x9E3779B97F4A7C15L;
+
+    // null, gdy nikt nie słucha zmian poziomów - bez kosztu wywołań
+    LevelListener listener;
+
+    // zlecenia wsadu czekające na wstawienie, w kolejności przyjęcia; stagedBest to
+    // najlepsza z ich cen - dopóki zlecenie przeciwnej strony jej nie sięga,
+    // odłożone zlecenia nie mogłyby brać udziału w dopasowaniu
+    private long[] stagedPrices = new long[16];
+    private int[] stagedHandles = new int[16];
+    private int stagedCount = 0;
+    private long stagedBest;
+
+    PriceLevels(boolean bidSide) {
+        this.bidSide = bidSide;
+        for (int h = 0; h < MAX_HEIGHT; h++) {
+            setNext(HEAD, h, NONE);
+        }
+        nodes[HEIGHT] = MAX_HEIGHT;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    // najlepszy poziom i kolejne w głąb księgi; NONE za ostatnim
+    int bestLevel() {
+        return next(HEAD, 0);
+    }
+
+    int nextLevel(int level) {
+        return next(level, 0);
+    }
+
+    long priceOf(int level) {
+        int base = level << NODE_SHIFT;
+        return (long) nodes[base + PRICE_HIGH] << 32 | (nodes[base + PRICE_LOW] & 0xFFFFFFFFL);
+    }
+
+    long bestPrice() {
+        return priceOf(next(HEAD, 0));
+    }
+
+    int bestHead() {
+        return heads[next(HEAD, 0)];
+    }
+
+    void setBestHead(int handle, OrderPool pool) {
+        heads[next(HEAD, 0)] = handle;
+        pool.prev[handle] = OrderPool.NONE;
+    }
+
+    void removeBest() {
+        int best = next(HEAD, 0);
+        for (int h = nodes[(best << NODE_SHIFT) + HEIGHT] - 1; h >= 0; h--) {
+            setNext(HEAD, h, next(best, h));
+        }
+        unindex(priceOf(best));
+        release(best);
+        publish(priceOf(best), 0);
+    }
+
+    // dopasowanie zdjęło `traded` sztuk z najlepszego poziomu, który nie opustoszał
+    void reduceBest(long traded) {
+        int best = next(HEAD, 0);
+        totals[best] -= traded;
+        publish(priceOf(best), totals[best]);
+    }
+
+    // zmiana ilości zlecenia w miejscu (bez zmiany kolejki)
+    void adjust(int level, long delta) {
+        totals[level] += delta;
+        publish(priceOf(level), totals[level]);
+    }
+
+    void append(long price, int handle, OrderPool pool) {
+        int level = levelFor(price);
+        link(level, handle, pool);
+        publish(price, totals[level]);
+    }
+
+    // do `max` najlepszych poziomów (od najlepszego) do tablic; zwraca liczbę skopiowanych
+    int copyTop(int max, long[] levelPrices, long[] levelTotals) {
+        int n = 0;
+        for (int level = next(HEAD, 0); level != NONE && n < max; level = next(level, 0)) {
+            levelPrices[n] = priceOf(level);
+            levelTotals[n] = totals[level];
+            n++;
+        }
+        return n;
+    }
+
+    private void publish(long price, long total) {
+        if (listener != null) {
+            listener.levelChanged(bidSide, price, total);
+        }
+    }
+
+    // wypina zlecenie z kolejki jego poziomu w O(1); pusty poziom znika
+    // (najlepszy w O(1), głębszy w oczekiwanym O(log P))
+    void unlink(int handle, OrderPool pool) {
+        int level = pool.level[handle];
+        int before = pool.prev[handle];
+        int after = pool.next[handle];
+        if (before == OrderPool.NONE) {
+            heads[level] = after;
+        } else {
+            pool.next[before] = after;
+        }
+        if (after == OrderPool.NONE) {
+            tails[level] = before;
+        } else {
+            pool.prev[after] = before;
+        }
+        long price = priceOf(level);
+        if (heads[level] == OrderPool.NONE) {
+            if (level == next(HEAD, 0)) {
+                removeBest();
+            } else {
+                removeLevel(level);
+                publish(price, 0);
+            }
+        } else {
+            totals[level] -= pool.remaining[handle];
+            publish(price, totals[level]);
+        }
+    }
+
+    void stage(long price, int handle) {
+        if (stagedCount == stagedPrices.length) {
+            stagedPrices = Arrays.copyOf(stagedPrices, stagedCount * 2);
+            stagedHandles = Arrays.copyOf(stagedHandles, stagedCount * 2);
+        }
+        if (stagedCount == 0 || better(price, stagedBest)) {
+            stagedBest = price;
+        }
+        stagedPrices[stagedCount] = price;
+        stagedHandles[stagedCount] = handle;
+        stagedCount++;
+    }
+
+    // czy zlecenie przeciwnej strony z tym limitem dosięgnęłoby któregoś z odłożonych
+    boolean stagedReaches(long limit) {
+        return stagedCount > 0 && (bidSide ? stagedBest >= limit : stagedBest <= limit);
+    }
+
+    // wstawia odłożone zlecenia w kolejności przyjęcia, więc w obrębie ceny zostaje FIFO;
+    // kolejne zlecenia z tą samą ceną trafiają do już znalezionego poziomu bez wyszukiwania
+    void mergeStaged(OrderPool pool) {
+        int staged = stagedCount;
+        stagedCount = 0;
+        int level = NONE;
+        for (int i = 0; i < staged; i++) {
+            long price = stagedPrices[i];
+            if (level == NONE || priceOf(level) != price) {
+                level = levelFor(price);
+            }
+            link(level, stagedHandles[i], pool);
+            publish(price, totals[level]);
+        }
+    }
+
+    private void link(int level, int handle, OrderPool pool) {
+        if (heads[level] == OrderPool.NONE) {
+            heads[level] = handle;
+        } else {
+            pool.next[tails[level]] = handle;
+            pool.prev[handle] = tails[level];
+        }
+        tails[level] = handle;
+        totals[level] += pool.remaining[handle];
+        pool.level[handle] = level;
+    }
+
+    // slot poziomu o tej cenie; brakujący poziom (z pustą kolejką) wstawiany do listy
+    private int levelFor(long price) {
+        int existing = find(price);
+        if (existing != NONE) {
+            return existing;
+        }
+        int node = HEAD;
+        for (int h = height - 1; h >= 0; h--) {
+            int next;
+            while ((next = next(node, h)) != NONE && better(priceOf(next), price)) {
+                node = next;
+            }
+            update[h] = node;
+        }
+
+        int level = allocate();
+        int levelHeight = randomHeight();
+        for (; height < levelHeight; height++) {
+            update[height] = HEAD;
+        }
+        for (int h = 0; h < levelHeight; h++) {
+            setNext(level, h, next(update[h], h));
+            setNext(update[h], h, level);
+        }
+        int base = level << NODE_SHIFT;
+        nodes[base + PRICE_HIGH] = (int) (price >>> 32);
+        nodes[base + PRICE_LOW] = (int) price;
+        nodes[base + HEIGHT] = levelHeight;
+        heads[level] = OrderPool.NONE;
+        tails[level] = OrderPool.NONE;
+        totals[level] = 0;
+        count++;
+        index(price, level);
+        return level;
+    }
+
+    // wypięcie poziomu spoza czoła: poprzednicy na każdym piętrze wyszukiwani po cenie
+    private void removeLevel(int level) {
+        long price = priceOf(level);
+        int node = HEAD;
+        for (int h = height - 1; h >= 0; h--) {
+            int next;
+            while ((next = next(node, h)) != NONE && better(priceOf(next), price)) {
+                node = next;
+            }
+            if (next == level) {
+                setNext(node, h, next(level, h));
+            }
+        }
+        unindex(price);
+        release(level);
+    }
+
+    private int find(long price) {
+        for (int i = hash(price) & byPriceMask; byPrice[2 * i + 1] != NONE; i = (i + 1) & byPriceMask) {
+            if (byPrice[2 * i] == price) {
+                return (int) byPrice[2 * i + 1];
+            }
+        }
+        return NONE;
+    }
+
+    // ceny nie ma jeszcze w tablicy - levelFor dodaje poziom dopiero po nieudanym find
+    private void index(long price, int level) {
+        if (count * 2 > byPriceMask + 1) {
+            rehash((byPriceMask + 1) * 2);
+        }
+        int i = hash(price) & byPriceMask;
+        while (byPrice[2 * i + 1] != NONE) {
+            i = (i + 1) & byPriceMask;
+        }
+        byPrice[2 * i] = price;
+        byPrice[2 * i + 1] = level;
+    }
+
+    private void unindex(long price) {
+        int hole = hash(price) & byPriceMask;
+        while (byPrice[2 * hole] != price) {
+            hole = (hole + 1) & byPriceMask;
+        }
+        int next = (hole + 1) & byPriceMask;
+        while (byPrice[2 * next + 1] != NONE) {
+            int home = hash(byPrice[2 * next]) & byPriceMask;
+            // wpis można przesunąć do dziury, jeśli jego miejsce docelowe nie leży w (hole, next]
+            if (((next - home) & byPriceMask) >= ((next - hole) & byPriceMask)) {
+                byPrice[2 * hole] = byPrice[2 * next];
+                byPrice[2 * hole + 1] = byPrice[2 * next + 1];
+                hole = next;
+            }
+            next = (next + 1) & byPriceMask;
+        }
+        byPrice[2 * hole + 1] = NONE;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = byPrice;
+        byPrice = emptyTable(capacity);
+        byPriceMask = capacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i + 1] != NONE) {
+                int slot = hash(old[i]) & byPriceMask;
+                while (byPrice[2 * slot + 1] != NONE) {
+                    slot = (slot + 1) & byPriceMask;
+                }
+                byPrice[2 * slot] = old[i];
+                byPrice[2 * slot + 1] = old[i + 1];
+            }
+        }
+    }
+
+    private static long[] emptyTable(int capacity) {
+        long[] table = new long[2 * capacity];
+        for (int i = 1; i < table.length; i += 2) {
+            table[i] = NONE;
+        }
+        return table;
+    }
+
+    private static int hash(long price) {
+        long h = price * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int next(int node, int h) {
+        return nodes[(node << NODE_SHIFT) + FORWARD + h];
+    }
+
+    private void setNext(int node, int h, int next) {
+        nodes[(node << NODE_SHIFT) + FORWARD + h] = next;
+    }
+
+    private int allocate() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next(slot, 0);
+            return slot;
+        }
+        if (slotsUsed == heads.length) {
+            grow();
+        }
+        return slotsUsed++;
+    }
+
+    // cena i suma zwolnionego slotu zostają do publikacji zniknięcia poziomu
+    private void release(int level) {
+        setNext(level, 0, freeSlot);
+        freeSlot = level;
+        count--;
+        while (height > 1 && next(HEAD, height - 1) == NONE) {
+            height--;
+        }
+    }
+
+    // 1 + liczba par zerowych najmłodszych bitów: piętro k z prawdopodobieństwem 4^-(k-1);
+    // xorshift z ustalonym ziarnem - ten sam przebieg daje ten sam kształt listy
+    private int randomHeight() {
+        long x = random;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        random = x;
+        return Math.min(MAX_HEIGHT, 1 + Long.numberOfTrailingZeros(x | 1L << 62) / 2);
+    }
+
+    // cena a jest lepsza od b (bliżej czoła księgi)
+    private boolean better(long a, long b) {
+        return bidSide ? a > b : a < b;
+    }
+
+    private void grow() {
+        int capacity = heads.length * 2;
+        nodes = Arrays.copyOf(nodes, capacity << NODE_SHIFT);
+        heads = Arrays.copyOf(heads, capacity);
+        tails = Arrays.copyOf(tails, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+    }
+}
@@ -0,0 +1,25 @@
+package com.stockmarket.logic;
+
+public final class PriceTicks {
+
+    // stałoprzecinkowa reprezentacja cen: 1 tick = 0.0001
+    public static final long TICKS_PER_UNIT = 10_000L;
+
+    private PriceTicks() {
+    }
+
+    public static long toTicks(double price) {
+        if (!(price > 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("Cena musi być dodatnia.");
+        }
+        long ticks = Math.round(price * TICKS_PER_UNIT);
+        if (ticks <= 0) {
+            throw new IllegalArgumentException("Cena mniejsza niż minimalny krok notowań: " + price);
+        }
+        return ticks;
+    }
+
+    public static double toPrice(long ticks) {
+        return (double) ticks / TICKS_PER_UNIT;
+    }
+}
@@ -7,6 +7,9 @@ public class PurchaseLot {
     private int quantity;
     private final double unitPrice;
 
+    // magazyn pozycji, do której partia należy - śledzi sumy kosztu przy zmianie ilości
+    LotStore owner;
+
     public PurchaseLot(LocalDate purchaseDate, int quantity, double unitPrice) {
         if (purchaseDate == null) {
             throw new IllegalArgumentException("Data zakupu nie może być null.");
@@ -22,6 +25,14 @@ public class PurchaseLot {
         this.unitPrice = unitPrice;
     }
 
+    // bez walidacji: widoki na partie w ColumnarLotStore (nadpisują gettery)
+    // i kopie partii już zdjętych z kolejki, które mogą mieć ilość 0
+    PurchaseLot(LocalDate purchaseDate, int quantity, double unitPrice, boolean unchecked) {
+        this.purchaseDate = purchaseDate;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
     public LocalDate getPurchaseDate() { return purchaseDate; }
     public int getQuantity() { return quantity; }
     public double getUnitPrice() { return unitPrice; }
@@ -30,5 +41,8 @@ public class PurchaseLot {
         if (amount <= 0) throw new IllegalArgumentException("Zmniejszenie musi być dodatnie.");
         if (amount > quantity) throw new IllegalArgumentException("Nie można zmniejszyć poniżej zera.");
         quantity -= amount;
+        if (owner != null) {
+            owner.track(-amount, unitPrice);
+        }
     }
 }
\ No newline at end of file
@@ -1,26 +1,102 @@
 package com.stockmarket.logic;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
+// zamknięcia partii trzymane w tablicach prymitywów; LotClosure powstaje dopiero
+// przy odczycie przez getClosures(). Wynik bez szczegółów (summary) liczy tylko sumy.
 public class SellResult {
 
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final boolean detailed;
+
     private double totalProfit;
-    private final List<LotClosure> closures = new ArrayList<>();
+    private int quantitySold;
+    private int closureCount;
+
+    private long[] epochDays;
+    private int[] quantities;
+    private double[] profits;
+
+    public SellResult() {
+        this(true);
+    }
+
+    SellResult(boolean detailed) {
+        this.detailed = detailed;
+        if (detailed) {
+            epochDays = new long[8];
+            quantities = new int[8];
+            profits = new double[8];
+        }
+    }
 
     public void addClosure(LotClosure closure) {
         if (closure == null) {
             throw new IllegalArgumentException("LotClosure nie może być null.");
         }
-        closures.add(closure);
-        totalProfit += closure.getProfit();
+        LocalDate date = closure.getPurchaseDate();
+        record(date == null ? NO_DATE : date.toEpochDay(), closure.getQuantitySold(), closure.getProfit());
+    }
+
+    void record(long epochDay, int quantity, double profit) {
+        if (detailed) {
+            if (closureCount == epochDays.length) {
+                int capacity = closureCount * 2;
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                profits = Arrays.copyOf(profits, capacity);
+            }
+            epochDays[closureCount] = epochDay;
+            quantities[closureCount] = quantity;
+            profits[closureCount] = profit;
+        }
+        closureCount++;
+        quantitySold += quantity;
+        totalProfit += profit;
     }
 
     public double getTotalProfit() {
         return totalProfit;
     }
 
+    public int getQuantitySold() {
+        return quantitySold;
+    }
+
+    // liczba zamkniętych (w całości lub części) partii - także bez szczegółów
+    public int getClosureCount() {
+        return closureCount;
+    }
+
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    // widok tylko do odczytu; pusty dla wyniku bez szczegółów
     public List<LotClosure> getClosures() {
-        return List.copyOf(closures);
+        if (!detailed) {
+            return List.of();
+        }
+        int size = closureCount;
+        return new AbstractList<>() {
+            @Override
+            public LotClosure get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                long day = epochDays[index];
+                return new LotClosure(day == NO_DATE ? null : LocalDate.ofEpochDay(day),
+                        quantities[index], profits[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package com.stockmarket.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardedMatchingEngine implements AutoCloseable {
+
+    private static final byte SIDE_BUY = 0;
+    private static final byte SIDE_SELL = 1;
+
+    private final Shard[] shards;
+    private final FillListener listener;
+
+    private volatile boolean running = true;
+
+    public ShardedMatchingEngine(int shardCount, int ringCapacity, FillListener listener) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Liczba wątków dopasowujących musi być dodatnia.");
+        }
+        this.listener = listener;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, new OrderRingBuffer(ringCapacity));
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(int symbolId) {
+        return symbolId % shards.length;
+    }
+
+    // sekwencer: wywoływany z jednego wątku; nadaje numer sekwencyjny i przekazuje
+    // zlecenie do wątku, który jako jedyny modyfikuje księgę danego symbolu
+    public long submit(int symbolId, OrderType side, long priceTicks, int quantity) {
+        return submit(symbolId, side, priceTicks, quantity, Order.nextSequence());
+    }
+
+    // zlecenie ma już numer sekwencyjny - trafia do księgi pod nim, więc można je potem
+    // anulować po order.getSequence()
+    public long submit(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null.");
+        }
+        return submit(order.getSymbolId(), order.getType(), order.getLimitPriceTicks(), order.getQuantity(),
+                order.getSequence());
+    }
+
+    private long submit(int symbolId, OrderType side, long priceTicks, int quantity, long sequence) {
+        if (!running) {
+            throw new IllegalStateException("Silnik został zamknięty.");
+        }
+        if (side == null) {
+            throw new IllegalArgumentException("Typ zlecenia nie może być null.");
+        }
+        if (quantity <= 0 || priceTicks <= 0) {
+            throw new IllegalArgumentException("Niepoprawne dane zlecenia.");
+        }
+        if (symbolId < 0) {
+            throw new IllegalArgumentException("Nieznany identyfikator symbolu: " + symbolId);
+        }
+
+        shards[shardOf(symbolId)].ring.publish(
+                symbolId, side == OrderType.BUY ? SIDE_BUY : SIDE_SELL, priceTicks, quantity, sequence);
+        return sequence;
+    }
+
+    public void awaitIdle() {
+        for (Shard shard : shards) {
+            int idle = 0;
+            while (shard.ring.consumedTo() < shard.ring.availableTo()) {
+                if (!shard.thread.isAlive()) {
+                    throw new IllegalStateException("Wątek dopasowujący zakończył działanie.");
+                }
+                idle = OrderRingBuffer.backOff(idle);
+            }
+        }
+    }
+
+    // odczyt księgi jest bezpieczny dopiero po awaitIdle() - księgę modyfikuje wątek shardu
+    public OrderBook getBook(int symbolId) {
+        return shards[shardOf(symbolId)].engine.getBook(symbolId);
+    }
+
+    public List<OrderBook> getBooks() {
+        List<OrderBook> result = new ArrayList<>();
+        for (Shard shard : shards) {
+            result.addAll(shard.engine.getBooks());
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        awaitIdle();
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final OrderRingBuffer ring;
+        private final MatchingEngine engine = new MatchingEngine();
+        private final Thread thread;
+
+        private Shard(int index, OrderRingBuffer ring) {
+            this.ring = ring;
+            this.thread = new Thread(this, "matching-shard-" + index);
+            this.thread.setDaemon(true);
+            ring.setConsumer(thread);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int idle = 0;
+
+            while (true) {
+                long available = ring.availableTo();
+                if (next == available) {
+                    if (!running) {
+                        return;
+                    }
+                    idle = OrderRingBuffer.backOff(idle);
+                    continue;
+                }
+                idle = 0;
+
+                // przetwarzanie wsadowe: jeden odczyt kursora na wiele zdarzeń
+                while (next < available) {
+                    int slot = ring.slot(next);
+                    engine.bookFor(ring.symbolIds[slot]).submit(
+                            ring.sides[slot] == SIDE_BUY ? OrderType.BUY : OrderType.SELL,
+                            ring.priceTicks[slot],
+                            ring.quantities[slot],
+                            ring.sequences[slot],
+                            listener);
+                    next++;
+                }
+                ring.markConsumed(next);
+            }
+        }
+    }
+}
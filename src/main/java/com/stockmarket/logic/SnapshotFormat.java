@@ -0,0 +1,202 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+
+// wspólne stałe i kodowanie binarnego formatu migawki portfela (wersja 1):
+//
+//   "PFSN" u16:wersja
+//   HEADER  f64:gotówka
+//   ASSET   i32:długość  [typ, symbol, nazwa, kodowanie cen, cena, (spread|koszt magazynu),
+//                         ilość, liczba LOT, LOT*: Δdzień-epoki, ilość, cena]  i32:crc32c
+//   END     i32:liczba bloków ASSET
+//
+// liczby całkowite jako varint (zigzag dla wartości ze znakiem), ceny stałoprzecinkowe
+// z 8 miejscami po przecinku, a gdy któraś cena w bloku nie da się tak zapisać
+// bez straty - cały blok zapisuje surowe double
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'P', 'F', 'S', 'N'};
+    static final int VERSION = 1;
+
+    static final byte TAG_END = (byte) 0xFF;
+
+    static final byte PRICES_FIXED = 0;
+    static final byte PRICES_DOUBLE = 1;
+
+    static final double PRICE_SCALE = 100_000_000d;
+
+    // górna granica długości bloku ASSET; czytnik odrzuca większe, zanim zaalokuje
+    // bufor, więc uszkodzone pole długości nie kończy się OutOfMemoryError
+    static final int MAX_BLOCK_LENGTH = 1 << 28;
+    // TAG_END i liczba bloków
+    static final int END_LENGTH = 1 + Integer.BYTES;
+    private static final double MAX_FIXED_PRICE = 9.0e10;
+
+    private SnapshotFormat() {
+    }
+
+    static byte tagOf(RecordType type) {
+        return switch (type) {
+            case HEADER -> 1;
+            case ASSET -> 2;
+            case LOT -> 3;
+        };
+    }
+
+    static byte assetTypeCode(AssetType type) {
+        return switch (type) {
+            case SHARE -> 1;
+            case CURRENCY -> 2;
+            case COMMODITY -> 3;
+        };
+    }
+
+    static AssetType assetTypeOf(byte code) {
+        return switch (code) {
+            case 1 -> AssetType.SHARE;
+            case 2 -> AssetType.CURRENCY;
+            case 3 -> AssetType.COMMODITY;
+            default -> throw new DataIntegrityException("Nieznany typ aktywa w migawce: " + code);
+        };
+    }
+
+    static boolean fitsFixed(double price) {
+        if (!(price >= 0) || price > MAX_FIXED_PRICE) {
+            return false;
+        }
+        return Math.round(price * PRICE_SCALE) / PRICE_SCALE == price;
+    }
+
+    // bufor bajtów z zapisem varint, używany do budowy pojedynczego bloku
+    static final class Encoder {
+        byte[] bytes = new byte[256];
+        int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writePrice(double price, boolean fixed) {
+            if (fixed) {
+                writeVarLong(Math.round(price * PRICE_SCALE));
+            } else {
+                writeDouble(price);
+            }
+        }
+
+        void writeRaw(byte[] source, int offset, int count) {
+            ensure(count);
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+    }
+
+    // odczyt varint z bloku wczytanego do tablicy; wyjście poza blok = uszkodzony plik
+    static final class Decoder {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        Decoder(byte[] bytes, int limit) {
+            this.bytes = bytes;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        byte readByte() {
+            if (position >= limit) {
+                throw new DataIntegrityException("Uszkodzony blok migawki.");
+            }
+            return bytes[position++];
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new DataIntegrityException("Uszkodzony varint w migawce.");
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new DataIntegrityException("Wartość poza zakresem w migawce: " + value);
+            }
+            return (int) value;
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        double readPrice(boolean fixed) {
+            return fixed ? readVarLong() / PRICE_SCALE : readDouble();
+        }
+
+        byte[] readBytes() {
+            int count = readVarInt();
+            if (count > limit - position) {
+                throw new DataIntegrityException("Uszkodzony blok migawki.");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + count);
+            position += count;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// dziennik zapisu z wyprzedzeniem (WAL) operacji na portfelu.
+// rekord: i32:długość i32:crc32c [varint:lsn, typ, dane]
+// zapis odbywa się w tle: wątek zapisujący zrzuca wszystko, co zebrało się od
+// poprzedniego fsync, jednym write + force (group commit)
+public class TransactionJournal implements AutoCloseable {
+
+    static final byte BUY = 1;
+    static final byte SELL = 2;
+    static final byte ORDER = 3;
+
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path path;
+    private final Object lock = new Object();
+    private final Object ioLock = new Object();
+
+    private FileChannel channel;
+
+    private SnapshotFormat.Encoder pending = new SnapshotFormat.Encoder();
+    private SnapshotFormat.Encoder flushing = new SnapshotFormat.Encoder();
+    private final SnapshotFormat.Encoder payload = new SnapshotFormat.Encoder();
+    private final CRC32C crc = new CRC32C();
+
+    private long lastLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean closed = false;
+
+    private final Thread flusher;
+
+    public TransactionJournal(Path path, long lastLsn) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Ścieżka nie może być null.");
+        }
+        if (lastLsn < 0) {
+            throw new IllegalArgumentException("LSN nie może być ujemny.");
+        }
+        this.path = path;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public long appendBuy(Asset asset, int quantity, LocalDate purchaseDate) throws IOException {
+        AssetType type = AssetType.of(asset);
+        synchronized (lock) {
+            payload.reset();
+            payload.writeByte(SnapshotFormat.assetTypeCode(type));
+            payload.writeBytes(asset.getSymbol().getBytes(StandardCharsets.US_ASCII));
+            payload.writeBytes(asset.getName().getBytes(StandardCharsets.UTF_8));
+            payload.writeDouble(asset.getBasePrice());
+            switch (type) {
+                case CURRENCY -> payload.writeDouble(((Currency) asset).getSpread());
+                case COMMODITY -> payload.writeDouble(((Commodity) asset).getStorageCostPerUnitPerDay());
+                case SHARE -> { }
+            }
+            payload.writeVarLong(quantity);
+            payload.writeSignedVarLong(purchaseDate.toEpochDay());
+            return appendLocked(BUY);
+        }
+    }
+
+    public long appendSell(String symbol, int quantity, double sellPrice) throws IOException {
+        synchronized (lock) {
+            payload.reset();
+            payload.writeBytes(symbol.getBytes(StandardCharsets.UTF_8));
+            payload.writeVarLong(quantity);
+            payload.writeDouble(sellPrice);
+            return appendLocked(SELL);
+        }
+    }
+
+    public long appendOrder(Order order) throws IOException {
+        synchronized (lock) {
+            encodeOrder(payload, order.getSymbol(), order.getType(), order.getQuantity(), order.getLimitPrice());
+            return appendLocked(ORDER);
+        }
+    }
+
+    private static void encodeOrder(SnapshotFormat.Encoder target, String symbol, OrderType side,
+                                    int quantity, double limitPrice) {
+        target.reset();
+        target.writeBytes(symbol.getBytes(StandardCharsets.UTF_8));
+        target.writeByte(side == OrderType.BUY ? 0 : 1);
+        target.writeVarLong(quantity);
+        target.writeDouble(limitPrice);
+    }
+
+    private long appendLocked(byte type) throws IOException {
+        if (failure != null) {
+            throw new IOException("Dziennik transakcji jest niesprawny.", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Dziennik transakcji został zamknięty.");
+        }
+
+        long lsn = lastLsn + 1;
+        writeRecord(pending, lsn, type, payload);
+        lastLsn = lsn;
+        lock.notifyAll();
+        return lsn;
+    }
+
+    private void writeRecord(SnapshotFormat.Encoder target, long lsn, byte type, SnapshotFormat.Encoder data) {
+        int start = target.length;
+        for (int i = 0; i < RECORD_HEADER; i++) {
+            target.writeByte(0);
+        }
+        target.writeVarLong(lsn);
+        target.writeByte(type);
+        target.writeRaw(data.bytes, 0, data.length);
+
+        int bodyLength = target.length - start - RECORD_HEADER;
+        crc.reset();
+        crc.update(target.bytes, start + RECORD_HEADER, bodyLength);
+        putInt(target.bytes, start, bodyLength);
+        putInt(target.bytes, start + 4, (int) crc.getValue());
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    public void awaitDurable(long lsn) throws IOException {
+        synchronized (lock) {
+            while (durableLsn < lsn && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Przerwano oczekiwanie na zapis dziennika.", e);
+                }
+            }
+            if (durableLsn < lsn) {
+                throw new IOException("Zapis dziennika transakcji nie powiódł się.", failure);
+            }
+        }
+    }
+
+    public void sync() throws IOException {
+        long target;
+        synchronized (lock) {
+            target = lastLsn;
+        }
+        awaitDurable(target);
+    }
+
+    public long getLastLsn() {
+        synchronized (lock) {
+            return lastLsn;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            synchronized (lock) {
+                while (pending.length == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.length == 0) {
+                    return;
+                }
+                SnapshotFormat.Encoder batch = pending;
+                pending = flushing;
+                flushing = batch;
+                target = lastLsn;
+            }
+
+            try {
+                synchronized (ioLock) {
+                    ByteBuffer buffer = ByteBuffer.wrap(flushing.bytes, 0, flushing.length);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            flushing.reset();
+            synchronized (lock) {
+                durableLsn = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // zastępuje zawartość dziennika podanymi zleceniami (kompakcja po punkcie kontrolnym);
+    // wywołujący gwarantuje, że w tym czasie nic nie jest dopisywane
+    void rewriteWithOrders(List<RestingOrderRecord> orders) throws IOException {
+        sync();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        SnapshotFormat.Encoder records = new SnapshotFormat.Encoder();
+        SnapshotFormat.Encoder data = new SnapshotFormat.Encoder();
+
+        synchronized (lock) {
+            long lsn = lastLsn;
+            for (RestingOrderRecord order : orders) {
+                encodeOrder(data, order.symbol, order.side, order.quantity, order.limitPrice);
+                writeRecord(records, ++lsn, ORDER, data);
+            }
+
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(records.bytes, 0, records.length);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+
+            synchronized (ioLock) {
+                channel.close();
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            forceDirectory(path.toAbsolutePath().getParent());
+
+            lastLsn = lsn;
+            durableLsn = lsn;
+        }
+    }
+
+    // zmiana nazwy pliku jest trwała dopiero po fsync katalogu, w którym leży; Windows
+    // nie pozwala otworzyć katalogu jako kanału, więc tam krok jest pomijany
+    static void forceDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            channel.close();
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IOException("Zapis dziennika transakcji nie powiódł się.", failure);
+            }
+        }
+    }
+
+    // odtwarza poprawne rekordy dziennika; uszkodzony lub urwany ogon (np. po awarii
+    // w trakcie zapisu) jest obcinany. Zwraca LSN ostatniego poprawnego rekordu.
+    public static long replay(Path path, Replay target) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        long lastLsn = 0;
+        long validEnd = 0;
+
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            byte[] body = new byte[256];
+            CRC32C checksum = new CRC32C();
+
+            while (validEnd + RECORD_HEADER <= size) {
+                header.clear();
+                if (readFully(in, header, validEnd) < RECORD_HEADER) {
+                    break;
+                }
+                int length = header.getInt(0);
+                int expectedCrc = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_SIZE || validEnd + RECORD_HEADER + length > size) {
+                    break;
+                }
+
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                ByteBuffer bodyBuffer = ByteBuffer.wrap(body, 0, length);
+                if (readFully(in, bodyBuffer, validEnd + RECORD_HEADER) < length) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(body, 0, length);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break;
+                }
+
+                lastLsn = dispatch(new SnapshotFormat.Decoder(body, length), target);
+                validEnd += RECORD_HEADER + length;
+            }
+
+            if (validEnd < size) {
+                in.truncate(validEnd);
+                in.force(true);
+            }
+        }
+        return lastLsn;
+    }
+
+    private static int readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static long dispatch(SnapshotFormat.Decoder record, Replay target) {
+        long lsn = record.readVarLong();
+        byte type = record.readByte();
+
+        switch (type) {
+            case BUY -> {
+                AssetType assetType = SnapshotFormat.assetTypeOf(record.readByte());
+                String symbol = new String(record.readBytes(), StandardCharsets.US_ASCII);
+                String name = new String(record.readBytes(), StandardCharsets.UTF_8);
+                double price = record.readDouble();
+                Asset asset = switch (assetType) {
+                    case SHARE -> new Share(symbol, name, price);
+                    case CURRENCY -> new Currency(symbol, name, price, record.readDouble());
+                    case COMMODITY -> new Commodity(symbol, name, price, record.readDouble());
+                };
+                int quantity = record.readVarInt();
+                LocalDate date = LocalDate.ofEpochDay(record.readSignedVarLong());
+                target.buy(lsn, asset, quantity, date);
+            }
+            case SELL -> {
+                String symbol = new String(record.readBytes(), StandardCharsets.UTF_8);
+                int quantity = record.readVarInt();
+                target.sell(lsn, symbol, quantity, record.readDouble());
+            }
+            case ORDER -> {
+                String symbol = new String(record.readBytes(), StandardCharsets.UTF_8);
+                OrderType side = record.readByte() == 0 ? OrderType.BUY : OrderType.SELL;
+                int quantity = record.readVarInt();
+                target.order(lsn, new Order(symbol, side, quantity, record.readDouble()));
+            }
+            default -> throw new DataIntegrityException("Nieznany rekord dziennika: " + type);
+        }
+        return lsn;
+    }
+
+    public interface Replay {
+        void buy(long lsn, Asset asset, int quantity, LocalDate purchaseDate);
+
+        void sell(long lsn, String symbol, int quantity, double sellPrice);
+
+        void order(long lsn, Order order);
+    }
+
+    static final class RestingOrderRecord {
+        private final String symbol;
+        private final OrderType side;
+        private final int quantity;
+        private final double limitPrice;
+
+        RestingOrderRecord(String symbol, OrderType side, int quantity, double limitPrice) {
+            this.symbol = symbol;
+            this.side = side;
+            this.quantity = quantity;
+            this.limitPrice = limitPrice;
+        }
+    }
+}
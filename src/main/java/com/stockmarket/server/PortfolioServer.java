@@ -0,0 +1,363 @@
+package com.stockmarket.server;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.AccountManager;
+import com.stockmarket.logic.AssetType;
+import com.stockmarket.logic.DataIntegrityException;
+import com.stockmarket.logic.Fill;
+import com.stockmarket.logic.InsufficientHoldingsException;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderType;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioReportGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// lokalny serwer HTTP nad AccountManager; każde żądanie na osobnym wątku (wirtualnym
+// na JDK 21+, zob. RequestExecutors), więc wątek może po prostu czekać na blokadę czy
+// gniazdo. Operacje na koncie pod blokadą konta z AccountManager, zlecenia pod blokadą
+// księgi symbolu - żądania do różnych kont i symboli nie czekają na siebie. Obie są
+// ReentrantLock, jak blokada konta (powód w AccountManager).
+// Parametry w zapytaniu URL, odpowiedzi tekstowe:
+//   POST /assets    type=SHARE|CURRENCY|COMMODITY&symbol=&name=&price=[&extra=]
+//   POST /accounts  cash=                                   -> id konta
+//   POST /buy       account=&symbol=&quantity=              -> gotówka po zakupie
+//   POST /sell      account=&symbol=&quantity=&price=       -> zysk
+//   POST /orders    account=&symbol=&side=BUY|SELL&quantity=&price=
+//                                                           -> sekwencja i transakcje
+//   POST /prices    symbol=&price=
+//   GET  /value     [account=]                              -> wartość konta albo firmy
+//   GET  /report    account=[&top=]
+// Błędne dane -> 400, operacja niewykonalna w obecnym stanie -> 409, inny błąd -> 500.
+public class PortfolioServer implements AutoCloseable {
+
+    private static final int BACKLOG = 1_024;
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final AccountManager manager;
+    private final PortfolioReportGenerator reports = new PortfolioReportGenerator();
+
+    // katalog aktywów, po których kupuje się przez symbol
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    // MarketData zakłada jeden wątek zasilający - ceny z żądań ustawiane po kolei
+    private final ReentrantLock priceLock = new ReentrantLock();
+
+    // id symbolu -> blokada jego księgi zleceń
+    private final Map<Integer, ReentrantLock> bookLocks = new ConcurrentHashMap<>();
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+
+    private PortfolioServer(InetSocketAddress address, AccountManager manager) throws IOException {
+        this.manager = manager;
+        this.http = HttpServer.create(address, BACKLOG);
+        this.executor = RequestExecutors.perTaskExecutor("portfolio-server");
+
+        route("/assets", "POST", this::addAsset);
+        route("/accounts", "POST", this::openAccount);
+        route("/buy", "POST", this::buy);
+        route("/sell", "POST", this::sell);
+        route("/orders", "POST", this::placeOrder);
+        route("/prices", "POST", this::setPrice);
+        route("/value", "GET", this::value);
+        route("/report", "GET", this::report);
+        http.setExecutor(executor);
+    }
+
+    public static PortfolioServer start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), new AccountManager());
+    }
+
+    public static PortfolioServer start(InetSocketAddress address, AccountManager manager) throws IOException {
+        if (address == null) {
+            throw new IllegalArgumentException("Adres nie może być null.");
+        }
+        if (manager == null) {
+            throw new IllegalArgumentException("AccountManager nie może być null.");
+        }
+        PortfolioServer server = new PortfolioServer(address, manager);
+        server.http.start();
+        return server;
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public AccountManager getAccountManager() {
+        return manager;
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    // wbudowany HttpServer wysyła nagłówki i ciało osobnymi zapisami; z algorytmem
+    // Nagle'a i opóźnionym ACK klienta każda krótka odpowiedź czekała ~40 ms. Właściwość
+    // dotyczy wszystkich HttpServer w JVM i jest czytana przy tworzeniu pierwszego z nich,
+    // więc ustawia ją tylko uruchomienie samodzielne - osadzając serwer w innym procesie,
+    // podaj -Dsun.net.httpserver.nodelay=true przy starcie JVM
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        PortfolioServer server = start(port);
+        System.out.println("Serwer portfeli na porcie " + server.getPort()
+                + (RequestExecutors.virtualThreadsAvailable() ? " (wątki wirtualne)" : " (wątki platformowe)"));
+    }
+
+    private String addAsset(Map<String, String> params) {
+        AssetType type = enumParam(AssetType.class, params, "type");
+        String symbol = required(params, "symbol");
+        String name = params.getOrDefault("name", symbol);
+        double price = doubleParam(params, "price");
+        Asset asset = switch (type) {
+            case SHARE -> new Share(symbol, name, price);
+            case CURRENCY -> new Currency(symbol, name, price, doubleParam(params, "extra"));
+            case COMMODITY -> new Commodity(symbol, name, price, doubleParam(params, "extra"));
+        };
+        assets.put(asset.getSymbol(), asset);
+        return asset.getSymbol();
+    }
+
+    private String openAccount(Map<String, String> params) {
+        return Integer.toString(manager.openAccount(doubleParam(params, "cash")));
+    }
+
+    private String buy(Map<String, String> params) {
+        int accountId = accountId(params);
+        Asset asset = asset(params);
+        int quantity = intParam(params, "quantity");
+        return withAccount(accountId, account -> {
+            account.buyAsset(asset, quantity);
+            return Double.toString(account.getCash());
+        });
+    }
+
+    private String sell(Map<String, String> params) {
+        int accountId = accountId(params);
+        String symbol = required(params, "symbol");
+        int quantity = intParam(params, "quantity");
+        double price = doubleParam(params, "price");
+        return withAccount(accountId,
+                account -> Double.toString(account.sellAssetFIFO(symbol, quantity, price, false).getTotalProfit()));
+    }
+
+    // zlecenie nie zmienia gotówki ani pozycji konta, więc wystarcza blokada księgi.
+    // Symbol tylko z katalogu aktywów - nieznany nie trafia do SymbolRegistry ani ksiąg
+    private String placeOrder(Map<String, String> params) {
+        Portfolio account = manager.getAccount(accountId(params));
+        Asset asset = asset(params);
+        Order order = new Order(asset.getSymbol(), enumParam(OrderType.class, params, "side"),
+                intParam(params, "quantity"), doubleParam(params, "price"));
+        ReentrantLock bookLock = bookLocks.computeIfAbsent(order.getSymbolId(), id -> new ReentrantLock());
+        List<Fill> fills;
+        bookLock.lock();
+        try {
+            fills = account.placeOrder(order);
+        } finally {
+            bookLock.unlock();
+        }
+
+        StringBuilder sb = new StringBuilder().append(order.getSequence()).append('\n');
+        for (Fill fill : fills) {
+            sb.append(fill.getBuyOrderSequence()).append(' ')
+                    .append(fill.getSellOrderSequence()).append(' ')
+                    .append(fill.getQuantity()).append(' ')
+                    .append(fill.getPrice()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String setPrice(Map<String, String> params) {
+        Asset asset = asset(params);
+        double price = doubleParam(params, "price");
+        priceLock.lock();
+        try {
+            manager.getMarketData().setPrice(asset.getSymbolId(), price);
+        } finally {
+            priceLock.unlock();
+        }
+        return asset.getSymbol();
+    }
+
+    private String value(Map<String, String> params) {
+        if (!params.containsKey("account")) {
+            return Double.toString(manager.calculateTotalValue());
+        }
+        return withAccount(accountId(params), account -> Double.toString(account.calculateTotalValue()));
+    }
+
+    // raport budowany pod blokadą konta, wysyłany już po jej zwolnieniu - wolny
+    // klient nie wstrzymuje innych operacji na koncie
+    private String report(Map<String, String> params) {
+        int accountId = accountId(params);
+        if (params.containsKey("top")) {
+            int limit = intParam(params, "top");
+            return withAccount(accountId, account -> reports.generateTopReport(account, limit));
+        }
+        return withAccount(accountId, reports::generateReport);
+    }
+
+    // sprawdza, że konto istnieje - nieznane konto to 400 przed innymi parametrami
+    private int accountId(Map<String, String> params) {
+        int accountId = intParam(params, "account");
+        manager.getAccount(accountId);
+        return accountId;
+    }
+
+    private String withAccount(int accountId, Function<Portfolio, String> operation) {
+        Portfolio account = manager.getAccount(accountId);
+        ReentrantLock lock = manager.getAccountLock(accountId);
+        lock.lock();
+        try {
+            return operation.apply(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Asset asset(Map<String, String> params) {
+        String symbol = required(params, "symbol").trim().toUpperCase();
+        Asset asset = assets.get(symbol);
+        if (asset == null) {
+            throw new IllegalArgumentException("Nieznane aktywo: " + symbol);
+        }
+        return asset;
+    }
+
+    private void route(String path, String method, Operation operation) {
+        http.createContext(path, exchange -> handle(exchange, path, method, operation));
+    }
+
+    private static void handle(HttpExchange exchange, String path, String method, Operation operation)
+            throws IOException {
+        try (exchange) {
+            drain(exchange.getRequestBody());
+            int status;
+            String body;
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                status = 404;
+                body = "Nieznana ścieżka: " + exchange.getRequestURI().getPath();
+            } else if (!exchange.getRequestMethod().equals(method)) {
+                status = 405;
+                body = "Dozwolona metoda: " + method;
+            } else {
+                try {
+                    body = operation.apply(parseQuery(exchange.getRequestURI().getRawQuery()));
+                    status = 200;
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    body = e.getMessage();
+                } catch (IllegalStateException | InsufficientHoldingsException e) {
+                    status = 409;
+                    body = e.getMessage();
+                } catch (DataIntegrityException e) {
+                    status = 500;
+                    body = e.getMessage();
+                } catch (RuntimeException e) {
+                    // bez odpowiedzi klient dostałby tylko zamknięte połączenie
+                    status = 500;
+                    body = "Błąd wewnętrzny: " + e;
+                }
+            }
+            send(exchange, status, body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body == null ? "" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // nieprzeczytane ciało blokowałoby ponowne użycie połączenia
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[512];
+        while (in.read(buffer) >= 0) {
+            // pomijamy - parametry są w zapytaniu
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Brak parametru: " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name) {
+        try {
+            return Integer.parseInt(required(params, name).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba w parametrze: " + name);
+        }
+    }
+
+    private static double doubleParam(Map<String, String> params, String name) {
+        try {
+            return Double.parseDouble(required(params, name).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba w parametrze: " + name);
+        }
+    }
+
+    private static <E extends Enum<E>> E enumParam(Class<E> type, Map<String, String> params, String name) {
+        try {
+            return Enum.valueOf(type, required(params, name).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Niepoprawna wartość parametru: " + name);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        String apply(Map<String, String> params);
+    }
+}
@@ -0,0 +1,46 @@
+package com.stockmarket.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// wykonawca "wątek na zadanie": na JDK 21+ wątki wirtualne - zablokowane na gnieździe
+// żądanie nie trzyma wątku systemowego, więc tysiące połączeń nie oznaczają tysięcy
+// wątków. Na starszym JDK pula wątków platformowych. Wybór w czasie działania,
+// więc projekt dalej kompiluje się pod Javą 17.
+public final class RequestExecutors {
+
+    private static final Method VIRTUAL_PER_TASK = findVirtualPerTask();
+
+    private RequestExecutors() {
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_PER_TASK != null;
+    }
+
+    public static ExecutorService perTaskExecutor(String threadName) {
+        if (VIRTUAL_PER_TASK != null) {
+            try {
+                return (ExecutorService) VIRTUAL_PER_TASK.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Nie można utworzyć wątków wirtualnych.", e);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, threadName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method findVirtualPerTask() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountManagerTest {
+
+    @Test
+    void accountsKeepSeparateCashAndPositionsButShareMarketPrices() {
+        AccountManager manager = new AccountManager();
+        Portfolio first = manager.getAccount(manager.openAccount(10_000));
+        Portfolio second = manager.getAccount(manager.openAccount(5_000));
+        Share share = new Share("ACM", "Acme", 10);
+
+        first.buyAsset(share, 100);
+
+        assertEquals(10_000 - share.calculatePurchaseCost(100), first.getCash(), 1e-9);
+        assertEquals(5_000, second.getCash());
+        assertNull(second.getPositionBySymbol("ACM"));
+
+        manager.getMarketData().setPrice("ACM", 12);
+        second.buyAsset(share, 10);
+
+        assertEquals(share.calculateRealValueAt(100, 12), first.calculateTotalAssetsRealValue(), 1e-9);
+        assertEquals(share.calculateRealValueAt(10, 12), second.calculateTotalAssetsRealValue(), 1e-9,
+                "Pozycja otwarta po cenie dostaje ją od razu");
+
+        manager.getMarketData().setPrice("ACM", 15);
+        assertEquals(share.calculateRealValueAt(100, 15), first.calculateTotalAssetsRealValue(), 1e-9);
+        assertEquals(share.calculateRealValueAt(10, 15), second.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void priceUpdateWaitsForTheAccountLock() throws Exception {
+        AccountManager manager = new AccountManager();
+        int id = manager.openAccount(10_000);
+        Portfolio account = manager.getAccount(id);
+        Share share = new Share("ACL", "Lock", 10);
+        account.buyAsset(share, 10);
+        double before = account.calculateTotalAssetsRealValue();
+
+        ReentrantLock lock = manager.getAccountLock(id);
+        Thread feed = new Thread(() -> manager.getMarketData().setPrice("ACL", 20));
+        lock.lock();
+        try {
+            feed.start();
+            while (!lock.hasQueuedThread(feed)) {
+                Thread.onSpinWait();
+            }
+            assertEquals(before, account.calculateTotalAssetsRealValue());
+        } finally {
+            lock.unlock();
+        }
+        feed.join(10_000);
+
+        assertFalse(feed.isAlive());
+        assertEquals(share.calculateRealValueAt(10, 20), account.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void ordersFromDifferentAccountsMeetInOneBook() {
+        AccountManager manager = new AccountManager();
+        Portfolio seller = manager.getAccount(manager.openAccount(0));
+        Portfolio buyer = manager.getAccount(manager.openAccount(0));
+        Order sell = new Order("ACB", OrderType.SELL, 10, 50);
+
+        seller.placeOrder(sell);
+        List<Fill> fills = buyer.placeOrder(new Order("ACB", OrderType.BUY, 4, 50));
+
+        assertEquals(1, fills.size());
+        assertEquals(sell.getSequence(), fills.get(0).getSellOrderSequence());
+        assertSame(seller.getOrderBook("ACB"), buyer.getOrderBook("ACB"));
+        assertSame(manager.getMatchingEngine().getBook("ACB"), seller.getOrderBook("ACB"));
+        assertThrows(IllegalArgumentException.class, () -> manager.getAccount(2));
+    }
+
+    @Test
+    void firmValueEqualsSumOfAccountsSequentiallyAndInParallel() {
+        AccountManager manager = new AccountManager();
+        Share[] shares = {new Share("ACX", "X", 10), new Share("ACY", "Y", 20), new Share("ACZ", "Z", 30)};
+        double expected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Portfolio account = manager.getAccount(manager.openAccount(1_000 + i));
+            account.buyAsset(shares[i % 3], 1 + i % 5);
+        }
+        manager.getMarketData().setPrice("ACY", 25);
+        for (int i = 0; i < manager.getAccountCount(); i++) {
+            expected += manager.getAccount(i).calculateTotalValue();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertEquals(expected, manager.calculateTotalValue(pool), 1e-6);
+            assertEquals(expected, manager.calculateTotalValue(single), 1e-6);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+        assertEquals(10_000, manager.getAccountCount());
+    }
+}
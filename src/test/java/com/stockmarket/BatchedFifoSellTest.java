@@ -0,0 +1,87 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchedFifoSellTest {
+
+    private static Portfolio portfolioWithLots(LotStorage storage, int lots) {
+        Portfolio portfolio = new Portfolio(0);
+        portfolio.setLotStorage(storage);
+        portfolio.putPositionForLoad(new Share("BFS", "Test", 10.0));
+        AssetPosition position = portfolio.getPositionBySymbol("BFS");
+        for (int i = 0; i < lots; i++) {
+            position.addLot(new PurchaseLot(LocalDate.of(2020, 1, 1).plusDays(i), 1 + i % 3, 10 + i % 5));
+        }
+        return portfolio;
+    }
+
+    @Test
+    void largeSellClosesLotsInFifoOrderAndSplitsTheLastOne() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio portfolio = portfolioWithLots(storage, 3_000);
+            // ilości 1,2,3 powtarzane: 4000 sztuk to 2000 pełnych partii i 1 z 3 sztuk partii 2001.
+            SellResult result = portfolio.sellAssetFIFO("BFS", 4_000, 20.0);
+
+            List<LotClosure> closures = result.getClosures();
+            assertEquals(2_001, closures.size(), storage.name());
+            assertEquals(LocalDate.of(2020, 1, 1), closures.get(0).getPurchaseDate());
+            assertEquals(2, closures.get(1).getQuantitySold());
+            assertEquals(1, closures.get(2_000).getQuantitySold());
+            assertEquals(4_000, result.getQuantitySold());
+
+            AssetPosition position = portfolio.getPositionBySymbol("BFS");
+            assertEquals(2_000, position.getTotalQuantity());
+            assertEquals(1_000, position.getLots().size());
+            assertEquals(LocalDate.of(2020, 1, 1).plusDays(2_000), position.peekOldestLot().getPurchaseDate());
+            assertEquals(2, position.peekOldestLot().getQuantity());
+        }
+    }
+
+    @Test
+    void partiallyConsumedHeadLotKeepsRemainder() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio portfolio = portfolioWithLots(storage, 3);
+
+            SellResult result = portfolio.sellAssetFIFO("BFS", 2, 11.0);
+
+            assertEquals(2, result.getClosureCount());
+            assertEquals(1 * (11.0 - 10) + 1 * (11.0 - 11), result.getTotalProfit(), 1e-12);
+            PurchaseLot oldest = portfolio.getPositionBySymbol("BFS").peekOldestLot();
+            assertEquals(LocalDate.of(2020, 1, 2), oldest.getPurchaseDate());
+            assertEquals(1, oldest.getQuantity());
+        }
+    }
+
+    @Test
+    void summaryModeMatchesDetailedTotalsWithoutClosures() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio detailed = portfolioWithLots(storage, 500);
+            Portfolio summary = portfolioWithLots(storage, 500);
+
+            SellResult full = detailed.sellAssetFIFO("BFS", 777, 13.5);
+            SellResult totals = summary.sellAssetFIFO("BFS", 777, 13.5, false);
+
+            assertFalse(totals.isDetailed());
+            assertTrue(totals.getClosures().isEmpty());
+            assertEquals(full.getTotalProfit(), totals.getTotalProfit());
+            assertEquals(full.getClosureCount(), totals.getClosureCount());
+            assertEquals(777, totals.getQuantitySold());
+            assertEquals(detailed.getCash(), summary.getCash());
+        }
+    }
+
+    @Test
+    void closuresViewIsReadOnly() {
+        SellResult result = portfolioWithLots(LotStorage.OBJECTS, 2).sellAssetFIFO("BFS", 3, 12.0);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> result.getClosures().add(new LotClosure(LocalDate.now(), 1, 1.0)));
+    }
+}
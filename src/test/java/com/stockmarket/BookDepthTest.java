@@ -0,0 +1,137 @@
+package com.stockmarket;
+
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDepthTest {
+
+    @Test
+    void depthAggregatesRestingQuantityPerLevel() {
+        Portfolio portfolio = new Portfolio(0);
+        Order bid = new Order("DPT", OrderType.BUY, 10, 99);
+        portfolio.placeOrder(bid);
+        portfolio.placeOrder(new Order("DPT", OrderType.BUY, 5, 99));
+        portfolio.placeOrder(new Order("DPT", OrderType.BUY, 7, 98));
+        portfolio.placeOrder(new Order("DPT", OrderType.SELL, 4, 101));
+        portfolio.placeOrder(new Order("DPT", OrderType.SELL, 3, 99));
+
+        BookDepth depth = portfolio.getDepth("DPT", 5);
+        assertEquals(2, depth.getBidLevels());
+        assertEquals(99, depth.getBidPrice(0));
+        assertEquals(12, depth.getBidQuantity(0));
+        assertEquals(98, depth.getBidPrice(1));
+        assertEquals(7, depth.getBidQuantity(1));
+        assertEquals(1, depth.getAskLevels());
+        assertEquals(101, depth.getAskPrice(0));
+        assertEquals(4, depth.getAskQuantity(0));
+
+        portfolio.cancelOrder(bid);
+        assertEquals(5, portfolio.getDepth("DPT", 1).getBidQuantity(0));
+        assertEquals(1, portfolio.getDepth("DPT", 1).getBidLevels());
+        assertThrows(IndexOutOfBoundsException.class, () -> portfolio.getDepth("DPT", 1).getBidPrice(1));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.getDepth("DPT", 0));
+        assertEquals(0, portfolio.getDepth("DPX", 3).getBidLevels());
+    }
+
+    @Test
+    void listenerRegisteredOnEngineSeesBooksOpenedLater() {
+        Portfolio portfolio = new Portfolio(0);
+        List<String> updates = new ArrayList<>();
+        portfolio.addDepthListener((symbolId, side, priceTicks, total) ->
+                updates.add(side + "|" + priceTicks + "|" + total));
+
+        portfolio.placeOrder(new Order("DPL", OrderType.SELL, 10, 100));
+        portfolio.placeOrder(new Order("DPL", OrderType.BUY, 4, 100));
+        portfolio.placeOrder(new Order("DPL", OrderType.BUY, 6, 100));
+
+        assertEquals(3, updates.size());
+        assertTrue(updates.get(0).startsWith("SELL|") && updates.get(0).endsWith("|10"));
+        assertTrue(updates.get(1).endsWith("|6"));
+        assertTrue(updates.get(2).endsWith("|0"), "Zniknięcie poziomu ogłaszane jako zero");
+    }
+
+    @Test
+    void listenerStreamReconstructsBookUnderRandomFlow() {
+        Random random = new Random(20);
+        MatchingEngine engine = new MatchingEngine();
+        // strona -> cena -> łączna ilość, wyłącznie z przyrostowych zmian
+        Map<OrderType, TreeMap<Long, Long>> replica = new HashMap<>();
+        replica.put(OrderType.BUY, new TreeMap<>());
+        replica.put(OrderType.SELL, new TreeMap<>());
+        engine.addDepthListener((symbolId, side, priceTicks, total) -> {
+            assertTrue(total >= 0);
+            if (total == 0) {
+                assertNotNull(replica.get(side).remove(priceTicks), "Usunięto nieistniejący poziom");
+            } else {
+                replica.get(side).put(priceTicks, total);
+            }
+        });
+
+        List<Order> placed = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || placed.isEmpty()) {
+                placed.add(randomOrder(random));
+                engine.submit(placed.get(placed.size() - 1));
+            } else if (action < 5) {
+                List<Order> batch = new ArrayList<>();
+                for (int i = random.nextInt(50); i >= 0; i--) {
+                    batch.add(randomOrder(random));
+                }
+                engine.submitAll(batch);
+                placed.addAll(batch);
+            } else {
+                Order order = placed.get(random.nextInt(placed.size()));
+                OrderBook book = engine.getBook("DPR");
+                if (action < 8) {
+                    book.cancel(order.getSequence());
+                } else {
+                    long price = 1_000_000 + (random.nextInt(40) - 20) * 100L;
+                    book.amend(order.getSequence(), price, 1 + random.nextInt(20), null);
+                }
+            }
+
+            OrderBook book = engine.getBook("DPR");
+            Map<OrderType, TreeMap<Long, Long>> expected = aggregate(book);
+            assertEquals(expected, replica, "step " + step);
+
+            BookDepth depth = book.getDepth(5);
+            List<Long> bids = new ArrayList<>(expected.get(OrderType.BUY).descendingKeySet());
+            List<Long> asks = new ArrayList<>(expected.get(OrderType.SELL).keySet());
+            assertEquals(Math.min(5, bids.size()), depth.getBidLevels());
+            assertEquals(Math.min(5, asks.size()), depth.getAskLevels());
+            for (int i = 0; i < depth.getBidLevels(); i++) {
+                assertEquals(bids.get(i), depth.getBidPriceTicks(i));
+                assertEquals(expected.get(OrderType.BUY).get(bids.get(i)), depth.getBidQuantity(i));
+            }
+            for (int i = 0; i < depth.getAskLevels(); i++) {
+                assertEquals(asks.get(i), depth.getAskPriceTicks(i));
+                assertEquals(expected.get(OrderType.SELL).get(asks.get(i)), depth.getAskQuantity(i));
+            }
+        }
+    }
+
+    private static Order randomOrder(Random random) {
+        boolean buy = random.nextBoolean();
+        double price = 100 + (buy ? -1 : 1) * (random.nextInt(30) - 3) * 0.01;
+        return new Order("DPR", buy ? OrderType.BUY : OrderType.SELL, 1 + random.nextInt(20), price);
+    }
+
+    private static Map<OrderType, TreeMap<Long, Long>> aggregate(OrderBook book) {
+        Map<OrderType, TreeMap<Long, Long>> levels = new HashMap<>();
+        levels.put(OrderType.BUY, new TreeMap<>());
+        levels.put(OrderType.SELL, new TreeMap<>());
+        book.forEachRestingOrder((side, price, quantity, sequence) ->
+                levels.get(side).merge(price, (long) quantity, Long::sum));
+        return levels;
+    }
+}
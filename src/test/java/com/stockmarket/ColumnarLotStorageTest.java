@@ -0,0 +1,100 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarLotStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void columnarPositionBehavesLikeObjectPosition() {
+        Portfolio objects = new Portfolio(0);
+        Portfolio columnar = new Portfolio(0);
+        columnar.setLotStorage(LotStorage.COLUMNAR);
+        objects.putPositionForLoad(new Share("COLA", "Test", 10.0));
+        columnar.putPositionForLoad(new Share("COLA", "Test", 10.0));
+        AssetPosition a = objects.getPositionBySymbol("COLA");
+        AssetPosition b = columnar.getPositionBySymbol("COLA");
+        assertEquals(LotStorage.COLUMNAR, b.getLotStorage());
+
+        Random random = new Random(11);
+        LocalDate start = LocalDate.of(2015, 1, 1);
+        int day = 0;
+        for (int step = 0; step < 5_000; step++) {
+            if (a.getTotalQuantity() > 0 && random.nextInt(3) == 0) {
+                int qty = 1 + random.nextInt(a.getTotalQuantity());
+                SellResult ra = objects.sellAssetFIFO("COLA", qty, 12.5);
+                SellResult rb = columnar.sellAssetFIFO("COLA", qty, 12.5);
+                assertEquals(ra.getTotalProfit(), rb.getTotalProfit(), 1e-9);
+                assertEquals(ra.getClosures().size(), rb.getClosures().size());
+            } else {
+                // co dziesiąta partia wsteczna, ceny z groszami
+                LocalDate date = random.nextInt(10) == 0
+                        ? start.plusDays(random.nextInt(day + 1))
+                        : start.plusDays(++day);
+                int qty = 1 + random.nextInt(20);
+                double price = 5 + random.nextInt(1000) / 100.0;
+                a.addLot(new PurchaseLot(date, qty, price));
+                b.addLot(new PurchaseLot(date, qty, price));
+            }
+        }
+
+        assertEquals(LotDescriptions.describe(a), LotDescriptions.describe(b));
+        assertEquals(a.getTotalQuantity(), b.getTotalQuantity());
+    }
+
+    @Test
+    void priceWithoutFixedPointFormIsKeptExactly() {
+        AssetPosition position = new AssetPosition(new Share("COLB", "Test", 1.0), LotStorage.COLUMNAR);
+        position.addLot(new PurchaseLot(LocalDate.of(2023, 1, 1), 1, 4.25));
+        position.addLot(new PurchaseLot(LocalDate.of(2023, 1, 2), 1, 1.0 / 3));
+
+        List<Double> prices = new ArrayList<>();
+        for (PurchaseLot lot : position.getLots()) {
+            prices.add(lot.getUnitPrice());
+        }
+        assertEquals(List.of(4.25, 1.0 / 3), prices);
+    }
+
+    @Test
+    void viewIsInvalidatedByStructuralChange() {
+        AssetPosition position = new AssetPosition(new Share("COLC", "Test", 1.0), LotStorage.COLUMNAR);
+        position.addLot(new PurchaseLot(LocalDate.of(2023, 1, 2), 5, 2.0));
+        PurchaseLot oldest = position.peekOldestLot();
+
+        position.addLot(new PurchaseLot(LocalDate.of(2023, 1, 1), 1, 2.0));
+
+        assertThrows(IllegalStateException.class, oldest::getQuantity);
+        assertEquals(LocalDate.of(2023, 1, 1), position.peekOldestLot().getPurchaseDate());
+    }
+
+    @Test
+    void columnarPortfolioSurvivesSnapshotRoundTrip() throws Exception {
+        Portfolio portfolio = new Portfolio(500);
+        portfolio.setLotStorage(LotStorage.COLUMNAR);
+        portfolio.putPositionForLoad(new Share("COLD", "Test", 3.0));
+        AssetPosition position = portfolio.getPositionBySymbol("COLD");
+        for (int i = 0; i < 1_000; i++) {
+            position.addLot(new PurchaseLot(LocalDate.of(2022, 1, 1).plusDays(i), 1 + i % 5, 3 + i % 7 * 0.01));
+        }
+        portfolio.sellAssetFIFO("COLD", 7, 4.0);
+
+        Path file = tempDir.resolve("columnar.snap");
+        new PortfolioSnapshotWriter().save(portfolio, file);
+        AssetPosition loaded = new PortfolioSnapshotReader().load(file).getPositionBySymbol("COLD");
+
+        assertEquals(LotDescriptions.describe(position), LotDescriptions.describe(loaded));
+    }
+}
@@ -0,0 +1,173 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPortfolioTest {
+
+    private static final int THREADS = 8;
+
+    // ceny całkowite: koszty i przychody są dokładne w double, więc sumy można porównać ściśle
+    @Test
+    void concurrentBuysOnSharedAndSeparateSymbolsLoseNothing() throws Exception {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(10_000_000);
+        Share shared = new Share("CPS", "Shared", 10);
+        Share[] own = new Share[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            own[t] = new Share("CPO" + (char) ('A' + t), "Own", 20);
+        }
+        int perThread = 2_000;
+
+        runConcurrently(t -> {
+            for (int i = 0; i < perThread; i++) {
+                portfolio.buyAsset(shared, 1);
+                portfolio.buyAsset(own[t], 2);
+            }
+        });
+
+        assertEquals(THREADS * perThread, portfolio.getQuantity("CPS"));
+        for (Share share : own) {
+            assertEquals(2 * perThread, portfolio.getQuantity(share.getSymbol()));
+        }
+        double spent = THREADS * perThread * (shared.calculatePurchaseCost(1) + own[0].calculatePurchaseCost(2));
+        assertEquals(10_000_000 - spent, portfolio.getCash());
+        assertEquals(1 + THREADS, portfolio.getPositionCount());
+    }
+
+    @Test
+    void closedPortfolioStopsFollowingMarketData() {
+        MarketData marketData = new MarketData();
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(1_000, marketData);
+        Share share = new Share("CPM", "Closed", 10);
+        portfolio.buyAsset(share, 10);
+
+        marketData.setPrice("CPM", 12);
+        double valued = portfolio.calculateTotalAssetsRealValue();
+        assertEquals(share.calculateRealValueAt(10, 12), valued, 1e-9);
+
+        portfolio.close();
+        marketData.setPrice("CPM", 20);
+        assertEquals(valued, portfolio.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void cashReservationNeverOverspends() throws Exception {
+        Share share = new Share("CPC", "Cash", 97);
+        double cost = share.calculatePurchaseCost(1);
+        // starczy dokładnie na 1000 zakupów
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(cost * 1_000);
+        AtomicInteger bought = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < 500; i++) {
+                try {
+                    portfolio.buyAsset(share, 1);
+                    bought.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(1_000, bought.get());
+        assertEquals(THREADS * 500 - 1_000, refused.get());
+        assertEquals(1_000, portfolio.getQuantity("CPC"));
+        assertEquals(0.0, portfolio.getCash());
+    }
+
+    @Test
+    void concurrentSellsNeverSellMoreThanHeld() throws Exception {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(10_000_000);
+        Share share = new Share("CPX", "Sell", 10);
+        portfolio.buyAsset(share, 5_000);
+        double cashAfterBuy = portfolio.getCash();
+        AtomicInteger sold = new AtomicInteger();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < 1_000; i++) {
+                // kupujący dokładają po 1, sprzedający zdejmują po 3
+                if (t % 2 == 0) {
+                    portfolio.buyAsset(share, 1);
+                } else {
+                    try {
+                        SellResult result = portfolio.sellAssetFIFO("CPX", 3, 12);
+                        assertEquals(3, result.getQuantitySold());
+                        sold.addAndGet(3);
+                    } catch (InsufficientHoldingsException e) {
+                        // pozycja chwilowo wyczerpana
+                    }
+                }
+            }
+        });
+
+        int boughtLater = THREADS / 2 * 1_000;
+        assertEquals(5_000 + boughtLater - sold.get(), portfolio.getQuantity("CPX"));
+        assertTrue(portfolio.getQuantity("CPX") >= 0);
+        assertEquals(cashAfterBuy - boughtLater * share.calculatePurchaseCost(1) + sold.get() * 12.0,
+                portfolio.getCash());
+    }
+
+    @Test
+    void priceUpdatesRacingWithTradesLeaveLastPriceApplied() throws Exception {
+        MarketData marketData = new MarketData();
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(10_000_000, marketData);
+        Share[] shares = new Share[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            shares[t] = new Share("CPM" + (char) ('A' + t), "Marked", 10);
+        }
+
+        Thread feed = new Thread(() -> {
+            for (int round = 1; round <= 2_000; round++) {
+                for (Share share : shares) {
+                    marketData.setPrice(share.getSymbolId(), 10 + round % 7);
+                }
+            }
+        });
+        feed.start();
+        runConcurrently(t -> {
+            for (int i = 0; i < 1_000; i++) {
+                portfolio.buyAsset(shares[t], 1);
+            }
+        });
+        feed.join();
+
+        double expected = 0;
+        for (Share share : shares) {
+            expected += share.calculateRealValueAt(1_000, marketData.getPrice(share.getSymbolId()));
+        }
+        assertEquals(expected, portfolio.calculateTotalAssetsRealValue(), 1e-6);
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,191 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostBasisTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private static Portfolio portfolio(LotStorage storage, int[][] lots) {
+        Portfolio portfolio = new Portfolio(0);
+        portfolio.setLotStorage(storage);
+        portfolio.putPositionForLoad(new Share("CBT", "Test", 10.0));
+        AssetPosition position = portfolio.getPositionBySymbol("CBT");
+        for (int[] lot : lots) {
+            position.addLot(new PurchaseLot(START.plusDays(lot[0]), lot[1], lot[2]));
+        }
+        return portfolio;
+    }
+
+    @Test
+    void eachMethodClosesTheExpectedLots() {
+        // {dzień, ilość, cena}
+        int[][] lots = {{0, 10, 100}, {1, 10, 300}, {2, 10, 200}};
+
+        for (LotStorage storage : LotStorage.values()) {
+            SellResult fifo = portfolio(storage, lots).sellAsset("CBT", 15, 250, CostBasis.FIFO);
+            assertEquals(10 * 150 + 5 * -50, fifo.getTotalProfit(), 1e-9);
+
+            SellResult lifo = portfolio(storage, lots).sellAsset("CBT", 15, 250, CostBasis.LIFO);
+            assertEquals(START.plusDays(2), lifo.getClosures().get(0).getPurchaseDate());
+            assertEquals(10 * 50 + 5 * -50, lifo.getTotalProfit(), 1e-9);
+
+            SellResult hifo = portfolio(storage, lots).sellAsset("CBT", 15, 250, CostBasis.HIFO);
+            assertEquals(START.plusDays(1), hifo.getClosures().get(0).getPurchaseDate());
+            assertEquals(START.plusDays(2), hifo.getClosures().get(1).getPurchaseDate());
+            assertEquals(10 * -50 + 5 * 50, hifo.getTotalProfit(), 1e-9);
+
+            SellResult average = portfolio(storage, lots).sellAsset("CBT", 15, 250, CostBasis.AVERAGE);
+            assertEquals(15 * (250 - 200), average.getTotalProfit(), 1e-9);
+        }
+    }
+
+    @Test
+    void averageFollowsLotsDecreasedOutsideTheSell() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio portfolio = portfolio(storage, new int[][]{{0, 10, 100}, {1, 10, 300}});
+            AssetPosition position = portfolio.getPositionBySymbol("CBT");
+
+            // 5 sztuk po 300 zdjętych bezpośrednio z partii: średnia (1000 + 1500) / 15
+            position.getLots().stream().skip(1).findFirst().orElseThrow().decreaseQuantity(5);
+            position.decreaseTotalQuantity(5);
+
+            SellResult average = portfolio.sellAsset("CBT", 3, 200, CostBasis.AVERAGE);
+            assertEquals(3 * (200 - 2500.0 / 15), average.getTotalProfit(), 1e-9, storage.toString());
+        }
+    }
+
+    // kupno 10 po 100 i 10 po 200: obie sprzedaże po średniej 150, łącznie koszt 3000
+    @Test
+    void averageStaysTheSameAcrossConsecutiveSells() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio portfolio = portfolio(storage, new int[][]{{0, 10, 100}, {1, 10, 200}});
+
+            SellResult first = portfolio.sellAsset("CBT", 10, 300, CostBasis.AVERAGE);
+            SellResult second = portfolio.sellAsset("CBT", 10, 300, CostBasis.AVERAGE);
+
+            assertEquals(1_500, first.getTotalProfit(), 1e-9, storage.toString());
+            assertEquals(1_500, second.getTotalProfit(), 1e-9, storage.toString());
+        }
+    }
+
+    @Test
+    void hifoLeavesRemainingLotsInDateOrder() {
+        Portfolio portfolio = portfolio(LotStorage.COLUMNAR, new int[][]{{0, 5, 10}, {1, 5, 30}, {2, 5, 20}, {3, 5, 40}});
+
+        portfolio.sellAsset("CBT", 12, 50, CostBasis.HIFO);
+
+        List<String> remaining = LotDescriptions.describe(portfolio.getPositionBySymbol("CBT"));
+        assertEquals(List.of(START + "|5|10.0", START.plusDays(2) + "|3|20.0"), remaining);
+        assertEquals(8, portfolio.getPositionBySymbol("CBT").getTotalQuantity());
+    }
+
+    @Test
+    void lotsViewSkipsLotsEmptiedByHifo() {
+        for (LotStorage storage : LotStorage.values()) {
+            Portfolio portfolio = portfolio(storage, new int[][]{{0, 5, 10}, {1, 5, 30}, {2, 5, 20}, {3, 5, 15}});
+            AssetPosition position = portfolio.getPositionBySymbol("CBT");
+
+            portfolio.sellAsset("CBT", 5, 50, CostBasis.HIFO);
+            assertEquals(3, position.getLots().size(), storage.toString());
+
+            SellResult next = portfolio.sellAsset("CBT", 5, 50, CostBasis.HIFO);
+            assertEquals(5 * (50 - 20), next.getTotalProfit(), 1e-9, storage.toString());
+            assertEquals(List.of(START + "|5|10.0", START.plusDays(3) + "|5|15.0"), LotDescriptions.describe(position));
+        }
+    }
+
+    @Test
+    void randomSellsMatchReferenceModel() {
+        for (LotStorage storage : LotStorage.values()) {
+            Random random = new Random(23);
+            Portfolio portfolio = portfolio(storage, new int[0][]);
+            AssetPosition position = portfolio.getPositionBySymbol("CBT");
+            List<double[]> model = new ArrayList<>();
+            // pula metody AVERAGE: {koszt, sztuki}
+            double[] pool = new double[2];
+            int day = 0;
+
+            for (int step = 0; step < 3_000; step++) {
+                int held = position.getTotalQuantity();
+                if (held > 0 && random.nextInt(3) == 0) {
+                    CostBasis method = CostBasis.values()[random.nextInt(CostBasis.values().length)];
+                    int qty = 1 + random.nextInt(Math.min(held, 60));
+                    double price = 50 + random.nextInt(100);
+
+                    SellResult result = portfolio.sellAsset("CBT", qty, price, method);
+                    double expected = sellReference(model, pool, method, qty, price);
+                    assertEquals(expected, result.getTotalProfit(), 1e-6, storage + " " + method + " @" + step);
+                } else {
+                    int lotDay = random.nextInt(8) == 0 ? random.nextInt(day + 1) : ++day;
+                    int qty = 1 + random.nextInt(10);
+                    int price = 50 + random.nextInt(100);
+                    position.addLot(new PurchaseLot(START.plusDays(lotDay), qty, price));
+                    insertReference(model, lotDay, qty, price);
+                    pool[0] += qty * price;
+                    pool[1] += qty;
+                }
+                assertEquals(describeReference(model), LotDescriptions.describe(position), storage + " @" + step);
+            }
+        }
+    }
+
+    private static void insertReference(List<double[]> model, int day, int qty, double price) {
+        int index = model.size();
+        while (index > 0 && model.get(index - 1)[0] > day) {
+            index--;
+        }
+        model.add(index, new double[]{day, qty, price});
+    }
+
+    private static double sellReference(List<double[]> model, double[] pool, CostBasis method,
+                                        int quantity, double price) {
+        List<double[]> order = new ArrayList<>(model);
+        double basis = Double.NaN;
+        switch (method) {
+            case LIFO -> Collections.reverse(order);
+            case HIFO -> order.sort(Comparator.comparingDouble((double[] lot) -> -lot[2]));
+            case AVERAGE -> basis = pool[0] / pool[1];
+            default -> { }
+        }
+
+        double profit = 0;
+        int remaining = quantity;
+        for (double[] lot : order) {
+            if (remaining == 0) {
+                break;
+            }
+            int used = (int) Math.min(lot[1], remaining);
+            double cost = Double.isNaN(basis) ? lot[2] : basis;
+            profit += used * (price - cost);
+            pool[0] -= used * cost;
+            pool[1] -= used;
+            lot[1] -= used;
+            remaining -= used;
+        }
+        model.removeIf(lot -> lot[1] == 0);
+        if (pool[1] == 0) {
+            pool[0] = 0;
+        }
+        return profit;
+    }
+
+    private static List<String> describeReference(List<double[]> model) {
+        List<String> lots = new ArrayList<>();
+        for (double[] lot : model) {
+            lots.add(START.plusDays((long) lot[0]) + "|" + (int) lot[1] + "|" + lot[2]);
+        }
+        return lots;
+    }
+}
@@ -0,0 +1,85 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalValuationTest {
+
+    @Test
+    void runningTotalFollowsBuysSellsAndDirectLots() {
+        Portfolio portfolio = new Portfolio(1_000_000);
+        portfolio.setValuationVerification(true);
+        Share share = new Share("AAA", "A", 10.0);
+        Currency currency = new Currency("USD", "USD", 4.0, 0.1);
+        Commodity gold = new Commodity("GLD", "Gold", 50.0, 1.0);
+
+        portfolio.buyAsset(share, 100);
+        portfolio.buyAsset(currency, 200);
+        portfolio.buyAsset(gold, 10);
+
+        portfolio.putPositionForLoad(new Share("BBB", "B", 20.0));
+        portfolio.getPositionBySymbol("BBB").addLot(new PurchaseLot(LocalDate.of(2023, 1, 1), 5, 20.0));
+
+        double expected = share.calculateRealValue(100)
+                + currency.calculateRealValue(200)
+                + gold.calculateRealValue(10)
+                + new Share("BBB", "B", 20.0).calculateRealValue(5);
+        assertEquals(expected, portfolio.calculateTotalAssetsRealValue(), 1e-9);
+
+        portfolio.sellAssetFIFO("AAA", 100, 12.0);
+        portfolio.sellAssetFIFO("USD", 50, 4.0);
+
+        expected = currency.calculateRealValue(150)
+                + gold.calculateRealValue(10)
+                + new Share("BBB", "B", 20.0).calculateRealValue(5);
+        assertEquals(expected, portfolio.calculateTotalAssetsRealValue(), 1e-9);
+        assertEquals(0.0, portfolio.getPositionBySymbol("AAA").getRealValue());
+    }
+
+    @Test
+    void closedPortfolioStopsFollowingMarketData() {
+        MarketData marketData = new MarketData();
+        Portfolio portfolio = new Portfolio(1_000, marketData);
+        Share share = new Share("IVC", "Closed", 10.0);
+        portfolio.buyAsset(share, 10);
+
+        marketData.setPrice("IVC", 12.0);
+        double valued = portfolio.calculateTotalAssetsRealValue();
+        assertEquals(share.calculateRealValueAt(10, 12.0), valued, 1e-9);
+
+        portfolio.close();
+        marketData.setPrice("IVC", 20.0);
+        assertEquals(valued, portfolio.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void manyRandomUpdatesStayConsistentWithFullScan() {
+        Portfolio portfolio = new Portfolio(1e12);
+        portfolio.setValuationVerification(true);
+        Random random = new Random(7);
+        String[] symbols = {"AAA", "BBB", "CCC", "DDD", "EEE"};
+        int[] held = new int[symbols.length];
+
+        for (int i = 0; i < 20_000; i++) {
+            int s = random.nextInt(symbols.length);
+            if (held[s] > 0 && random.nextBoolean()) {
+                int qty = 1 + random.nextInt(held[s]);
+                portfolio.sellAssetFIFO(symbols[s], qty, 1.0);
+                held[s] -= qty;
+            } else {
+                int qty = 1 + random.nextInt(100);
+                portfolio.buyAsset(new Share(symbols[s], "S", 0.37 + s), qty);
+                held[s] += qty;
+            }
+            portfolio.calculateTotalAssetsRealValue();
+        }
+    }
+}
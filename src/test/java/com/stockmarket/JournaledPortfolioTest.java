@@ -0,0 +1,175 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledPortfolioTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reopenReplaysJournalIntoSamePortfolioState() throws IOException {
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 10_000)) {
+            store.buyAsset(new Share("AAA", "Share", 100), 10);
+            store.buyAsset(new Currency("USD", "Dollar", 4, 0.1), 50);
+            store.sellAssetFIFO("AAA", 4, 120);
+            store.placeOrder(new Order("AAA", OrderType.BUY, 5, 99));
+            store.placeOrder(new Order("AAA", OrderType.SELL, 2, 101));
+        }
+
+        try (JournaledPortfolio recovered = JournaledPortfolio.open(tempDir, 0)) {
+            Portfolio portfolio = recovered.getPortfolio();
+
+            assertEquals(10_000 - 1003 - 200 + 480, portfolio.getCash(), 0.0001);
+            assertEquals(6, portfolio.getPositionBySymbol("AAA").getTotalQuantity());
+            assertEquals(50, portfolio.getPositionBySymbol("USD").getTotalQuantity());
+            assertEquals(99, portfolio.getOrderBook("AAA").getBestBid());
+            assertEquals(101, portfolio.getOrderBook("AAA").getBestAsk());
+            assertEquals(5, recovered.getLastLsn());
+        }
+    }
+
+    @Test
+    void checkpointCompactsJournalAndKeepsRestingOrders() throws IOException {
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 10_000)) {
+            store.buyAsset(new Share("AAA", "Share", 10), 100);
+            store.placeOrder(new Order("AAA", OrderType.SELL, 5, 12));
+            store.placeOrder(new Order("AAA", OrderType.SELL, 7, 12));
+            store.placeOrder(new Order("AAA", OrderType.BUY, 5, 12));
+
+            long journalBefore = Files.size(tempDir.resolve("journal.log"));
+            store.checkpoint();
+            assertTrue(Files.size(tempDir.resolve("journal.log")) < journalBefore);
+
+            store.sellAssetFIFO("AAA", 10, 11);
+        }
+
+        try (JournaledPortfolio recovered = JournaledPortfolio.open(tempDir, 0)) {
+            Portfolio portfolio = recovered.getPortfolio();
+
+            assertEquals(90, portfolio.getPositionBySymbol("AAA").getTotalQuantity());
+            assertEquals(10_000 - 1003 + 110, portfolio.getCash(), 0.0001);
+            OrderBook book = portfolio.getOrderBook("AAA");
+            assertEquals(1, book.getRestingOrderCount());
+            assertEquals(12, book.getBestAsk());
+        }
+    }
+
+    @Test
+    void restingOrdersRewrittenByCheckpointDoNotTriggerTheNextOne() throws IOException {
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 10_000, 10)) {
+            for (int i = 0; i < 12; i++) {
+                store.placeOrder(new Order("CHK", OrderType.BUY, 1, 50 + i));
+            }
+
+            // punkt kontrolny po 10. zleceniu przepisał 10 oczekujących; 2 kolejne go nie powtarzają
+            try (Stream<Path> files = Files.list(tempDir)) {
+                assertEquals(List.of("snapshot-10.snap"), files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.startsWith("snapshot-")).toList());
+            }
+        }
+
+        try (JournaledPortfolio recovered = JournaledPortfolio.open(tempDir, 0)) {
+            assertEquals(12, recovered.getPortfolio().getOrderBook("CHK").getRestingOrderCount());
+        }
+    }
+
+    @Test
+    void tornTailOfJournalIsDiscardedOnRecovery() throws IOException {
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 1_000)) {
+            store.buyAsset(new Share("AAA", "Share", 10), 5);
+            store.buyAsset(new Share("AAA", "Share", 10), 5);
+        }
+
+        Path journal = tempDir.resolve("journal.log");
+        long validSize = Files.size(journal);
+        Files.write(journal, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 9, 9}, StandardOpenOption.APPEND);
+
+        try (JournaledPortfolio recovered = JournaledPortfolio.open(tempDir, 1_000)) {
+            assertEquals(10, recovered.getPortfolio().getPositionBySymbol("AAA").getTotalQuantity());
+            assertEquals(validSize, Files.size(journal));
+
+            recovered.buyAsset(new Share("AAA", "Share", 10), 1);
+        }
+
+        try (JournaledPortfolio again = JournaledPortfolio.open(tempDir, 1_000)) {
+            assertEquals(11, again.getPortfolio().getPositionBySymbol("AAA").getTotalQuantity());
+        }
+    }
+
+    @Test
+    void rejectedJournalAppendLeavesPortfolioUnchanged() throws IOException {
+        JournaledPortfolio store = JournaledPortfolio.open(tempDir, 10_000);
+        store.buyAsset(new Share("WAL", "Share", 10), 10);
+        store.placeOrder(new Order("WAL", OrderType.SELL, 5, 12));
+        store.close();
+
+        Portfolio portfolio = store.getPortfolio();
+        double cash = portfolio.getCash();
+
+        assertThrows(IllegalStateException.class, () -> store.buyAsset(new Share("WAL", "Share", 10), 5));
+        assertThrows(IllegalStateException.class, () -> store.sellAssetFIFO("WAL", 4, 11));
+        assertThrows(IllegalStateException.class, () -> store.placeOrder(new Order("WAL", OrderType.BUY, 5, 12)));
+
+        assertEquals(cash, portfolio.getCash());
+        assertEquals(10, portfolio.getPositionBySymbol("WAL").getTotalQuantity());
+        assertEquals(1, portfolio.getOrderBook("WAL").getRestingOrderCount());
+        assertEquals(12, portfolio.getOrderBook("WAL").getBestAsk());
+    }
+
+    @Test
+    void invalidOperationIsNotJournaled() throws IOException {
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 100)) {
+            assertThrows(IllegalStateException.class, () -> store.buyAsset(new Share("WAL", "Share", 10), 50));
+            assertThrows(InsufficientHoldingsException.class, () -> store.sellAssetFIFO("WAL", 1, 10));
+            assertEquals(0, store.getLastLsn());
+        }
+    }
+
+    @Test
+    void concurrentCallersShareGroupCommitsAndAllSurviveRestart() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+
+        try (JournaledPortfolio store = JournaledPortfolio.open(tempDir, 1_000_000, 100)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        store.buyAsset(new Share("GRP", "Group", 10), 1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        try (JournaledPortfolio recovered = JournaledPortfolio.open(tempDir, 0)) {
+            assertEquals(threads * perThread,
+                    recovered.getPortfolio().getPositionBySymbol("GRP").getTotalQuantity());
+            assertEquals(threads * perThread, recovered.getLastLsn());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockmarket;
+
+import com.stockmarket.logic.AssetPosition;
+import com.stockmarket.logic.PurchaseLot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// wspólny opis partii pozycji dla testów porównujących dwa portfele: kolejność z getLots()
+// (FIFO) jest częścią porównania
+final class LotDescriptions {
+
+    private LotDescriptions() {
+    }
+
+    static List<String> describe(AssetPosition position) {
+        List<String> lots = new ArrayList<>();
+        for (PurchaseLot lot : position.getLots()) {
+            lots.add(lot.getPurchaseDate() + "|" + lot.getQuantity() + "|" + lot.getUnitPrice());
+        }
+        return lots;
+    }
+}
@@ -0,0 +1,71 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotQueueOrderTest {
+
+    @Test
+    void backDatedLotsAreInsertedInDateOrder() {
+        AssetPosition position = new AssetPosition(new Share("LQA", "Test", 1.0));
+        LocalDate start = LocalDate.of(2023, 1, 1);
+
+        position.addLot(new PurchaseLot(start.plusDays(10), 1, 1.0));
+        position.addLot(new PurchaseLot(start.plusDays(20), 2, 1.0));
+        position.addLot(new PurchaseLot(start, 3, 1.0));
+        position.addLot(new PurchaseLot(start.plusDays(15), 4, 1.0));
+        position.addLot(new PurchaseLot(start.plusDays(10), 5, 1.0));
+
+        List<Integer> quantities = new ArrayList<>();
+        for (PurchaseLot lot : position.getLots()) {
+            quantities.add(lot.getQuantity());
+        }
+        assertEquals(List.of(3, 1, 5, 4, 2), quantities);
+        assertEquals(3, position.peekOldestLot().getQuantity());
+    }
+
+    @Test
+    void getLotsIsReadOnlyView() {
+        AssetPosition position = new AssetPosition(new Share("LQB", "Test", 1.0));
+        position.addLot(new PurchaseLot(LocalDate.of(2023, 1, 1), 1, 1.0));
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> position.getLots().add(new PurchaseLot(LocalDate.of(2023, 1, 2), 1, 1.0)));
+        assertThrows(UnsupportedOperationException.class, () -> position.getLots().clear());
+        assertEquals(1, position.getLots().size());
+    }
+
+    @Test
+    void interleavedBuysAndSellsKeepFifoOrder() {
+        Portfolio portfolio = new Portfolio(0);
+        portfolio.putPositionForLoad(new Share("LQC", "Test", 1.0));
+        AssetPosition position = portfolio.getPositionBySymbol("LQC");
+        LocalDate start = LocalDate.of(2020, 1, 1);
+
+        int nextDay = 0;
+        int oldestDay = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 50; i++) {
+                position.addLot(new PurchaseLot(start.plusDays(nextDay++), 2, 1.0));
+            }
+            SellResult result = portfolio.sellAssetFIFO("LQC", 60, 2.0);
+            assertEquals(start.plusDays(oldestDay), result.getClosures().get(0).getPurchaseDate());
+            oldestDay += 30;
+        }
+
+        assertEquals(200 * 50 * 2 - 200 * 60, position.getTotalQuantity());
+        LocalDate previous = LocalDate.MIN;
+        for (PurchaseLot lot : position.getLots()) {
+            assertFalse(lot.getPurchaseDate().isBefore(previous));
+            previous = lot.getPurchaseDate();
+        }
+        assertEquals(start.plusDays(oldestDay), position.peekOldestLot().getPurchaseDate());
+    }
+}
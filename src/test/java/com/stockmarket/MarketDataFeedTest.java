@@ -0,0 +1,136 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataFeedTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void priceUpdatesRevalueHeldPositions() {
+        MarketData marketData = new MarketData();
+        Portfolio portfolio = new Portfolio(100_000, marketData);
+        portfolio.setValuationVerification(true);
+        Share share = new Share("AAA", "A", 10.0);
+        Currency usd = new Currency("USD", "USD", 4.0, 0.1);
+
+        portfolio.buyAsset(share, 100);
+        portfolio.buyAsset(usd, 1000);
+
+        marketData.setPrice("aaa", 12.0);
+        marketData.setPrice("USD", 4.5);
+        marketData.setPrice("ZZZ", 1.0);
+
+        double expected = share.calculateRealValueAt(100, 12.0) + usd.calculateRealValueAt(1000, 4.5);
+        assertEquals(expected, portfolio.calculateTotalAssetsRealValue(), 1e-9);
+        assertEquals(12.0, portfolio.getPositionBySymbol("AAA").getMarkPrice());
+    }
+
+    @Test
+    void newPositionStartsFromLastKnownMarketPrice() {
+        MarketData marketData = new MarketData();
+        marketData.setPrice("BBB", 25.0);
+        Portfolio portfolio = new Portfolio(100_000, marketData);
+        Share share = new Share("BBB", "B", 20.0);
+
+        portfolio.buyAsset(share, 10);
+
+        assertEquals(share.calculateRealValueAt(10, 25.0), portfolio.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void replaysTickFileIntoMarketData() throws Exception {
+        MarketData marketData = new MarketData();
+        Portfolio portfolio = new Portfolio(100_000, marketData);
+        Share share = new Share("AAA", "A", 10.0);
+        portfolio.buyAsset(share, 10);
+
+        Path file = tempDir.resolve("ticks.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            sb.append(i % 2 == 0 ? "AAA" : "bbb").append('|').append(10 + i % 100).append(".25\n");
+        }
+        sb.append("AAA|11.5\r\n\nCCC|3e2");
+        Files.writeString(file, sb.toString());
+
+        long ticks = MarketDataFeed.replay(file, marketData);
+
+        assertEquals(50_002, ticks);
+        assertEquals(11.5, marketData.getPrice("AAA"));
+        assertEquals(109.25, marketData.getPrice("BBB"));
+        assertEquals(300.0, marketData.getPrice("CCC"));
+        assertEquals(share.calculateRealValueAt(10, 11.5), portfolio.calculateTotalAssetsRealValue(), 1e-9);
+    }
+
+    @Test
+    void consumesTicksFromPipe() throws Exception {
+        MarketData marketData = new MarketData();
+        Pipe pipe = Pipe.open();
+
+        Thread producer = new Thread(() -> {
+            try (Pipe.SinkChannel sink = pipe.sink()) {
+                for (int i = 1; i <= 10_000; i++) {
+                    ByteBuffer line = ByteBuffer.wrap(("XYZ|" + i + ".5\n").getBytes(StandardCharsets.US_ASCII));
+                    while (line.hasRemaining()) {
+                        sink.write(line);
+                    }
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+
+        long ticks;
+        try (Pipe.SourceChannel source = pipe.source()) {
+            ticks = new MarketDataFeed(marketData).consume(source);
+        }
+        producer.join();
+
+        assertEquals(10_000, ticks);
+        assertEquals(10_000.5, marketData.getPrice("XYZ"));
+    }
+
+    // te same zapisy co w PortfolioFileReaderTest - oba parsery dzielą szybką ścieżkę
+    @Test
+    void decimalNotationsMatchDoubleParsing() throws Exception {
+        String[] prices = {"100", "100.0", "0.1", "123.456", "1.0E-4", "9007199254740993.5",
+                "7.000000000000001", " 12.5 ", "+3.25", "0.000000000000000001"};
+        MarketData marketData = new MarketData();
+        Path file = tempDir.resolve("decimals.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < prices.length; i++) {
+            sb.append("DEC").append(i).append('|').append(prices[i]).append('\n');
+        }
+        Files.writeString(file, sb.toString());
+
+        MarketDataFeed.replay(file, marketData);
+
+        for (int i = 0; i < prices.length; i++) {
+            assertEquals(Double.parseDouble(prices[i]), marketData.getPrice("DEC" + i), "price " + prices[i]);
+        }
+    }
+
+    @Test
+    void malformedTickIsRejected() throws Exception {
+        Path file = tempDir.resolve("bad.txt");
+        Files.writeString(file, "AAA|10\nBBB|-1\n");
+
+        DataIntegrityException e = assertThrows(DataIntegrityException.class,
+                () -> MarketDataFeed.replay(file, new MarketData()));
+        assertTrue(e.getMessage().contains("2"));
+    }
+}
@@ -1,8 +1,12 @@
 package com.stockmarket;
 
+import com.stockmarket.domain.SymbolRegistry;
 import com.stockmarket.logic.MarketData;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MarketDataTest {
@@ -81,4 +85,64 @@ class MarketDataTest {
                 () -> marketData.getPrice(" ")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void symbolIdAndStringAccessShareTheSameSlot() {
+        MarketData marketData = new MarketData();
+        int id = SymbolRegistry.intern("PLN");
+
+        marketData.setPrice(id, 1.25);
+
+        assertEquals(1.25, marketData.getPrice("pln"));
+        assertTrue(marketData.hasPrice(id));
+        assertFalse(new MarketData().hasPrice(id));
+        assertThrows(IllegalStateException.class, () -> new MarketData().getPrice(id));
+    }
+
+    @Test
+    void readersSeeConsistentPricesWhileFeedWrites() throws Exception {
+        MarketData marketData = new MarketData();
+        int[] ids = new int[2000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SymbolRegistry.intern("MD" + (char) ('A' + i / 26 / 26 % 26)
+                    + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26));
+        }
+
+        int rounds = 200;
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                double[] lastSeen = new double[ids.length];
+                while (!done.get() && failure.get() == null) {
+                    for (int i = 0; i < ids.length; i++) {
+                        if (!marketData.hasPrice(ids[i])) {
+                            continue;
+                        }
+                        double price = marketData.getPrice(ids[i]);
+                        // każda zapisana cena to (runda + 0.5): ułamek musi się zgadzać
+                        if (price - Math.floor(price) != 0.5 || price < lastSeen[i]) {
+                            failure.compareAndSet(null, "slot " + i + ": " + price);
+                        }
+                        lastSeen[i] = price;
+                    }
+                }
+            });
+            readers[r].start();
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            for (int id : ids) {
+                marketData.setPrice(id, round + 0.5);
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(rounds + 0.5, marketData.getPrice(ids[ids.length - 1]));
+    }
+}
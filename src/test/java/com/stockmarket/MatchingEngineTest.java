@@ -0,0 +1,64 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    @Test
+    void symbolsAreInternedToStableIds() {
+        int id = SymbolRegistry.intern("QQQ");
+
+        assertEquals(id, SymbolRegistry.intern(" qqq "));
+        assertEquals("QQQ", SymbolRegistry.symbolOf(id));
+        assertEquals(id, new Order("qqq", OrderType.BUY, 1, 1).getSymbolId());
+    }
+
+    @Test
+    void eachSymbolGetsItsOwnBook() {
+        MatchingEngine engine = new MatchingEngine();
+
+        engine.submit(new Order("AAA", OrderType.BUY, 1, 100));
+        engine.submit(new Order("BBB", OrderType.SELL, 1, 90));
+
+        OrderBook aaa = engine.getBook("AAA");
+        OrderBook bbb = engine.getBook("BBB");
+
+        assertNotSame(aaa, bbb);
+        assertEquals(1, aaa.getRestingOrderCount());
+        assertEquals(1, bbb.getRestingOrderCount());
+        assertNull(engine.getBook("CCC"));
+    }
+
+    @Test
+    void independentSymbolsCanBeProcessedOnSeparateThreads() throws InterruptedException {
+        MatchingEngine engine = new MatchingEngine();
+        String[] symbols = {"THA", "THB", "THC", "THD"};
+        int perThread = 10_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (String symbol : symbols) {
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    engine.submit(new Order(symbol, OrderType.SELL, 1, 100 + (i % 10)));
+                }
+                engine.submit(new Order(symbol, OrderType.BUY, perThread / 2, 200));
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (String symbol : symbols) {
+            assertEquals(perThread / 2, engine.getBook(symbol).getRestingOrderCount());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBatchTest {
+
+    @Test
+    void batchReportsPerOrderResultsAndRejectsNulls() {
+        MatchingEngine engine = new MatchingEngine();
+        Order sell = new Order("BAT", OrderType.SELL, 10, 100);
+        Order buy = new Order("BAT", OrderType.BUY, 15, 101);
+        Order lowBid = new Order("BAT", OrderType.BUY, 5, 99);
+
+        OrderBatchResult result = engine.submitAll(Arrays.asList(sell, null, buy, lowBid));
+
+        assertEquals(4, result.size());
+        assertEquals(3, result.getAcceptedCount());
+        assertFalse(result.isAccepted(1));
+        assertNotNull(result.getRejectionReason(1));
+
+        assertEquals(sell.getSequence(), result.getSequence(0));
+        assertEquals(0, result.getExecutedQuantity(0));
+        assertEquals(10, result.getRestingQuantity(0));
+        assertEquals(10, result.getExecutedQuantity(2));
+        assertEquals(5, result.getRestingQuantity(2));
+
+        assertEquals(1, result.getFills().size());
+        assertEquals(sell.getSequence(), result.getFills().get(0).getSellOrderSequence());
+        assertEquals(101, engine.getBook("BAT").getBestBid());
+        assertEquals(2, engine.getBook("BAT").getBidLevelCount());
+        assertFalse(engine.getBook("BAT").hasAsks());
+    }
+
+    @Test
+    void widelySpreadPricesKeepPriceTimePriority() {
+        MatchingEngine engine = new MatchingEngine();
+        // rozrzut cen ponad 2^31 ticków
+        Order far = new Order("BAW", OrderType.SELL, 5, 300_000);
+        Order near = new Order("BAW", OrderType.SELL, 5, 0.5);
+        Order nearLater = new Order("BAW", OrderType.SELL, 5, 0.5);
+        engine.submitAll(List.of(far, near, nearLater));
+
+        OrderBatchResult result = engine.submitAll(List.of(new Order("BAW", OrderType.BUY, 12, 400_000)));
+
+        List<Fill> fills = result.getFills();
+        assertEquals(List.of(near.getSequence(), nearLater.getSequence(), far.getSequence()),
+                fills.stream().map(Fill::getSellOrderSequence).toList());
+        assertEquals(0, result.getRestingQuantity(0));
+    }
+
+    @Test
+    void randomBatchesMatchSequentialSubmission() {
+        Random random = new Random(5);
+        String[] symbols = {"BAA", "BAB", "BAC"};
+        // wsad zgłasza transakcje symbol po symbolu, w kolejności identyfikatorów
+        Arrays.sort(symbols, Comparator.comparingInt(SymbolRegistry::intern));
+        MatchingEngine sequential = new MatchingEngine();
+        MatchingEngine batched = new MatchingEngine();
+
+        for (int round = 0; round < 50; round++) {
+            List<Order> orders = new ArrayList<>();
+            int size = 1 + random.nextInt(400);
+            for (int i = 0; i < size; i++) {
+                boolean buy = random.nextBoolean();
+                // ceny wokół 100 - część zleceń przecina spread, w tym zlecenia z tego samego wsadu
+                double price = 100 + (buy ? -1 : 1) * (random.nextInt(40) - 8) * 0.25;
+                orders.add(new Order(symbols[random.nextInt(symbols.length)],
+                        buy ? OrderType.BUY : OrderType.SELL, 1 + random.nextInt(50), price));
+            }
+
+            List<String> expectedFills = new ArrayList<>();
+            for (String symbol : symbols) {
+                for (Order order : orders) {
+                    if (order.getSymbol().equals(symbol)) {
+                        sequential.submit(order).forEach(fill -> expectedFills.add(describe(fill)));
+                    }
+                }
+            }
+
+            OrderBatchResult result = batched.submitAll(orders);
+            List<String> actualFills = new ArrayList<>();
+            result.getFills().forEach(fill -> actualFills.add(describe(fill)));
+
+            assertEquals(size, result.getAcceptedCount());
+            assertEquals(expectedFills, actualFills, "round " + round);
+            for (String symbol : symbols) {
+                assertEquals(restingOrders(sequential.getBook(symbol)), restingOrders(batched.getBook(symbol)),
+                        symbol + " round " + round);
+            }
+
+            // kolejki poziomów zbudowane przy scalaniu muszą dać się rozpinać przy anulowaniu
+            for (Order order : orders) {
+                if (random.nextInt(3) == 0) {
+                    assertEquals(sequential.cancel(order.getSymbolId(), order.getSequence()),
+                            batched.cancel(order.getSymbolId(), order.getSequence()));
+                }
+            }
+        }
+    }
+
+    private static String describe(Fill fill) {
+        return fill.getSymbol() + "|" + fill.getBuyOrderSequence() + "|" + fill.getSellOrderSequence()
+                + "|" + fill.getQuantity() + "|" + fill.getPrice();
+    }
+
+    private static List<String> restingOrders(OrderBook book) {
+        List<String> resting = new ArrayList<>();
+        if (book != null) {
+            book.forEachRestingOrder((side, price, quantity, sequence) ->
+                    resting.add(side + "|" + price + "|" + quantity + "|" + sequence));
+            resting.add("count=" + book.getRestingOrderCount());
+        }
+        return resting;
+    }
+}
@@ -0,0 +1,147 @@
+package com.stockmarket;
+
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    @Test
+    void nonCrossingOrdersRestOnBothSides() {
+        OrderBook book = new OrderBook("AAA");
+
+        assertTrue(book.submit(new Order("AAA", OrderType.BUY, 10, 99)).isEmpty());
+        assertTrue(book.submit(new Order("AAA", OrderType.SELL, 10, 101)).isEmpty());
+
+        assertEquals(99, book.getBestBid());
+        assertEquals(101, book.getBestAsk());
+        assertEquals(2, book.getRestingOrderCount());
+    }
+
+    @Test
+    void crossingOrderIsFilledAtRestingPrice() {
+        OrderBook book = new OrderBook("AAA");
+        Order sell = new Order("AAA", OrderType.SELL, 10, 100);
+        book.submit(sell);
+
+        Order buy = new Order("AAA", OrderType.BUY, 4, 105);
+        List<Fill> fills = book.submit(buy);
+
+        assertEquals(1, fills.size());
+        Fill fill = fills.get(0);
+        assertEquals(buy.getSequence(), fill.getBuyOrderSequence());
+        assertEquals(sell.getSequence(), fill.getSellOrderSequence());
+        assertEquals(4, fill.getQuantity());
+        assertEquals(100, fill.getPrice());
+
+        assertFalse(book.hasBids(), "Fully filled BUY must not rest in the book");
+        assertEquals(100, book.getBestAsk());
+    }
+
+    @Test
+    void sweepsMultipleLevelsInPriceThenTimePriority() {
+        OrderBook book = new OrderBook("AAA");
+        Order first = new Order("AAA", OrderType.SELL, 5, 101);
+        Order second = new Order("AAA", OrderType.SELL, 5, 101);
+        Order cheaper = new Order("AAA", OrderType.SELL, 5, 100);
+        book.submit(first);
+        book.submit(second);
+        book.submit(cheaper);
+
+        List<Fill> fills = book.submit(new Order("AAA", OrderType.BUY, 12, 101));
+
+        assertEquals(3, fills.size());
+        assertEquals(cheaper.getSequence(), fills.get(0).getSellOrderSequence());
+        assertEquals(first.getSequence(), fills.get(1).getSellOrderSequence());
+        assertEquals(second.getSequence(), fills.get(2).getSellOrderSequence());
+        assertEquals(2, fills.get(2).getQuantity());
+
+        assertEquals(101, book.getBestAsk());
+        assertEquals(1, book.getRestingOrderCount());
+    }
+
+    @Test
+    void unfilledRemainderRestsAtLimitPrice() {
+        OrderBook book = new OrderBook("AAA");
+        book.submit(new Order("AAA", OrderType.BUY, 3, 100));
+
+        List<Fill> fills = book.submit(new Order("AAA", OrderType.SELL, 10, 99));
+
+        assertEquals(1, fills.size());
+        assertFalse(book.hasBids());
+        assertEquals(99, book.getBestAsk());
+    }
+
+    @Test
+    void primitiveSubmitReportsFillsInTicksThroughListener() {
+        OrderBook book = new OrderBook("AAA");
+        long restingSeq = Order.nextSequence();
+        book.submit(OrderType.BUY, PriceTicks.toTicks(100.25), 7, restingSeq, null);
+
+        long[] captured = new long[4];
+        long incomingSeq = Order.nextSequence();
+        int remaining = book.submit(OrderType.SELL, PriceTicks.toTicks(100), 10, incomingSeq,
+                (symbolId, buySeq, sellSeq, priceTicks, quantity) -> {
+                    captured[0] = buySeq;
+                    captured[1] = sellSeq;
+                    captured[2] = priceTicks;
+                    captured[3] = quantity;
+                });
+
+        assertEquals(3, remaining);
+        assertEquals(restingSeq, captured[0]);
+        assertEquals(incomingSeq, captured[1]);
+        assertEquals(1_002_500, captured[2]);
+        assertEquals(7, captured[3]);
+        assertEquals(PriceTicks.toTicks(100), book.getBestAskTicks());
+    }
+
+    @Test
+    void releasedOrderSlotsAreReusedWithoutBreakingPriority() {
+        OrderBook book = new OrderBook("AAA");
+
+        for (int round = 0; round < 1_000; round++) {
+            book.submit(new Order("AAA", OrderType.SELL, 1, 100 + round % 5));
+            book.submit(new Order("AAA", OrderType.BUY, 1, 200));
+        }
+        assertEquals(0, book.getRestingOrderCount());
+        assertFalse(book.hasAsks());
+
+        Order first = new Order("AAA", OrderType.SELL, 1, 100);
+        Order second = new Order("AAA", OrderType.SELL, 1, 100);
+        book.submit(first);
+        book.submit(second);
+
+        List<Fill> fills = book.submit(new Order("AAA", OrderType.BUY, 1, 100));
+
+        assertEquals(first.getSequence(), fills.get(0).getSellOrderSequence());
+        assertEquals(1, book.getRestingOrderCount());
+    }
+
+    @Test
+    void orderForOtherSymbolIsRejected() {
+        OrderBook book = new OrderBook("AAA");
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> book.submit(new Order("BBB", OrderType.BUY, 1, 100))
+        );
+    }
+
+    @Test
+    void portfolioPlaceOrderMatchesWithinSymbolOnly() {
+        Portfolio portfolio = new Portfolio(1000);
+
+        portfolio.placeOrder(new Order("AAA", OrderType.SELL, 10, 100));
+        List<Fill> other = portfolio.placeOrder(new Order("BBB", OrderType.BUY, 10, 120));
+        List<Fill> fills = portfolio.placeOrder(new Order("AAA", OrderType.BUY, 10, 100));
+
+        assertTrue(other.isEmpty(), "Orders for different symbols must never match");
+        assertEquals(1, fills.size());
+        assertEquals(120, portfolio.getOrderBook("BBB").getBestBid());
+        assertEquals(0, portfolio.getOrderBook("AAA").getRestingOrderCount());
+    }
+}
@@ -0,0 +1,235 @@
+package com.stockmarket;
+
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCancelTest {
+
+    @Test
+    void cancelRemovesOrderAndEmptyLevel() {
+        Portfolio portfolio = new Portfolio(0);
+        Order first = new Order("CNL", OrderType.BUY, 10, 99);
+        Order second = new Order("CNL", OrderType.BUY, 5, 98);
+        portfolio.placeOrder(first);
+        portfolio.placeOrder(second);
+
+        assertEquals(10, portfolio.cancelOrder(first));
+        assertEquals(0, portfolio.cancelOrder(first), "Second cancel of the same order");
+
+        OrderBook book = portfolio.getOrderBook("CNL");
+        assertEquals(1, book.getRestingOrderCount());
+        assertEquals(1, book.getBidLevelCount());
+        assertEquals(98, book.getBestBid());
+    }
+
+    @Test
+    void ordersSubmittedOutOfCreationOrderCanBeCancelled() {
+        Portfolio portfolio = new Portfolio(0);
+        Order older = new Order("CNO", OrderType.SELL, 3, 101);
+        Order newer = new Order("CNO", OrderType.SELL, 4, 102);
+        portfolio.placeOrder(newer);
+        portfolio.placeOrder(older);
+
+        assertEquals(3, portfolio.cancelOrder(older));
+        assertEquals(4, portfolio.cancelOrder(newer));
+        assertFalse(portfolio.getOrderBook("CNO").hasAsks());
+    }
+
+    @Test
+    void filledOrderCannotBeCancelled() {
+        Portfolio portfolio = new Portfolio(0);
+        Order sell = new Order("CNF", OrderType.SELL, 10, 100);
+        portfolio.placeOrder(sell);
+        portfolio.placeOrder(new Order("CNF", OrderType.BUY, 4, 100));
+
+        assertEquals(6, portfolio.getOrderBook("CNF").getRestingQuantity(sell.getSequence()));
+        portfolio.placeOrder(new Order("CNF", OrderType.BUY, 6, 100));
+        assertEquals(0, portfolio.cancelOrder(sell));
+        assertThrows(IllegalStateException.class, () -> portfolio.amendOrder(sell, 100, 1));
+    }
+
+    @Test
+    void quantityDecreaseKeepsPriorityButPriceChangeLosesIt() {
+        Portfolio portfolio = new Portfolio(0);
+        Order first = new Order("CNA", OrderType.SELL, 10, 100);
+        Order second = new Order("CNA", OrderType.SELL, 10, 100);
+        portfolio.placeOrder(first);
+        portfolio.placeOrder(second);
+
+        portfolio.amendOrder(first, 100, 4);
+        List<Fill> fills = portfolio.placeOrder(new Order("CNA", OrderType.BUY, 4, 100));
+        assertEquals(first.getSequence(), fills.get(0).getSellOrderSequence());
+        assertEquals(4, fills.get(0).getQuantity());
+
+        Order third = new Order("CNA", OrderType.SELL, 10, 100);
+        portfolio.placeOrder(third);
+        // przez 101 i z powrotem: second traci kolejkę na rzecz third
+        portfolio.amendOrder(second, 101, 10);
+        portfolio.amendOrder(second, 100, 10);
+        fills = portfolio.placeOrder(new Order("CNA", OrderType.BUY, 10, 100));
+        assertEquals(third.getSequence(), fills.get(0).getSellOrderSequence());
+    }
+
+    @Test
+    void amendToCrossingPriceTradesImmediately() {
+        Portfolio portfolio = new Portfolio(0);
+        Order ask = new Order("CNX", OrderType.SELL, 5, 101);
+        Order bid = new Order("CNX", OrderType.BUY, 8, 99);
+        portfolio.placeOrder(ask);
+        portfolio.placeOrder(bid);
+
+        List<Fill> fills = portfolio.amendOrder(bid, 101, 8);
+
+        assertEquals(1, fills.size());
+        assertEquals(bid.getSequence(), fills.get(0).getBuyOrderSequence());
+        assertEquals(5, fills.get(0).getQuantity());
+        assertEquals(3, portfolio.getOrderBook("CNX").getRestingQuantity(bid.getSequence()));
+        assertFalse(portfolio.getOrderBook("CNX").hasAsks());
+    }
+
+    @Test
+    void cancelHeavyFlowMatchesReferenceModel() {
+        Random random = new Random(19);
+        OrderBook book = new OrderBook("CNR");
+        List<long[]> model = new ArrayList<>(); // {strona (0 = kupno), cena, ilość, sekwencja, kolejka}
+        List<Long> placed = new ArrayList<>();
+        long queueClock = 0;
+
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 3 || placed.isEmpty()) {
+                OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+                long price = 1_000_000 + (side == OrderType.BUY ? -1 : 1) * (random.nextInt(30) - 3) * 100L;
+                int quantity = 1 + random.nextInt(20);
+                long sequence = Order.nextSequence();
+                book.submit(side, price, quantity, sequence, null);
+                submitReference(model, side == OrderType.BUY ? 0 : 1, price, quantity, sequence, ++queueClock);
+                placed.add(sequence);
+            } else {
+                long sequence = placed.get(random.nextInt(placed.size()));
+                long[] order = model.stream().filter(o -> o[3] == sequence).findFirst().orElse(null);
+                if (action < 9) {
+                    assertEquals(order == null ? 0 : order[2], book.cancel(sequence), "step " + step);
+                    model.remove(order);
+                } else {
+                    long price = 1_000_000 + (random.nextInt(40) - 20) * 100L;
+                    int quantity = 1 + random.nextInt(20);
+                    assertEquals(order != null, book.amend(sequence, price, quantity, null), "step " + step);
+                    if (order != null) {
+                        if (order[1] == price && quantity <= order[2]) {
+                            order[2] = quantity;
+                        } else {
+                            model.remove(order);
+                            submitReference(model, (int) order[0], price, quantity, sequence, ++queueClock);
+                        }
+                    }
+                }
+            }
+            assertEquals(describe(model), describe(book), "step " + step);
+        }
+    }
+
+    // tysiące poziomów po obu stronach, bez przecinania spreadu: anulowania opróżniają
+    // poziomy w głębi, a kolejność poziomów i kolejek musi zostać jak w modelu
+    @Test
+    void deepBookCancelsKeepLevelsInPriceOrder() {
+        Random random = new Random(29);
+        OrderBook book = new OrderBook("CND");
+        // strona -> cena -> sekwencje w kolejce
+        List<TreeMap<Long, List<Long>>> model = List.of(new TreeMap<>(Comparator.reverseOrder()), new TreeMap<>());
+        List<long[]> placed = new ArrayList<>(); // {strona, cena, sekwencja}
+
+        for (int step = 0; step < 30_000; step++) {
+            if (placed.isEmpty() || random.nextInt(5) < 3) {
+                int side = random.nextInt(2);
+                long price = 1_000_000 + (side == 0 ? -1 : 1) * (1 + random.nextInt(5_000));
+                long sequence = Order.nextSequence();
+                book.submit(side == 0 ? OrderType.BUY : OrderType.SELL, price, 1, sequence, null);
+                model.get(side).computeIfAbsent(price, p -> new ArrayList<>()).add(sequence);
+                placed.add(new long[]{side, price, sequence});
+            } else {
+                long[] order = placed.remove(random.nextInt(placed.size()));
+                assertEquals(1, book.cancel(order[2]), "step " + step);
+                List<Long> queue = model.get((int) order[0]).get(order[1]);
+                queue.remove(order[2]);
+                if (queue.isEmpty()) {
+                    model.get((int) order[0]).remove(order[1]);
+                }
+            }
+
+            assertEquals(model.get(0).size(), book.getBidLevelCount(), "step " + step);
+            assertEquals(model.get(1).size(), book.getAskLevelCount(), "step " + step);
+            if (!model.get(0).isEmpty()) {
+                assertEquals((long) model.get(0).firstKey(), book.getBestBidTicks(), "step " + step);
+            }
+            if (!model.get(1).isEmpty()) {
+                assertEquals((long) model.get(1).firstKey(), book.getBestAskTicks(), "step " + step);
+            }
+            if (step % 1_000 == 0) {
+                List<String> expected = new ArrayList<>();
+                for (int side = 0; side < 2; side++) {
+                    for (var level : model.get(side).entrySet()) {
+                        for (long sequence : level.getValue()) {
+                            expected.add((side == 0 ? OrderType.BUY : OrderType.SELL) + "|" + level.getKey() + "|1|" + sequence);
+                        }
+                    }
+                }
+                expected.add("count=" + placed.size());
+                assertEquals(expected, describe(book), "step " + step);
+            }
+        }
+    }
+
+    private static void submitReference(List<long[]> model, int side, long price, int quantity,
+                                        long sequence, long queue) {
+        int remaining = quantity;
+        while (remaining > 0) {
+            long[] best = model.stream()
+                    .filter(o -> o[0] != side && (side == 0 ? o[1] <= price : o[1] >= price))
+                    .min(Comparator.<long[]>comparingLong(o -> side == 0 ? o[1] : -o[1]).thenComparingLong(o -> o[4]))
+                    .orElse(null);
+            if (best == null) {
+                break;
+            }
+            int traded = (int) Math.min(remaining, best[2]);
+            remaining -= traded;
+            best[2] -= traded;
+            if (best[2] == 0) {
+                model.remove(best);
+            }
+        }
+        if (remaining > 0) {
+            model.add(new long[]{side, price, remaining, sequence, queue});
+        }
+    }
+
+    private static List<String> describe(List<long[]> model) {
+        List<long[]> sorted = new ArrayList<>(model);
+        // jak forEachRestingOrder: bidy od najlepszego, potem aski od najlepszego, w kolejce wg czasu
+        sorted.sort(Comparator.<long[]>comparingLong(o -> o[0])
+                .thenComparingLong(o -> o[0] == 0 ? -o[1] : o[1])
+                .thenComparingLong(o -> o[4]));
+        List<String> lines = new ArrayList<>();
+        for (long[] o : sorted) {
+            lines.add((o[0] == 0 ? OrderType.BUY : OrderType.SELL) + "|" + o[1] + "|" + o[2] + "|" + o[3]);
+        }
+        lines.add("count=" + model.size());
+        return lines;
+    }
+
+    private static List<String> describe(OrderBook book) {
+        List<String> lines = new ArrayList<>();
+        book.forEachRestingOrder((side, price, quantity, sequence) ->
+                lines.add(side + "|" + price + "|" + quantity + "|" + sequence));
+        lines.add("count=" + book.getRestingOrderCount());
+        return lines;
+    }
+}
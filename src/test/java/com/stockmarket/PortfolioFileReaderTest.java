@@ -5,12 +5,17 @@ import com.stockmarket.logic.AssetPosition;
 import com.stockmarket.logic.DataIntegrityException;
 import com.stockmarket.logic.Portfolio;
 import com.stockmarket.logic.PortfolioFileReader;
+import com.stockmarket.logic.PurchaseLot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,6 +89,78 @@ class PortfolioFileReaderTest {
         );
     }
 
+    @Test
+    void load_recordsSpanningMappingWindows_areParsedLikeLineReader() throws IOException {
+        Path file = tempDir.resolve("windows.txt");
+
+        String longestLine = "ASSET|CURRENCY|eur|Euro zł|4.3215|60|0.0125\r\n";
+        StringBuilder content = new StringBuilder("HEADER|CASH|1234.5\r\n\n   \n");
+        content.append(longestLine);
+        for (int i = 0; i < 20; i++) {
+            content.append("LOT|2023-03-").append(String.format("%02d", i + 1)).append("|3|4.")
+                    .append(1000 + i * 37).append("\n");
+        }
+        Files.writeString(file, content.toString());
+
+        // okno dwa razy dłuższe od najdłuższej linii: rekordy przecinają granice kilku
+        // okien, ale żaden nie zbliża się do limitu długości linii
+        int window = 2 * longestLine.getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(Files.size(file) > 4 * window);
+        Portfolio portfolio = new PortfolioFileReader(window).load(file);
+
+        assertEquals(1234.5, portfolio.getCash());
+        AssetPosition position = portfolio.getPositionBySymbol("EUR");
+        assertEquals("Euro zł", position.getAsset().getName());
+        assertEquals(0.0125, ((Currency) position.getAsset()).getSpread());
+        assertEquals(60, position.getTotalQuantity());
+
+        List<PurchaseLot> lots = new ArrayList<>(position.getLots());
+        lots.sort((a, b) -> a.getPurchaseDate().compareTo(b.getPurchaseDate()));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(LocalDate.of(2023, 3, i + 1), lots.get(i).getPurchaseDate());
+            assertEquals(Double.parseDouble("4." + (1000 + i * 37)), lots.get(i).getUnitPrice());
+        }
+    }
+
+    @Test
+    void load_decimalNotationsMatchDoubleParsing() throws IOException {
+        String[] prices = {"100", "100.0", "0.1", "123.456", "1.0E-4", "9007199254740993.5", "7.000000000000001"};
+        Path file = tempDir.resolve("decimals.txt");
+
+        StringBuilder content = new StringBuilder("HEADER|CASH|0.3\nASSET|SHARE|DEC|Decimals|1|" + prices.length + "\n");
+        for (int i = 0; i < prices.length; i++) {
+            content.append("LOT|2020-01-").append(String.format("%02d", i + 1)).append("|1|").append(prices[i]).append("\n");
+        }
+        Files.writeString(file, content.toString());
+
+        Portfolio portfolio = new PortfolioFileReader().load(file);
+
+        assertEquals(0.3, portfolio.getCash());
+        List<PurchaseLot> lots = new ArrayList<>(portfolio.getPositionBySymbol("DEC").getLots());
+        lots.sort((a, b) -> a.getPurchaseDate().compareTo(b.getPurchaseDate()));
+        for (int i = 0; i < prices.length; i++) {
+            assertEquals(Double.parseDouble(prices[i]), lots.get(i).getUnitPrice(), "price " + prices[i]);
+        }
+    }
+
+    @Test
+    void load_lotBeforeAssetOrUnknownRecord_throwsDataIntegrityException() throws IOException {
+        Path lotFirst = tempDir.resolve("lot-first.txt");
+        Files.writeString(lotFirst, "HEADER|CASH|10\nLOT|2023-01-01|1|100\n");
+
+        Path unknown = tempDir.resolve("unknown.txt");
+        Files.writeString(unknown, "HEADER|CASH|10\nPOSITION|X\n");
+
+        Path badHeader = tempDir.resolve("bad-header.txt");
+        Files.writeString(badHeader, "HEADER|MONEY|10\n");
+
+        PortfolioFileReader reader = new PortfolioFileReader();
+
+        assertThrows(DataIntegrityException.class, () -> reader.load(lotFirst));
+        assertThrows(DataIntegrityException.class, () -> reader.load(unknown));
+        assertThrows(DataIntegrityException.class, () -> reader.load(badHeader));
+    }
+
     private AssetPosition findPosition(
             Portfolio portfolio,
             String symbol,
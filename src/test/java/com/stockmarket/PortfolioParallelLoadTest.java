@@ -0,0 +1,118 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioParallelLoadTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelLoadProducesSamePortfolioAsSequentialLoad() throws IOException {
+        Path file = tempDir.resolve("large.txt");
+        writeLargeFile(file, 2_000, 120, -1);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Portfolio sequential = new PortfolioFileReader().load(file);
+            Portfolio parallel = new PortfolioFileReader().loadParallel(file, pool);
+
+            assertEquals(sequential.getCash(), parallel.getCash());
+
+            int positions = 0;
+            for (AssetPosition expected : sequential.getPositions()) {
+                positions++;
+                AssetPosition actual = parallel.getPositionBySymbol(expected.getAsset().getSymbol());
+                assertNotNull(actual);
+                assertEquals(expected.getAsset().getClass(), actual.getAsset().getClass());
+                assertEquals(expected.getTotalQuantity(), actual.getTotalQuantity());
+                assertEquals(LotDescriptions.describe(expected), LotDescriptions.describe(actual));
+            }
+            assertEquals(2_000, positions);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelLoadRejectsInconsistentBlock() throws IOException {
+        Path file = tempDir.resolve("broken-large.txt");
+        writeLargeFile(file, 2_000, 120, 1_500);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThrows(
+                    DataIntegrityException.class,
+                    () -> new PortfolioFileReader().loadParallel(file, pool)
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void repeatedHeaderIsRejectedByBothLoadModes() throws IOException {
+        Path file = tempDir.resolve("two-headers.txt");
+        writeLargeFile(file, 2_000, 120, -1);
+        Files.writeString(file, "HEADER|CASH|1\n", StandardOpenOption.APPEND);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PortfolioFileReader reader = new PortfolioFileReader();
+            assertThrows(DataIntegrityException.class, () -> reader.load(file));
+            assertThrows(DataIntegrityException.class, () -> reader.loadParallel(file, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelLoadOfSmallFileFallsBackToSequentialValidation() throws IOException {
+        Path file = tempDir.resolve("small.txt");
+        Files.writeString(file, "ASSET|SHARE|AAA|Share|100|1\nLOT|2023-01-01|1|100\n");
+
+        assertThrows(
+                DataIntegrityException.class,
+                () -> new PortfolioFileReader().loadParallel(file)
+        );
+    }
+
+    // brokenAsset >= 0: deklarowana ilość tego aktywa nie zgadza się z sumą LOT
+    private static void writeLargeFile(Path file, int assets, int lotsPerAsset, int brokenAsset) throws IOException {
+        LocalDate start = LocalDate.of(2018, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("HEADER|CASH|987654.25\n");
+            for (int a = 0; a < assets; a++) {
+                String symbol = "P" + (char) ('A' + a / 676 % 26) + (char) ('A' + a / 26 % 26) + (char) ('A' + a % 26);
+                int declared = 0;
+                for (int l = 0; l < lotsPerAsset; l++) {
+                    declared += 1 + l % 5;
+                }
+                if (a == brokenAsset) {
+                    declared++;
+                }
+                switch (a % 3) {
+                    case 0 -> writer.write("ASSET|SHARE|" + symbol + "|Share " + a + "|" + (10.5 + a) + "|" + declared + "\n");
+                    case 1 -> writer.write("ASSET|CURRENCY|" + symbol + "|Fx " + a + "|" + (5.25 + a) + "|" + declared + "|0.5\n");
+                    default -> writer.write("ASSET|COMMODITY|" + symbol + "|Cmd " + a + "|" + (20.0 + a) + "|" + declared + "|0.01\n");
+                }
+                for (int l = 0; l < lotsPerAsset; l++) {
+                    writer.write("LOT|" + start.plusDays(l) + "|" + (1 + l % 5) + "|" + (10 + l * 0.25) + "\n");
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.stockmarket;
 
 import com.stockmarket.domain.*;
+import com.stockmarket.logic.MarketData;
 import com.stockmarket.logic.Portfolio;
 import com.stockmarket.logic.PortfolioReportGenerator;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PortfolioReportGeneratorTest {
@@ -64,6 +75,26 @@ class PortfolioReportGeneratorTest {
         assertTrue(report.contains("COMMODITY | GLD | ilość: " + q + " | wartość: " + commodityValue));
     }
 
+    @Test
+    void generateReport_rowsUseMarketPricesLikeTheHeader() {
+        MarketData marketData = new MarketData();
+        Portfolio portfolio = new Portfolio(10_000, marketData);
+        Share cheap = new Share("RPMA", "Share", 10);
+        Share dear = new Share("RPMB", "Share", 20);
+        portfolio.buyAsset(cheap, 10);
+        portfolio.buyAsset(dear, 10);
+
+        marketData.setPrice("RPMA", 100);
+        String[] lines = new PortfolioReportGenerator().generateReport(portfolio).split("\n");
+
+        double cheapValue = cheap.calculateRealValueAt(10, 100);
+        double dearValue = dear.calculateRealValue(10);
+        assertEquals("Łączna wartość portfela: " + portfolio.calculateTotalValue(), lines[2]);
+        assertEquals("SHARE | RPMA | ilość: 10 | wartość: " + cheapValue, lines[3]);
+        assertEquals("SHARE | RPMB | ilość: 10 | wartość: " + dearValue, lines[4]);
+        assertEquals(portfolio.calculateTotalValue(), portfolio.getCash() + cheapValue + dearValue, 1e-9);
+    }
+
     @Test
     void generateReport_whenPortfolioHasNoPositions_stillBuildsValidReport() {
         Portfolio portfolio = new Portfolio(1234.5);
@@ -79,4 +110,87 @@ class PortfolioReportGeneratorTest {
         assertFalse(report.contains("CURRENCY |"));
         assertFalse(report.contains("COMMODITY |"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateReport_largePortfolioInParallel_ordersByValueThenSymbol() {
+        List<Asset> assets = new ArrayList<>();
+        Portfolio portfolio = largePortfolio(assets);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        String report;
+        String sequential;
+        try {
+            report = new PortfolioReportGenerator().generateReport(portfolio, pool);
+            sequential = new PortfolioReportGenerator().generateReport(portfolio, single);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+
+        assets.sort(Comparator.<Asset>comparingDouble(a -> -a.calculateRealValue(quantity(portfolio, a)))
+                .thenComparing(Asset::getSymbol));
+        String[] lines = report.split("\n");
+        assertEquals(3 + assets.size(), lines.length);
+        for (int i = 0; i < assets.size(); i++) {
+            Asset asset = assets.get(i);
+            int q = quantity(portfolio, asset);
+            assertEquals("SHARE | " + asset.getSymbol() + " | ilość: " + q + " | wartość: "
+                    + asset.calculateRealValue(q), lines[3 + i]);
+        }
+        assertEquals(sequential, report);
+    }
+
+    @Test
+    void writeReport_streamsTheSameTextToAppendableAndChannel() throws IOException {
+        Portfolio portfolio = largePortfolio(new ArrayList<>());
+        PortfolioReportGenerator gen = new PortfolioReportGenerator();
+        String expected = gen.generateReport(portfolio);
+
+        StringBuilder appended = new StringBuilder();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            gen.writeReport(portfolio, appended, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(expected, appended.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        gen.writeReport(portfolio, Channels.newChannel(bytes));
+        assertEquals(expected, bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void generateTopReport_keepsOnlyLargestPositionsInReportOrder() {
+        Portfolio portfolio = largePortfolio(new ArrayList<>());
+        PortfolioReportGenerator gen = new PortfolioReportGenerator();
+        String[] full = gen.generateReport(portfolio).split("\n");
+
+        for (int limit : new int[]{1, 7, 1000}) {
+            String[] top = gen.generateTopReport(portfolio, limit).split("\n");
+            assertArrayEquals(Arrays.copyOf(full, 3 + limit), top, "limit " + limit);
+        }
+        assertArrayEquals(full, gen.generateTopReport(portfolio, 50_000).split("\n"));
+        assertThrows(IllegalArgumentException.class, () -> gen.generateTopReport(portfolio, 0));
+    }
+
+    private static Portfolio largePortfolio(List<Asset> assets) {
+        Portfolio portfolio = new Portfolio(1_000_000_000);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder symbol = new StringBuilder("RP");
+            for (int v = i, k = 0; k < 4; k++, v /= 26) {
+                symbol.append((char) ('A' + v % 26));
+            }
+            // mało różnych wartości: dużo remisów rozstrzyganych symbolem
+            Asset asset = new Share(symbol.reverse().toString(), "Share", 10 + i % 7);
+            portfolio.buyAsset(asset, 1 + i % 3);
+            assets.add(asset);
+        }
+        return portfolio;
+    }
+
+    private static int quantity(Portfolio portfolio, Asset asset) {
+        return portfolio.getPosition(asset.getSymbolId()).getTotalQuantity();
+    }
+}
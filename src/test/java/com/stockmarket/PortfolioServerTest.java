@@ -0,0 +1,148 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.*;
+import com.stockmarket.server.PortfolioServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioServerTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void buySellOrdersValuationAndReportGoThroughServer() throws Exception {
+        try (PortfolioServer server = PortfolioServer.start(0)) {
+            Share share = new Share("SRVA", "Serwer", 10);
+            assertEquals("SRVA", call(server, "POST", "/assets?type=SHARE&symbol=SRVA&name=Serwer&price=10").body());
+            int buyer = Integer.parseInt(call(server, "POST", "/accounts?cash=10000").body());
+            int seller = Integer.parseInt(call(server, "POST", "/accounts?cash=5000").body());
+
+            HttpResponse<String> bought = call(server, "POST", "/buy?account=" + buyer + "&symbol=srva&quantity=100");
+            assertEquals(200, bought.statusCode());
+            assertEquals(10_000 - share.calculatePurchaseCost(100), Double.parseDouble(bought.body()), 1e-9);
+
+            call(server, "POST", "/prices?symbol=SRVA&price=12");
+            Portfolio account = server.getAccountManager().getAccount(buyer);
+            double expected = account.getCash() + share.calculateRealValueAt(100, 12);
+            assertEquals(expected, Double.parseDouble(call(server, "GET", "/value?account=" + buyer).body()), 1e-9);
+            assertEquals(expected + 5_000, Double.parseDouble(call(server, "GET", "/value").body()), 1e-9);
+
+            HttpResponse<String> sold = call(server, "POST", "/sell?account=" + buyer + "&symbol=SRVA&quantity=40&price=12");
+            assertEquals(200, sold.statusCode());
+            assertEquals(60, account.getPositionBySymbol("SRVA").getTotalQuantity());
+
+            String report = call(server, "GET", "/report?account=" + buyer + "&top=1").body();
+            assertTrue(report.startsWith("=== RAPORT PORTFELA ==="));
+            assertTrue(report.contains("SHARE | SRVA | ilość: 60"));
+
+            String resting = call(server, "POST", "/orders?account=" + seller + "&symbol=SRVA&side=SELL&quantity=5&price=11").body();
+            String crossing = call(server, "POST", "/orders?account=" + buyer + "&symbol=SRVA&side=buy&quantity=3&price=12").body();
+            String[] lines = crossing.split("\n");
+            assertEquals(2, lines.length, "Sekwencja i jedna transakcja");
+            String[] fill = lines[1].split(" ");
+            assertEquals(lines[0], fill[0]);
+            assertEquals(resting.trim(), fill[1]);
+            assertEquals("3", fill[2]);
+            assertEquals(11.0, Double.parseDouble(fill[3]));
+        }
+    }
+
+    @Test
+    void errorsMapToHttpStatuses() throws Exception {
+        try (PortfolioServer server = PortfolioServer.start(0)) {
+            call(server, "POST", "/assets?type=SHARE&symbol=SRVB&price=100");
+            int account = Integer.parseInt(call(server, "POST", "/accounts?cash=100").body());
+
+            assertEquals(400, call(server, "POST", "/buy?account=99&symbol=SRVB&quantity=1").statusCode());
+            assertEquals(400, call(server, "POST", "/buy?account=" + account + "&symbol=SRVB").statusCode());
+            assertEquals(400, call(server, "POST", "/buy?account=" + account + "&symbol=NOPE&quantity=1").statusCode());
+            assertEquals(400, call(server, "POST", "/orders?account=" + account + "&symbol=SRVB&side=HOLD&quantity=1&price=1").statusCode());
+            assertEquals(400, call(server, "POST", "/orders?account=" + account + "&symbol=SRVNOPE&side=BUY&quantity=1&price=1").statusCode());
+            assertEquals(400, call(server, "POST", "/prices?symbol=SRVNOPE2&price=1").statusCode());
+            assertEquals(-1, SymbolRegistry.find("SRVNOPE"), "Nieznany symbol nie trafia do rejestru");
+            assertEquals(-1, SymbolRegistry.find("SRVNOPE2"));
+            assertEquals(409, call(server, "POST", "/buy?account=" + account + "&symbol=SRVB&quantity=2").statusCode(),
+                    "Brak środków");
+            assertEquals(409, call(server, "POST", "/sell?account=" + account + "&symbol=SRVB&quantity=1&price=100").statusCode(),
+                    "Brak pozycji");
+            assertEquals(405, call(server, "GET", "/buy?account=" + account + "&symbol=SRVB&quantity=1").statusCode());
+            assertEquals(404, call(server, "GET", "/values").statusCode());
+            assertEquals(100.0, server.getAccountManager().getAccount(account).getCash());
+        }
+    }
+
+    @Test
+    void unexpectedExceptionStillGetsResponse() throws Exception {
+        AccountManager failing = new AccountManager() {
+            @Override
+            public double calculateTotalValue() {
+                throw new ArithmeticException("test");
+            }
+        };
+        try (PortfolioServer server = PortfolioServer.start(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), failing)) {
+            HttpResponse<String> response = call(server, "GET", "/value");
+            assertEquals(500, response.statusCode());
+            assertTrue(response.body().contains("ArithmeticException"));
+            assertEquals(200, call(server, "POST", "/accounts?cash=1").statusCode(), "Serwer działa dalej");
+        }
+    }
+
+    // ceny całkowite: koszty są dokładne w double, więc gotówkę można porównać ściśle
+    @Test
+    void concurrentRequestsOnOneAccountLoseNothing() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        try (PortfolioServer server = PortfolioServer.start(0)) {
+            Share share = new Share("SRVC", "Rownolegle", 10);
+            call(server, "POST", "/assets?type=SHARE&symbol=SRVC&price=10");
+            int account = Integer.parseInt(call(server, "POST", "/accounts?cash=1000000").body());
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            assertEquals(200, call(server, "POST", "/buy?account=" + account + "&symbol=SRVC&quantity=1").statusCode());
+                            call(server, "GET", "/value?account=" + account);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            Portfolio portfolio = server.getAccountManager().getAccount(account);
+            assertEquals(threads * perThread, portfolio.getPositionBySymbol("SRVC").getTotalQuantity());
+            assertEquals(1_000_000 - threads * perThread * share.calculatePurchaseCost(1), portfolio.getCash());
+        }
+    }
+
+    private HttpResponse<String> call(PortfolioServer server, String method, String pathAndQuery) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + pathAndQuery))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void saveThenLoad_preservesAllAssetTypesAndLotsExactly() throws IOException {
+        Portfolio original = new Portfolio(12_345.678);
+
+        Share share = new Share("AAA", "Akcja ąę", 100.25);
+        Currency currency = new Currency("USD", "Dollar", 4.1234, 0.0125);
+        Commodity commodity = new Commodity("GLD", "Gold", 1900, 0.3);
+
+        original.putPositionForLoad(share);
+        original.putPositionForLoad(currency);
+        original.putPositionForLoad(commodity);
+
+        original.getPositionBySymbol("AAA").addLot(new PurchaseLot(LocalDate.of(2023, 1, 2), 3, 99.5));
+        original.getPositionBySymbol("AAA").addLot(new PurchaseLot(LocalDate.of(2022, 12, 30), 2, 101.75));
+        // ta sama data co pierwsza partia - FIFO wg kolejności dodania
+        original.getPositionBySymbol("AAA").addLot(new PurchaseLot(LocalDate.of(2023, 1, 2), 7, 98.0));
+        original.getPositionBySymbol("USD").addLot(new PurchaseLot(LocalDate.of(1999, 1, 1), 1000, 1.0 / 3));
+        original.getPositionBySymbol("GLD").addLot(new PurchaseLot(LocalDate.of(2023, 5, 5), 1, 1850.123456));
+
+        Path file = tempDir.resolve("portfolio.snap");
+        new PortfolioSnapshotWriter().save(original, file);
+        Portfolio loaded = new PortfolioSnapshotReader().load(file);
+
+        assertEquals(original.getCash(), loaded.getCash());
+
+        for (AssetPosition expected : original.getPositions()) {
+            AssetPosition actual = loaded.getPositionBySymbol(expected.getAsset().getSymbol());
+            assertNotNull(actual);
+            assertEquals(expected.getAsset().getClass(), actual.getAsset().getClass());
+            assertEquals(expected.getAsset().getName(), actual.getAsset().getName());
+            assertEquals(expected.getAsset().getBasePrice(), actual.getAsset().getBasePrice());
+            assertEquals(expected.getTotalQuantity(), actual.getTotalQuantity());
+            assertEquals(LotDescriptions.describe(expected), LotDescriptions.describe(actual));
+        }
+
+        assertEquals(0.0125, ((Currency) loaded.getPositionBySymbol("USD").getAsset()).getSpread());
+        assertEquals(0.3, ((Commodity) loaded.getPositionBySymbol("GLD").getAsset()).getStorageCostPerUnitPerDay());
+    }
+
+    @Test
+    void snapshotIsSeveralTimesSmallerThanTextFormat() throws IOException {
+        Portfolio portfolio = new Portfolio(1000);
+        Share share = new Share("BIG", "Big", 50);
+        portfolio.putPositionForLoad(share);
+        AssetPosition position = portfolio.getPositionBySymbol("BIG");
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 5_000; i++) {
+            position.addLot(new PurchaseLot(start.plusDays(i), 1 + i % 10, 45.25 + (i % 100) * 0.01));
+        }
+
+        Path text = tempDir.resolve("portfolio.txt");
+        Path binary = tempDir.resolve("portfolio.snap");
+        new PortfolioFileWriter().save(portfolio, text);
+        new PortfolioSnapshotWriter().save(portfolio, binary);
+
+        assertTrue(Files.size(binary) * 2 < Files.size(text),
+                "binary " + Files.size(binary) + " vs text " + Files.size(text));
+        assertEquals(position.getTotalQuantity(),
+                new PortfolioSnapshotReader().load(binary).getPositionBySymbol("BIG").getTotalQuantity());
+    }
+
+    @Test
+    void corruptedAssetBlockIsDetectedByChecksum() throws IOException {
+        Portfolio portfolio = new Portfolio(10);
+        portfolio.buyAsset(new Share("AAA", "Share", 1), 2);
+
+        Path file = tempDir.resolve("corrupt.snap");
+        new PortfolioSnapshotWriter().save(portfolio, file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 12] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertThrows(DataIntegrityException.class, () -> new PortfolioSnapshotReader().load(file));
+    }
+
+    @Test
+    void truncatedOrForeignFileIsRejected() throws IOException {
+        Portfolio portfolio = new Portfolio(10);
+        portfolio.buyAsset(new Share("AAA", "Share", 1), 2);
+
+        Path file = tempDir.resolve("truncated.snap");
+        new PortfolioSnapshotWriter().save(portfolio, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+
+        Path text = tempDir.resolve("text.txt");
+        Files.writeString(text, "HEADER|CASH|10\n");
+
+        PortfolioSnapshotReader reader = new PortfolioSnapshotReader();
+        assertThrows(DataIntegrityException.class, () -> reader.load(file));
+        assertThrows(DataIntegrityException.class, () -> reader.load(text));
+    }
+
+    @Test
+    void corruptedBlockLengthIsRejectedBeforeAllocation() throws IOException {
+        Portfolio portfolio = new Portfolio(10);
+        portfolio.buyAsset(new Share("AAA", "Share", 1), 2);
+
+        Path file = tempDir.resolve("length.snap");
+        new PortfolioSnapshotWriter().save(portfolio, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        // MAGIC, wersja, HEADER z gotówką, tag ASSET - dalej długość pierwszego bloku
+        int lengthOffset = 4 + 2 + 1 + 8 + 1;
+        PortfolioSnapshotReader reader = new PortfolioSnapshotReader();
+        for (int length : new int[]{Integer.MAX_VALUE, bytes.length}) {
+            java.nio.ByteBuffer.wrap(bytes).putInt(lengthOffset, length);
+            Files.write(file, bytes);
+            assertThrows(DataIntegrityException.class, () -> reader.load(file));
+        }
+    }
+}
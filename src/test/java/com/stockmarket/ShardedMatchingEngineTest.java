@@ -0,0 +1,138 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedMatchingEngineTest {
+
+    private static final String[] SYMBOLS = {"SHA", "SHB", "SHC", "SHD", "SHE", "SHF", "SHG"};
+
+    @Test
+    void shardedEngineProducesSameFillsPerSymbolAsSingleThreadedEngine() {
+        int[] symbolIds = new int[SYMBOLS.length];
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            symbolIds[i] = SymbolRegistry.intern(SYMBOLS[i]);
+        }
+
+        int n = 50_000;
+        int[] symbols = new int[n];
+        OrderType[] sides = new OrderType[n];
+        long[] prices = new long[n];
+        int[] quantities = new int[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            symbols[i] = symbolIds[random.nextInt(symbolIds.length)];
+            sides[i] = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+            prices[i] = 1_000_000 + random.nextInt(200) - 100;
+            quantities[i] = 1 + random.nextInt(50);
+        }
+
+        Map<Long, Integer> referenceIndex = new HashMap<>();
+        Map<Integer, List<String>> reference = new HashMap<>();
+        MatchingEngine single = new MatchingEngine();
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            long seq = single.submit(symbols[i], sides[i], prices[i], quantities[i],
+                    (symbolId, buySeq, sellSeq, priceTicks, quantity) ->
+                            reference.computeIfAbsent(symbolId, k -> new ArrayList<>())
+                                    .add(describe(referenceIndex, index, buySeq, sellSeq, priceTicks, quantity)));
+            referenceIndex.put(seq, i);
+        }
+
+        Map<Long, Integer> shardedIndex = new ConcurrentHashMap<>();
+        Map<Integer, List<long[]>> rawFills = new ConcurrentHashMap<>();
+        try (ShardedMatchingEngine sharded = new ShardedMatchingEngine(3, 1024,
+                (symbolId, buySeq, sellSeq, priceTicks, quantity) ->
+                        rawFills.computeIfAbsent(symbolId, k -> new ArrayList<>())
+                                .add(new long[]{buySeq, sellSeq, priceTicks, quantity}))) {
+
+            for (int i = 0; i < n; i++) {
+                long seq = sharded.submit(symbols[i], sides[i], prices[i], quantities[i]);
+                shardedIndex.put(seq, i);
+            }
+            sharded.awaitIdle();
+
+            for (int symbolId : symbolIds) {
+                assertEquals(
+                        single.getBook(symbolId).getRestingOrderCount(),
+                        sharded.getBook(symbolId).getRestingOrderCount()
+                );
+            }
+        }
+
+        for (int symbolId : symbolIds) {
+            List<String> actual = new ArrayList<>();
+            for (long[] f : rawFills.getOrDefault(symbolId, List.of())) {
+                actual.add(describe(shardedIndex, -1, f[0], f[1], f[2], (int) f[3]));
+            }
+            assertEquals(reference.getOrDefault(symbolId, List.of()), actual,
+                    "Fills for " + SymbolRegistry.symbolOf(symbolId) + " must be deterministic");
+        }
+    }
+
+    @Test
+    void submitAfterCloseIsRejected() {
+        ShardedMatchingEngine engine = new ShardedMatchingEngine(2, 64, null);
+        engine.close();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> engine.submit(new Order("SHA", OrderType.BUY, 1, 10))
+        );
+    }
+
+    @Test
+    void submitToFullRingOfDeadShardFailsInsteadOfSpinning() {
+        ShardedMatchingEngine engine = new ShardedMatchingEngine(1, 4,
+                (symbolId, buySeq, sellSeq, priceTicks, quantity) -> {
+                    throw new IllegalStateException("Słuchacz przerywa wątek dopasowujący.");
+                });
+        int symbolId = SymbolRegistry.intern("SHA");
+        engine.submit(symbolId, OrderType.SELL, 1_000_000, 1);
+        engine.submit(symbolId, OrderType.BUY, 1_000_000, 1);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                engine.submit(symbolId, OrderType.BUY, 900_000, 1);
+            }
+        }));
+    }
+
+    @Test
+    void submittedOrderKeepsItsSequence() {
+        Order order = new Order("SHB", OrderType.BUY, 5, 10);
+        try (ShardedMatchingEngine engine = new ShardedMatchingEngine(2, 64, null)) {
+            assertEquals(order.getSequence(), engine.submit(order));
+            engine.awaitIdle();
+            assertEquals(0, engine.getBook(order.getSymbolId()).cancel(order.getSequence() + 1));
+            assertEquals(5, engine.getBook(order.getSymbolId()).cancel(order.getSequence()));
+        }
+    }
+
+    @Test
+    void ringCapacityMustBePowerOfTwo() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ShardedMatchingEngine(1, 1000, null)
+        );
+    }
+
+    // zlecenie przychodzące dostaje numer sekwencyjny dopiero po submit(),
+    // więc brakujący wpis w indeksie oznacza bieżące zlecenie
+    private static String describe(Map<Long, Integer> index, int incoming,
+                                   long buySeq, long sellSeq, long price, int quantity) {
+        return index.getOrDefault(buySeq, incoming) + "/" + index.getOrDefault(sellSeq, incoming)
+                + "@" + price + "x" + quantity;
+    }
+}
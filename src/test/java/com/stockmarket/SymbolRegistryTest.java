@@ -0,0 +1,63 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.logic.MarketData;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderType;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRegistryTest {
+
+    @Test
+    void assetOrderAndMarketDataShareOneSymbolId() {
+        Share share = new Share(" regA ", "Registry", 10.0);
+        Order order = new Order("REGA", OrderType.BUY, 1, 10.0);
+
+        assertEquals("REGA", share.getSymbol());
+        assertEquals(share.getSymbolId(), order.getSymbolId());
+        assertEquals(share.getSymbolId(), SymbolRegistry.intern("rega"));
+        assertSame(share.getSymbol(), order.getSymbol());
+
+        MarketData marketData = new MarketData();
+        marketData.setPrice(share.getSymbolId(), 11.0);
+        assertEquals(11.0, marketData.getPrice(" rega"));
+    }
+
+    @Test
+    void invalidAssetSymbolIsRejectedAndNotRegistered() {
+        int before = SymbolRegistry.size();
+
+        assertThrows(IllegalArgumentException.class, () -> new Share("AB", "Too short", 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new Share("ABCDEFG", "Too long", 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new Share("AB1", "Digit", 1.0));
+
+        assertEquals(before, SymbolRegistry.size());
+        assertEquals(-1, SymbolRegistry.find("ABCDEFG"));
+    }
+
+    @Test
+    void lookupsDoNotRegisterUnknownSymbols() {
+        Portfolio portfolio = new Portfolio(1_000);
+        int before = SymbolRegistry.size();
+
+        assertNull(portfolio.getPositionBySymbol("NOPOS"));
+        assertNull(portfolio.getOrderBook("NOBOOK"));
+        assertFalse(new MarketData().hasPrice("NOPRC"));
+
+        assertEquals(before, SymbolRegistry.size());
+    }
+
+    @Test
+    void portfolioFindsPositionsByIdAndByAnySpelling() {
+        Portfolio portfolio = new Portfolio(10_000);
+        Share share = new Share("REGB", "Registry", 10.0);
+        portfolio.buyAsset(share, 5);
+
+        assertSame(portfolio.getPosition(share.getSymbolId()), portfolio.getPositionBySymbol(" regb "));
+        assertEquals(5, portfolio.getPosition(share.getSymbolId()).getTotalQuantity());
+    }
+}